@@ -2,6 +2,7 @@ package com.axonect.aee.template.baseapp.application.controller;
 
 import com.axonect.aee.template.baseapp.domain.service.DeleteBucketInstanceService;
 import com.axonect.aee.template.baseapp.domain.service.ExpiryNotificationService;
+import com.axonect.aee.template.baseapp.domain.service.JobExecutionRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,11 +19,14 @@ public class DeleteBucketInstanceController {
 
     private final ExpiryNotificationService expiryNotificationService;
 
+    private final JobExecutionRegistry jobExecutionRegistry;
+
     @GetMapping("/delete/expired")
     public void deleteExpiredBucketInstances(){
         log.info("Started delete expired bucket instances");
 
-        deleteBucketInstanceService.deleteExpiredBucketInstance();
+        jobExecutionRegistry.submit(DeleteBucketInstanceService.JOB_NAME,
+                deleteBucketInstanceService::deleteExpiredBucketInstance).await();
 
         log.info("Completed delete expired bucket instances");
     }
@@ -31,7 +35,8 @@ public class DeleteBucketInstanceController {
     public void sendNotification(){
         log.info("Started notification");
 
-        expiryNotificationService.processExpiryNotifications();
+        jobExecutionRegistry.submit(ExpiryNotificationService.JOB_NAME,
+                expiryNotificationService::processExpiryNotifications).await();
 
         log.info("Completed notifications");
     }
@@ -0,0 +1,184 @@
+package com.axonect.aee.template.baseapp.application.controller;
+
+import com.axonect.aee.template.baseapp.domain.entities.dto.JobExecutionStatus;
+import com.axonect.aee.template.baseapp.domain.exception.AAAException;
+import com.axonect.aee.template.baseapp.domain.service.AdaptiveChunkSizer;
+import com.axonect.aee.template.baseapp.domain.service.AdaptiveChunkSizing;
+import com.axonect.aee.template.baseapp.domain.service.DbLoadGovernor;
+import com.axonect.aee.template.baseapp.domain.service.DeleteBucketInstanceService;
+import com.axonect.aee.template.baseapp.domain.service.ExpiryNotificationService;
+import com.axonect.aee.template.baseapp.domain.service.JobExecution;
+import com.axonect.aee.template.baseapp.domain.service.JobExecutionRegistry;
+import com.axonect.aee.template.baseapp.domain.service.JobTunables;
+import com.axonect.aee.template.baseapp.domain.service.RecurrentServiceService;
+import com.axonect.aee.template.baseapp.domain.service.ServiceFailureRetryService;
+import com.axonect.aee.template.baseapp.domain.util.LogMessages;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RestController
+@RequestMapping("/api/jobs")
+@RequiredArgsConstructor
+@Slf4j
+public class JobController {
+
+    private final AdaptiveChunkSizing adaptiveChunkSizing;
+
+    private final DbLoadGovernor dbLoadGovernor;
+
+    private final JobTunables jobTunables;
+
+    private final JobExecutionRegistry jobExecutionRegistry;
+
+    private final RecurrentServiceService recurrentServiceService;
+
+    private final DeleteBucketInstanceService deleteBucketInstanceService;
+
+    private final ExpiryNotificationService expiryNotificationService;
+
+    private final ServiceFailureRetryService serviceFailureRetryService;
+
+    @Value("${job-executions.event-interval-ms:1000}")
+    private long eventIntervalMillis;
+
+    /**
+     * Starts a job in the background and returns its execution right away. If the job is already
+     * running, the running execution is returned instead of starting a second one.
+     */
+    @PostMapping("/{jobName}/executions")
+    public ResponseEntity<JobExecutionStatus> submitJob(@PathVariable String jobName){
+        Runnable job = jobs().get(jobName);
+        if (job == null) {
+            throw new AAAException(LogMessages.ERROR_NOT_FOUND, "Unknown job: " + jobName, HttpStatus.NOT_FOUND);
+        }
+        return ResponseEntity.accepted().body(jobExecutionRegistry.submit(jobName, job).status());
+    }
+
+    @GetMapping("/executions")
+    public List<JobExecutionStatus> executions(){
+        return jobExecutionRegistry.list().stream().map(JobExecution::status).toList();
+    }
+
+    @GetMapping("/executions/{executionId}")
+    public JobExecutionStatus execution(@PathVariable String executionId){
+        return jobExecutionRegistry.get(executionId).status();
+    }
+
+    /**
+     * Streams the progress of an execution as server-sent events until it finishes.
+     */
+    @GetMapping(value = "/executions/{executionId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter executionEvents(@PathVariable String executionId){
+        JobExecution execution = jobExecutionRegistry.get(executionId);
+        SseEmitter emitter = new SseEmitter(0L);
+        Thread.ofVirtual().name("job-execution-events").start(() -> {
+            try {
+                boolean finished;
+                do {
+                    finished = execution.isFinished();
+                    emitter.send(SseEmitter.event().name("progress").data(execution.status()));
+                    if (!finished) {
+                        Thread.sleep(eventIntervalMillis);
+                    }
+                } while (!finished);
+                emitter.complete();
+            } catch (IOException e) {
+                log.debug("Progress stream of execution {} closed by the client", executionId);
+                emitter.completeWithError(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                emitter.complete();
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * Asks an execution to stop at its next chunk boundary; progress is checkpointed.
+     */
+    @DeleteMapping("/executions/{executionId}")
+    public JobExecutionStatus cancelExecution(@PathVariable String executionId){
+        return jobExecutionRegistry.cancel(executionId).status();
+    }
+
+    /**
+     * Current chunk size of every batch job that has run since startup.
+     */
+    @GetMapping("/chunk-sizes")
+    public Map<String, Integer> chunkSizes(){
+        Map<String, Integer> sizes = new TreeMap<>();
+        for (AdaptiveChunkSizer sizer : adaptiveChunkSizing.sizers()) {
+            sizes.put(sizer.getJobName(), sizer.current());
+        }
+        return sizes;
+    }
+
+    /**
+     * Number of batch workers currently allowed to use the database, -1 when the governor is off or idle.
+     */
+    @GetMapping("/db-governor")
+    public Map<String, Integer> dbGovernor(){
+        return Map.of("workerLimit", dbLoadGovernor.currentLimit());
+    }
+
+    /**
+     * Current values of the runtime-tunable job parameters.
+     */
+    @GetMapping("/tunables")
+    public Map<String, String> tunables(){
+        return jobTunables.all();
+    }
+
+    /**
+     * Overrides a tunable on this replica; running jobs pick it up at their next chunk.
+     */
+    @PutMapping("/tunables/{key}")
+    public Map<String, String> setTunable(@PathVariable String key, @RequestParam String value){
+        log.info("Setting tunable {} to {}", key, value);
+        jobTunables.set(key, value);
+        return Map.of(key, jobTunables.get(key));
+    }
+
+    /**
+     * Returns a tunable to its configured value.
+     */
+    @DeleteMapping("/tunables/{key}")
+    public Map<String, String> resetTunable(@PathVariable String key){
+        log.info("Resetting tunable {}", key);
+        jobTunables.reset(key);
+        return Map.of(key, jobTunables.get(key));
+    }
+
+    private Map<String, Runnable> jobs(){
+        return Map.of(
+                RecurrentServiceService.JOB_NAME, recurrentServiceService::reactivateExpiredRecurrentServices,
+                RecurrentServiceService.CATCH_UP_JOB_NAME, recurrentServiceService::catchUpOverdueRecurrentServices,
+                DeleteBucketInstanceService.JOB_NAME, deleteBucketInstanceService::deleteExpiredBucketInstance,
+                ExpiryNotificationService.JOB_NAME, expiryNotificationService::processExpiryNotifications,
+                ServiceFailureRetryService.JOB_NAME, serviceFailureRetryService::retryFailures);
+    }
+
+    @ExceptionHandler(AAAException.class)
+    public ResponseEntity<Map<String, String>> handleAAAException(AAAException e){
+        return ResponseEntity.status(e.getStatus()).body(Map.of("code", e.getCode(), "message", e.getMessage()));
+    }
+}
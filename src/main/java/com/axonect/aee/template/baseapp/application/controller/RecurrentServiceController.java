@@ -1,12 +1,25 @@
 package com.axonect.aee.template.baseapp.application.controller;
 
+import com.axonect.aee.template.baseapp.domain.entities.dto.FailureRetrySummary;
+import com.axonect.aee.template.baseapp.domain.entities.dto.ReactivationSummary;
+import com.axonect.aee.template.baseapp.domain.service.JobExecutionRegistry;
 import com.axonect.aee.template.baseapp.domain.service.RecurrentServiceService;
+import com.axonect.aee.template.baseapp.domain.service.ServiceFailureRetryService;
+import com.axonect.aee.template.baseapp.domain.util.Constants;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/services")
 @RequiredArgsConstructor
@@ -15,12 +28,72 @@ public class RecurrentServiceController {
 
     private final RecurrentServiceService recurrentServiceService;
 
+    private final JobExecutionRegistry jobExecutionRegistry;
+
+    private final ServiceFailureRetryService serviceFailureRetryService;
+
+    // The GET triggers wait for the job; POST /api/jobs/{jobName}/executions starts it without waiting.
+    // Both share a running execution instead of starting the job twice.
+
     @GetMapping("/recurrent/reactivate")
     public void reactivateExpiredRecurrentServices(){
         log.info("Started reactivate expired recurrent services.");
 
-        recurrentServiceService.reactivateExpiredRecurrentServices();
+        jobExecutionRegistry.submit(RecurrentServiceService.JOB_NAME,
+                recurrentServiceService::reactivateExpiredRecurrentServices).await();
 
         log.info("Reactivate expired recurrent services completed.");
     }
+
+    @GetMapping("/recurrent/catch-up")
+    public void catchUpOverdueRecurrentServices(){
+        log.info("Started catch-up of overdue recurrent services.");
+
+        jobExecutionRegistry.submit(RecurrentServiceService.CATCH_UP_JOB_NAME,
+                recurrentServiceService::catchUpOverdueRecurrentServices).await();
+
+        log.info("Catch-up of overdue recurrent services completed.");
+    }
+
+    /**
+     * Re-processes the due services of the given users, by default those due in the next nightly run.
+     */
+    @PostMapping("/recurrent/reactivate/users")
+    public ReactivationSummary reactivateUsers(@RequestBody List<String> usernames,
+                                               @RequestParam(required = false) LocalDate dueDate){
+        LocalDate date = dueDate != null ? dueDate : LocalDate.now(ZoneId.of(Constants.SL_TIME_ZONE)).plusDays(1);
+        log.info("Started targeted reactivation of {} users for {}.", usernames.size(), date);
+
+        ReactivationSummary summary = recurrentServiceService.reactivateServicesForUsers(usernames, date);
+
+        log.info("Targeted reactivation completed. Success: {}, Failures: {}",
+                summary.getSuccessCount(), summary.getFailureCount());
+        return summary;
+    }
+
+    /**
+     * Replays the unresolved failures recorded by one processing run.
+     */
+    @PostMapping("/recurrent/failures/{batchId}/retry")
+    public FailureRetrySummary retryFailedBatch(@PathVariable String batchId){
+        log.info("Started replay of failures of batch {}.", batchId);
+
+        FailureRetrySummary summary = serviceFailureRetryService.replayBatch(batchId);
+
+        log.info("Replay of failures of batch {} completed. Resolved: {}, Still failing: {}",
+                batchId, summary.getResolved(), summary.getStillFailing());
+        return summary;
+    }
+
+    @GetMapping("/recurrent/plan")
+    public int planUpcomingRenewals(@RequestParam(required = false) LocalDate dueDate){
+        log.info("Started planning recurrent service renewals.");
+
+        int planned = dueDate != null
+                ? recurrentServiceService.planRenewalsDueOn(dueDate)
+                : recurrentServiceService.planUpcomingRenewals();
+
+        log.info("Planning recurrent service renewals completed. Planned: {}", planned);
+        return planned;
+    }
 }
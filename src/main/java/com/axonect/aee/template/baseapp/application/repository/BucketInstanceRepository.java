@@ -46,6 +46,20 @@ public interface BucketInstanceRepository extends JpaRepository<BucketInstance,L
             nativeQuery = true)
     Page<BucketInstance> findExpiredBuckets(@Param("today") LocalDateTime today, Pageable pageable);
 
+    /**
+     * Keyset read of expired bucket instance IDs for deletion.
+     * Returns IDs greater than {@code lastId} in ID order; the page size comes from {@code pageable}
+     * and no count query is issued. Only rows with MOD(ID, partitionCount) = partition are returned,
+     * so replicas can delete disjoint partitions. Pass (0, 1) to read all expired buckets.
+     */
+    @Query("SELECT b.id FROM BucketInstance b WHERE b.expiration IS NOT NULL AND b.expiration < :today " +
+            "AND b.id > :lastId AND MOD(b.id, :partitionCount) = :partition ORDER BY b.id")
+    List<Long> findExpiredBucketIdsAfterId(@Param("today") LocalDateTime today,
+                                           @Param("partition") long partition,
+                                           @Param("partitionCount") long partitionCount,
+                                           @Param("lastId") Long lastId,
+                                           Pageable pageable);
+
     /**
      * Find bucket instances expiring within a specific date range.
      * Used for expiry notification processing.
@@ -64,4 +78,23 @@ public interface BucketInstanceRepository extends JpaRepository<BucketInstance,L
             @Param("startDate") LocalDateTime startDate,
             @Param("endDate") LocalDateTime endDate,
             Pageable pageable);
+
+    /**
+     * Keyset read of bucket instances expiring within a specific date range.
+     * Returns buckets with ID greater than {@code lastId} in ID order; the page size comes from
+     * {@code pageable} and no count query is issued. Lets expiry notifications resume after a checkpoint.
+     *
+     * @param startDate start of date range (inclusive)
+     * @param endDate end of date range (exclusive)
+     * @param lastId last bucket instance ID already processed
+     * @param pageable page size
+     * @return bucket instances expiring in the date range after the given ID
+     */
+    @Query("SELECT b FROM BucketInstance b WHERE b.expiration >= :startDate AND b.expiration < :endDate " +
+            "AND b.id > :lastId ORDER BY b.id")
+    List<BucketInstance> findBucketsExpiringBetweenAfterId(
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate,
+            @Param("lastId") Long lastId,
+            Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.axonect.aee.template.baseapp.application.repository;
+
+import com.axonect.aee.template.baseapp.domain.entities.repo.JobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+/**
+ * Repository for nightly job checkpoints.
+ */
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, Long> {
+
+    /**
+     * Find the checkpoint of one partition of a job run
+     */
+    Optional<JobCheckpoint> findByJobNameAndRunKeyAndPartitionNo(String jobName, String runKey, Integer partitionNo);
+
+    /**
+     * Find the most recently updated checkpoint of a job run
+     */
+    Optional<JobCheckpoint> findFirstByJobNameAndRunKeyOrderByUpdatedAtDesc(String jobName, String runKey);
+}
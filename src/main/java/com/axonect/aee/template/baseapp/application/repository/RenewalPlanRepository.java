@@ -0,0 +1,35 @@
+package com.axonect.aee.template.baseapp.application.repository;
+
+import com.axonect.aee.template.baseapp.domain.entities.repo.RenewalPlan;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for renewals planned ahead of the nightly run.
+ */
+public interface RenewalPlanRepository extends JpaRepository<RenewalPlan, Long> {
+
+    /**
+     * Find the plans of a due date for a chunk of services
+     */
+    List<RenewalPlan> findByDueDateAndServiceIdIn(LocalDate dueDate, Collection<Long> serviceIds);
+
+    /**
+     * Find the plans in a given status for a chunk of services
+     */
+    List<RenewalPlan> findByServiceIdInAndStatus(Collection<Long> serviceIds, String status);
+
+    @Modifying
+    @Query("UPDATE RenewalPlan p SET p.status = :status, p.updatedAt = CURRENT_TIMESTAMP WHERE p.id IN :ids")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("status") String status);
+
+    @Modifying
+    @Query("DELETE FROM RenewalPlan p WHERE p.dueDate < :dueDate")
+    int deleteByDueDateBefore(@Param("dueDate") LocalDate dueDate);
+}
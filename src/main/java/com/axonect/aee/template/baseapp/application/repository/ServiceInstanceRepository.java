@@ -1,47 +1,141 @@
 package com.axonect.aee.template.baseapp.application.repository;
 
+import com.axonect.aee.template.baseapp.domain.entities.dto.DueServiceKey;
 import com.axonect.aee.template.baseapp.domain.entities.repo.ServiceInstance;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import jakarta.persistence.LockModeType;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface ServiceInstanceRepository extends JpaRepository<ServiceInstance,Long> {
 
-    List<ServiceInstance> findByUsernameInAndRecurringFlagTrueAndNextCycleStartDate(
-            List<String> usernames, LocalDateTime nextCycleStartDate);
+    /**
+     * Due recurring services of the given users, for targeted reactivation.
+     * Same criteria as the nightly due set (cycle start within the day, not expired); keep the username
+     * list within Oracle's 1000-element IN limit.
+     */
+    @Query("SELECT s FROM ServiceInstance s WHERE s.username IN :usernames AND s.recurringFlag = true " +
+            "AND s.nextCycleStartDate >= :dayStart AND s.nextCycleStartDate < :dayEnd " +
+            "AND s.expiryDate > :expiryDate ORDER BY s.username, s.id")
+    List<ServiceInstance> findDueRecurringServicesByUsernameIn(
+            @Param("usernames") List<String> usernames,
+            @Param("dayStart") LocalDateTime dayStart,
+            @Param("dayEnd") LocalDateTime dayEnd,
+            @Param("expiryDate") LocalDateTime expiryDate);
 
     /**
-     * Find services for batch processing that match the following criteria:
-     * - RECURRING_FLAG = true
-     * - NEXT_CYCLE_START_DATE on the specified date (compares date only, ignores time)
-     * - EXPIRY_DATE is after the specified date (not expired)
-     * Supports pagination for batch processing.
+     * Keyset (seek) read of the recurring services due in [dayStart, dayEnd) that have not expired.
+     * Returns the next {@code limit} due services whose ID is greater than {@code lastId}, ordered by ID.
      *
      * OPTIMIZED FOR 5M+ RECORDS:
-     * - Uses Oracle hint INDEX to force use of composite index
-     * - FIRST_ROWS(100) hint optimizes for fast initial row retrieval
-     * - Pagination-friendly for large datasets
+     * - No COUNT(*) query and no OFFSET, so every page costs the same regardless of how far the scan has got
+     * - Walks idx_service_recurring_id_due_user in ID order and stops after {@code limit} matches
+     * - Rows whose NEXT_CYCLE_START_DATE is moved by processing simply fall behind the cursor,
+     *   so no due service is skipped
+     *
+     * Partitioning: only rows with MOD(ORA_HASH(USERNAME), partitionCount) = partition are returned,
+     * so all services of one user always land in the same partition. Pass (0, 1) to read the whole due set.
+     * USERNAME is part of the index, so rows of other partitions are skipped without a table access.
      */
-    @Query(value = "SELECT /*+ INDEX(s idx_service_recurring_next_expiry) FIRST_ROWS(100) */ " +
+    @Query(value = "SELECT /*+ INDEX(s idx_service_recurring_id_due_user) FIRST_ROWS(100) */ " +
             "s.* FROM SERVICE_INSTANCE s WHERE s.RECURRING_FLAG = 1 " +
+            "AND s.ID > :lastId " +
             "AND s.NEXT_CYCLE_START_DATE >= :dayStart " +
             "AND s.NEXT_CYCLE_START_DATE < :dayEnd " +
-            "AND s.EXPIRY_DATE > :expiryDate",
-            countQuery = "SELECT /*+ INDEX(s idx_service_recurring_next_expiry) */ " +
-            "COUNT(*) FROM SERVICE_INSTANCE s WHERE s.RECURRING_FLAG = 1 " +
-            "AND s.NEXT_CYCLE_START_DATE >= :dayStart " +
-            "AND s.NEXT_CYCLE_START_DATE < :dayEnd " +
-            "AND s.EXPIRY_DATE > :expiryDate",
+            "AND s.EXPIRY_DATE > :expiryDate " +
+            "AND MOD(ORA_HASH(s.USERNAME), :partitionCount) = :partition " +
+            "ORDER BY s.ID FETCH FIRST :limit ROWS ONLY",
             nativeQuery = true)
-    Page<ServiceInstance> findByRecurringFlagTrueAndNextCycleStartDateAndExpiryDateAfter(
+    List<ServiceInstance> findDueRecurringServicesAfterId(
+            @Param("dayStart") LocalDateTime dayStart,
+            @Param("dayEnd") LocalDateTime dayEnd,
+            @Param("expiryDate") LocalDateTime expiryDate,
+            @Param("partition") int partition,
+            @Param("partitionCount") int partitionCount,
+            @Param("lastId") Long lastId,
+            @Param("limit") int limit);
+
+    /**
+     * Keyset read of overdue recurring services for catch-up after a scheduler outage:
+     * services whose NEXT_CYCLE_START_DATE is before {@code dueBefore} and that have not expired yet.
+     * Rolled forward rows move past {@code dueBefore} and leave the set; the ID cursor keeps paging stable.
+     */
+    @Query(value = "SELECT /*+ INDEX(s idx_service_recurring_id_due_user) FIRST_ROWS(100) */ " +
+            "s.* FROM SERVICE_INSTANCE s WHERE s.RECURRING_FLAG = 1 " +
+            "AND s.ID > :lastId " +
+            "AND s.NEXT_CYCLE_START_DATE < :dueBefore " +
+            "AND s.EXPIRY_DATE > :now " +
+            "ORDER BY s.ID FETCH FIRST :limit ROWS ONLY",
+            nativeQuery = true)
+    List<ServiceInstance> findOverdueRecurringServicesAfterId(
+            @Param("dueBefore") LocalDateTime dueBefore,
+            @Param("now") LocalDateTime now,
+            @Param("lastId") Long lastId,
+            @Param("limit") int limit);
+
+    /**
+     * Number of recurring services due in the window, used to pace a run over its time window.
+     */
+    @Query("SELECT COUNT(s) FROM ServiceInstance s WHERE s.recurringFlag = true " +
+            "AND s.nextCycleStartDate >= :dayStart AND s.nextCycleStartDate < :dayEnd " +
+            "AND s.expiryDate > :expiryDate")
+    long countDueRecurringServices(
+            @Param("dayStart") LocalDateTime dayStart,
+            @Param("dayEnd") LocalDateTime dayEnd,
+            @Param("expiryDate") LocalDateTime expiryDate);
+
+    /**
+     * Plans of the recurring services due in the window, validated once before a run.
+     */
+    @Query("SELECT DISTINCT s.planId FROM ServiceInstance s WHERE s.recurringFlag = true " +
+            "AND s.nextCycleStartDate >= :dayStart AND s.nextCycleStartDate < :dayEnd " +
+            "AND s.expiryDate > :expiryDate")
+    List<String> findDistinctDuePlanIds(
+            @Param("dayStart") LocalDateTime dayStart,
+            @Param("dayEnd") LocalDateTime dayEnd,
+            @Param("expiryDate") LocalDateTime expiryDate);
+
+    /**
+     * Keyset read of the key columns of all services due in [dayStart, dayEnd), in ID order.
+     * Used to snapshot the due set into a spool file before processing; the page size comes from
+     * {@code pageable} and no count query is issued.
+     */
+    @Query("SELECT s.id AS id, s.username AS username, s.nextCycleStartDate AS nextCycleStartDate, " +
+            "s.isGroup AS isGroup, s.planId AS planId FROM ServiceInstance s " +
+            "WHERE s.recurringFlag = true AND s.id > :lastId " +
+            "AND s.nextCycleStartDate >= :dayStart AND s.nextCycleStartDate < :dayEnd " +
+            "AND s.expiryDate > :expiryDate ORDER BY s.id")
+    List<DueServiceKey> findDueRecurringServiceKeysAfterId(
             @Param("dayStart") LocalDateTime dayStart,
             @Param("dayEnd") LocalDateTime dayEnd,
             @Param("expiryDate") LocalDateTime expiryDate,
+            @Param("lastId") Long lastId,
             Pageable pageable);
+
+    /**
+     * Reads the given services with a row lock (SELECT ... FOR UPDATE) held until the transaction ends.
+     * Provisioning locks its services first and checks that NEXT_CYCLE_START_DATE is still the cycle it
+     * read, so two replicas or runs never provision the same cycle twice. Keep the ID list within Oracle's
+     * 1000-element IN limit.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ServiceInstance s WHERE s.id IN :ids")
+    List<ServiceInstance> lockAllById(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Reads the group services (IS_GROUP) of a group's members on a plan with a row lock held until the
+     * transaction ends, in ID order. Electing the lead of a shared group plan locks them first, so two
+     * replicas or runs cannot both provision the shared buckets of the same group plan and cycle.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ServiceInstance s WHERE s.isGroup = true AND s.planId = :planId " +
+            "AND s.username IN (SELECT u.userName FROM UserEntity u WHERE u.groupId = :groupId) ORDER BY s.id")
+    List<ServiceInstance> lockGroupServices(@Param("groupId") String groupId, @Param("planId") String planId);
 }
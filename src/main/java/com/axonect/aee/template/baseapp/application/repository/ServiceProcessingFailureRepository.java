@@ -1,11 +1,14 @@
 package com.axonect.aee.template.baseapp.application.repository;
 
 import com.axonect.aee.template.baseapp.domain.entities.repo.ServiceProcessingFailure;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -43,8 +46,35 @@ public interface ServiceProcessingFailureRepository extends JpaRepository<Servic
     List<ServiceProcessingFailure> findByProcessingStatusAndRetryCountLessThan(
             String processingStatus, Integer maxRetries);
 
+    /**
+     * Keyset read of pending retry failures, in ID order
+     */
+    @Query("SELECT f FROM ServiceProcessingFailure f WHERE f.processingStatus = :processingStatus " +
+            "AND f.retryCount < :maxRetries AND f.id > :lastId ORDER BY f.id")
+    List<ServiceProcessingFailure> findByProcessingStatusAndRetryCountLessThanAfterId(
+            @Param("processingStatus") String processingStatus,
+            @Param("maxRetries") Integer maxRetries,
+            @Param("lastId") Long lastId,
+            Pageable pageable);
+
     /**
      * Find failures by batch ID
      */
     List<ServiceProcessingFailure> findByBatchId(String batchId);
+
+    /**
+     * Records a retry attempt of the given failures
+     */
+    @Modifying
+    @Query("UPDATE ServiceProcessingFailure f SET f.retryCount = f.retryCount + 1, f.lastRetryDate = :retryDate " +
+            "WHERE f.id IN :ids")
+    int markRetried(@Param("ids") Collection<Long> ids, @Param("retryDate") LocalDateTime retryDate);
+
+    /**
+     * Records a successful retry attempt of the given failures
+     */
+    @Modifying
+    @Query("UPDATE ServiceProcessingFailure f SET f.retryCount = f.retryCount + 1, f.lastRetryDate = :retryDate, " +
+            "f.processingStatus = 'RESOLVED', f.resolvedDate = :retryDate WHERE f.id IN :ids")
+    int markResolved(@Param("ids") Collection<Long> ids, @Param("retryDate") LocalDateTime retryDate);
 }
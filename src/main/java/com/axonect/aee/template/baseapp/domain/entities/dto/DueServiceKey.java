@@ -0,0 +1,19 @@
+package com.axonect.aee.template.baseapp.domain.entities.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Key columns of a due recurring service, read without loading the whole ServiceInstance.
+ */
+public interface DueServiceKey {
+
+    Long getId();
+
+    String getUsername();
+
+    LocalDateTime getNextCycleStartDate();
+
+    Boolean getIsGroup();
+
+    String getPlanId();
+}
@@ -0,0 +1,17 @@
+package com.axonect.aee.template.baseapp.domain.entities.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Outcome of a retry of recorded service processing failures.
+ */
+@Getter
+@Builder
+public class FailureRetrySummary {
+    private String batchId;
+    private int failures;
+    private int servicesRetried;
+    private int resolved;
+    private int stillFailing;
+}
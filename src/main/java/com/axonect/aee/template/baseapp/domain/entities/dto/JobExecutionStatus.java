@@ -0,0 +1,26 @@
+package com.axonect.aee.template.baseapp.domain.entities.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a submitted job execution, as returned by /api/jobs.
+ */
+@Getter
+@Builder
+public class JobExecutionStatus {
+    private String executionId;
+    private String jobName;
+    private String status;
+    private boolean cancelRequested;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long processed;
+    private long failed;
+    private Long total;
+    private double throughputPerSecond;
+    private Long etaSeconds;
+    private String error;
+}
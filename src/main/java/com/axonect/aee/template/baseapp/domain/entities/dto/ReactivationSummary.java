@@ -0,0 +1,17 @@
+package com.axonect.aee.template.baseapp.domain.entities.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Outcome of a targeted reactivation; failures are recorded under the batch ID.
+ */
+@Getter
+@Builder
+public class ReactivationSummary {
+    private String batchId;
+    private int users;
+    private int servicesFound;
+    private int successCount;
+    private int failureCount;
+}
@@ -0,0 +1,73 @@
+package com.axonect.aee.template.baseapp.domain.entities.repo;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of one partition of a nightly job run, written after each committed chunk.
+ * A restarted or re-triggered run for the same business date resumes after LAST_KEY.
+ */
+@Entity
+@Table(name = "JOB_CHECKPOINT", uniqueConstraints = @UniqueConstraint(
+        name = "UK_JOB_CHECKPOINT_RUN", columnNames = {"JOB_NAME", "RUN_KEY", "PARTITION_NO"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class JobCheckpoint implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "job_checkpoint_seq")
+    @SequenceGenerator(name = "job_checkpoint_seq", sequenceName = "JOB_CHECKPOINT_SEQ", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "JOB_NAME", length = 64, nullable = false)
+    private String jobName;
+
+    @Column(name = "RUN_KEY", length = 64, nullable = false)
+    private String runKey;  // Business date of the run
+
+    @Column(name = "PARTITION_NO", nullable = false)
+    private Integer partitionNo;
+
+    @Column(name = "PARTITION_COUNT", nullable = false)
+    private Integer partitionCount;
+
+    @Column(name = "BATCH_ID", length = 100)
+    private String batchId;
+
+    @Column(name = "LAST_KEY", length = 200)
+    private String lastKey;
+
+    @Column(name = "PROCESSED_COUNT")
+    private Long processedCount;
+
+    @Column(name = "FAILED_COUNT")
+    private Long failedCount;
+
+    @Column(name = "STATUS", length = 20, nullable = false)
+    private String status;  // RUNNING, STOPPED, COMPLETED
+
+    @Column(name = "CREATED_AT")
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    @Column(name = "UPDATED_AT")
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
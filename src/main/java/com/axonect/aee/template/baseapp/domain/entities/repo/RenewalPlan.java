@@ -0,0 +1,71 @@
+package com.axonect.aee.template.baseapp.domain.entities.repo;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Renewal of one service instance computed ahead of its due date.
+ * The nightly run applies CHANGE_SET as is when FINGERPRINT still matches the service, its user,
+ * plan and current buckets; otherwise the service is provisioned the normal way.
+ */
+@Entity
+@Table(name = "RENEWAL_PLAN", uniqueConstraints = @UniqueConstraint(
+        name = "UK_RENEWAL_PLAN_SERVICE", columnNames = {"SERVICE_ID", "DUE_DATE"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RenewalPlan implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "renewal_plan_seq")
+    @SequenceGenerator(name = "renewal_plan_seq", sequenceName = "RENEWAL_PLAN_SEQ", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "SERVICE_ID", nullable = false)
+    private Long serviceId;
+
+    @Column(name = "DUE_DATE", nullable = false)
+    private LocalDate dueDate;
+
+    @Column(name = "USERNAME", length = 64)
+    private String username;
+
+    @Column(name = "EXPECTED_CYCLE_START", nullable = false)
+    private LocalDateTime expectedCycleStart;  // NEXT_CYCLE_START_DATE the plan was computed from
+
+    @Column(name = "FINGERPRINT", length = 64, nullable = false)
+    private String fingerprint;
+
+    @Lob
+    @Column(name = "CHANGE_SET", nullable = false)
+    private String changeSet;  // JSON: new cycle dates, bucket instances to insert and to update
+
+    @Column(name = "STATUS", length = 20, nullable = false)
+    private String status;  // PLANNED, APPLIED, STALE
+
+    @Column(name = "CREATED_AT")
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    @Column(name = "UPDATED_AT")
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
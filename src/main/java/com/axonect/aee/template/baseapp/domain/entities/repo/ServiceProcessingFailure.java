@@ -1,20 +1,22 @@
 package com.axonect.aee.template.baseapp.domain.entities.repo;
 
+import com.axonect.aee.template.baseapp.domain.util.Constants;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
 import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.CreationTimestamp;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 
 /**
  * Entity to track service processing failures during recurrent service reactivation.
@@ -61,7 +63,6 @@ public class ServiceProcessingFailure implements Serializable {
     private String processingStatus;  // FAILED, PENDING_RETRY, RESOLVED
 
     @Column(name = "FAILURE_DATE")
-    @CreationTimestamp
     private LocalDateTime failureDate;
 
     @Column(name = "LAST_RETRY_DATE")
@@ -75,4 +76,14 @@ public class ServiceProcessingFailure implements Serializable {
 
     @Column(name = "ADDITIONAL_INFO", length = 1000)
     private String additionalInfo;
+
+    /**
+     * Stamps FAILURE_DATE in the SL time zone, like LAST_RETRY_DATE, rather than in the JVM default zone.
+     */
+    @PrePersist
+    protected void onCreate() {
+        if (failureDate == null) {
+            failureDate = LocalDateTime.now(ZoneId.of(Constants.SL_TIME_ZONE));
+        }
+    }
 }
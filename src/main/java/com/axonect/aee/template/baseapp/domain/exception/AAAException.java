@@ -13,4 +13,19 @@ public class AAAException extends RuntimeException {
         this.code = code;
         this.status = status;
     }
+
+    public AAAException(String code, String message, HttpStatus status, Throwable cause) {
+        super(message, cause);
+        this.code = code;
+        this.status = status;
+    }
+
+    /**
+     * Without cause and suppressed exceptions, and without a stack trace unless {@code writableStackTrace}.
+     */
+    protected AAAException(String code, String message, HttpStatus status, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+        this.code = code;
+        this.status = status;
+    }
 }
@@ -0,0 +1,16 @@
+package com.axonect.aee.template.baseapp.domain.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Expected failure caused by missing reference data, such as a bucket, QoS profile or quota of a plan
+ * that does not exist. A bad plan fails every service on it, so these are raised without a stack trace:
+ * the message names what is missing, and the trace would only point at the provisioning code.
+ * Instances are immutable and may be shared between threads.
+ */
+public class ReferenceDataException extends AAAException {
+
+    public ReferenceDataException(String code, String message, HttpStatus status) {
+        super(code, message, status, false);
+    }
+}
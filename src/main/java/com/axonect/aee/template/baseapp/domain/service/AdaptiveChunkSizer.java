@@ -0,0 +1,109 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chunk size of one batch job, adjusted after every chunk with AIMD (additive increase,
+ * multiplicative decrease): while chunks finish within the target latency and their error rate
+ * stays low the size grows by a fixed step; a slow chunk or too many errors cuts it by a factor.
+ * The size converges on the largest chunk the database and Redis handle within the target,
+ * and backs off quickly when they slow down.
+ */
+@Slf4j
+public final class AdaptiveChunkSizer {
+
+    private final String jobName;
+    private final int configuredSize;
+    private final int minSize;
+    private final int maxSize;
+    private final long targetLatencyNanos;
+    private final int increaseStep;
+    private final double decreaseFactor;
+    private final double maxErrorRate;
+
+    private volatile int currentSize;
+    private volatile long lastLatencyMillis;
+
+    @SuppressWarnings("java:S107")
+    AdaptiveChunkSizer(String jobName, int initialSize, int minSize, int maxSize, long targetLatencyMillis,
+                       int increaseStep, double decreaseFactor, double maxErrorRate) {
+        this.jobName = jobName;
+        this.configuredSize = initialSize;
+        this.minSize = Math.max(1, Math.min(minSize, maxSize));
+        this.maxSize = Math.max(this.minSize, maxSize);
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+        this.increaseStep = Math.max(1, increaseStep);
+        this.decreaseFactor = decreaseFactor;
+        this.maxErrorRate = maxErrorRate;
+        this.currentSize = Math.clamp(initialSize, this.minSize, this.maxSize);
+    }
+
+    /**
+     * A sizer that always returns the configured size.
+     */
+    static AdaptiveChunkSizer fixed(String jobName, int size) {
+        return new AdaptiveChunkSizer(jobName, size, size, size, Long.MAX_VALUE / 1_000_000, 1, 1.0, 1.0);
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    /**
+     * The job's configured chunk size this sizer started from.
+     */
+    int getConfiguredSize() {
+        return configuredSize;
+    }
+
+    /**
+     * Size to use for the next chunk.
+     */
+    public int current() {
+        return currentSize;
+    }
+
+    public long getLastLatencyMillis() {
+        return lastLatencyMillis;
+    }
+
+    /**
+     * Feeds back the outcome of a chunk.
+     *
+     * @param size items in the chunk
+     * @param elapsedNanos time to read and process the chunk
+     * @param failures items of the chunk that failed
+     */
+    synchronized void record(int size, long elapsedNanos, int failures) {
+        lastLatencyMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        if (size <= 0 || minSize == maxSize) {
+            return;
+        }
+
+        int previous = currentSize;
+        boolean tooSlow = elapsedNanos > targetLatencyNanos;
+        boolean tooManyErrors = failures > size * maxErrorRate;
+        if (tooSlow || tooManyErrors) {
+            currentSize = Math.max(minSize, (int) (previous * decreaseFactor));
+        } else if (size >= previous) {
+            // Only a full-size chunk proves the current size is sustainable
+            currentSize = Math.min(maxSize, previous + increaseStep);
+        }
+
+        if (currentSize < previous) {
+            log.info("{} chunk size {} -> {} (latency {} ms, {} of {} failed)",
+                    jobName, previous, currentSize, lastLatencyMillis, failures, size);
+        } else if (currentSize > previous) {
+            log.debug("{} chunk size {} -> {} (latency {} ms)", jobName, previous, currentSize, lastLatencyMillis);
+        }
+    }
+
+    /**
+     * Records a chunk that failed as a whole.
+     */
+    void recordFailure(int size, long elapsedNanos) {
+        record(size, elapsedNanos, size);
+    }
+}
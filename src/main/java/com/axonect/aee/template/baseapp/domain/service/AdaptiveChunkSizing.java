@@ -0,0 +1,75 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adaptive chunk sizers of the batch jobs, one per job. A sizer lives as long as the application,
+ * so each run starts from the size the previous run converged on. When the configured chunk size
+ * of a job is changed at runtime ({@link JobTunables}) its sizer starts over from the new size.
+ * With adaptive-chunk.enabled false every job keeps its configured chunk size. Sizes never exceed
+ * {@link JobTunables#MAX_CHUNK_SIZE}, whatever adaptive-chunk.max-size says, as chunks are loaded
+ * with one IN list per table.
+ */
+@Component
+public class AdaptiveChunkSizing {
+
+    private final Map<String, AdaptiveChunkSizer> sizers = new ConcurrentHashMap<>();
+
+    @Value("${adaptive-chunk.enabled:false}")
+    private boolean enabled;
+
+    @Value("${adaptive-chunk.min-size:20}")
+    private int minSize;
+
+    @Value("${adaptive-chunk.max-size:1000}")
+    private int maxSize;
+
+    @Value("${adaptive-chunk.target-latency-ms:2000}")
+    private long targetLatencyMillis;
+
+    @Value("${adaptive-chunk.increase-step:20}")
+    private int increaseStep;
+
+    @Value("${adaptive-chunk.decrease-factor:0.5}")
+    private double decreaseFactor;
+
+    @Value("${adaptive-chunk.max-error-rate:0.05}")
+    private double maxErrorRate;
+
+    /**
+     * Called before every chunk, so a changed configured size applies from the next chunk.
+     *
+     * @param configuredSize the job's configured chunk size, the starting point of adaptation
+     */
+    public AdaptiveChunkSizer sizer(String jobName, int configuredSize) {
+        int initialSize = Math.min(configuredSize, JobTunables.MAX_CHUNK_SIZE);
+        AdaptiveChunkSizer sizer = sizers.get(jobName);
+        if (sizer != null && sizer.getConfiguredSize() == initialSize) {
+            return sizer;
+        }
+        return sizers.compute(jobName, (name, existing) ->
+                existing != null && existing.getConfiguredSize() == initialSize
+                        ? existing
+                        : newSizer(name, initialSize));
+    }
+
+    private AdaptiveChunkSizer newSizer(String jobName, int initialSize) {
+        return enabled
+                ? new AdaptiveChunkSizer(jobName, initialSize, minSize, Math.min(maxSize, JobTunables.MAX_CHUNK_SIZE),
+                        targetLatencyMillis, increaseStep, decreaseFactor, maxErrorRate)
+                : AdaptiveChunkSizer.fixed(jobName, initialSize);
+    }
+
+    /**
+     * Current sizers, for monitoring.
+     */
+    public Collection<AdaptiveChunkSizer> sizers() {
+        return List.copyOf(sizers.values());
+    }
+}
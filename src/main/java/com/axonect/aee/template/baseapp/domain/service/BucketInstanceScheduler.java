@@ -1,49 +1,46 @@
 package com.axonect.aee.template.baseapp.domain.service;
 
+import com.axonect.aee.template.baseapp.domain.entities.dto.JobExecutionStatus;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Lazy;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Scheduler for automatically cleaning up expired bucket instances from the database.
- * Runs periodically based on the configured cron expression.
+ * Runs periodically based on the configured cron expression; the schedules are {@link JobTunables}
+ * and can be changed without a restart.
  */
 @Component
 @RequiredArgsConstructor
 @Slf4j
-@SuppressWarnings("java:S6813")
 public class BucketInstanceScheduler {
 
     private final DeleteBucketInstanceService deleteBucketInstanceService;
     private final ExpiryNotificationService expiryNotificationService;
+    private final TunableCronScheduler tunableCronScheduler;
+    private final JobExecutionRegistry jobExecutionRegistry;
 
-
-    @Autowired
-    @Lazy
-    private  BucketInstanceScheduler self;
-
-    @Scheduled(cron = "${delete-expired-buckets.schedule:0 0 2 * * ?}")
-    public void scheduleDeleteExpiredBuckets() {
-        log.info("Starting scheduled deletion of expired bucket instances");
-        try {
-            self.deleteExpiredBucketsTransactional();
-            log.info("Successfully completed scheduled deletion of expired bucket instances");
-        } catch (Exception e) {
-            log.error("Error during scheduled deletion of expired bucket instances", e);
-        }
+    @PostConstruct
+    void scheduleJobs() {
+        tunableCronScheduler.schedule(JobTunables.DELETE_BUCKETS_SCHEDULE, this::scheduleDeleteExpiredBuckets);
+        tunableCronScheduler.schedule(JobTunables.EXPIRY_NOTIFICATION_SCHEDULE, this::scheduleExpiryNotifications);
     }
 
     /**
-     * Transactional method to delete expired buckets.
-     * Separated to avoid self-invocation issues with @Transactional.
+     * Deletes expired bucket instances.
+     * Runs without an enclosing transaction: every chunk is deleted and committed on its own,
+     * so partition leases and progress are visible to other replicas while the job runs.
+     * Runs as a job execution, so it is visible and cancellable through /api/jobs and shares the run
+     * with a trigger from the API.
      */
-    @Transactional
-    public void deleteExpiredBucketsTransactional() {
-        deleteBucketInstanceService.deleteExpiredBucketInstance();
+    public void scheduleDeleteExpiredBuckets() {
+        log.info("Starting scheduled deletion of expired bucket instances");
+        JobExecution execution = jobExecutionRegistry.submit(DeleteBucketInstanceService.JOB_NAME,
+                deleteBucketInstanceService::deleteExpiredBucketInstance);
+        execution.await();
+        log.info("Scheduled deletion of expired bucket instances finished with status {}",
+                execution.status().getStatus());
     }
 
     /**
@@ -53,15 +50,13 @@ public class BucketInstanceScheduler {
      * this will send notifications for all buckets expiring on 2026-01-30.
      * Default schedule: 9:00 AM daily (configurable via application.yml)
      */
-    @Scheduled(cron = "${expiry-notification.schedule:0 0 9 * * ?}")
     public void scheduleExpiryNotifications() {
         log.info("Starting scheduled expiry notification processing");
-        try {
-            int notificationsSent = expiryNotificationService.processExpiryNotifications();
-            log.info("Successfully completed expiry notification processing. Total notifications sent: {}",
-                    notificationsSent);
-        } catch (Exception e) {
-            log.error("Error during scheduled expiry notification processing", e);
-        }
+        JobExecution execution = jobExecutionRegistry.submit(ExpiryNotificationService.JOB_NAME,
+                expiryNotificationService::processExpiryNotifications);
+        execution.await();
+        JobExecutionStatus status = execution.status();
+        log.info("Expiry notification processing finished with status {}. Total notifications sent: {}",
+                status.getStatus(), status.getProcessed() - status.getFailed());
     }
 }
@@ -0,0 +1,121 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import com.axonect.aee.template.baseapp.domain.entities.repo.JobCheckpoint;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adds checkpoint/resume and graceful stop to another partition source:
+ * - Partitions already COMPLETED for the run are skipped
+ * - Partitions with a checkpoint resume after its last key
+ * - On shutdown or cancellation of the job execution, {@link #renew(int)} returns false at the next
+ *   chunk boundary and the partition is checkpointed as STOPPED instead of completed
+ */
+@Slf4j
+final class CheckpointedPartitionSource implements PartitionSource {
+
+    private final PartitionSource delegate;
+    private final JobCheckpointService checkpointService;
+    private final JobShutdownCoordinator shutdownCoordinator;
+    private final JobExecution execution;
+    private final String jobName;
+    private final String runKey;
+    private final String batchId;
+
+    private final Map<Integer, JobCheckpoint> resumedCheckpoints = new ConcurrentHashMap<>();
+    private final Set<Integer> stoppedPartitions = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> lostPartitions = ConcurrentHashMap.newKeySet();
+
+    @SuppressWarnings("java:S107")
+    CheckpointedPartitionSource(PartitionSource delegate, JobCheckpointService checkpointService,
+                                JobShutdownCoordinator shutdownCoordinator, JobExecution execution,
+                                String jobName, String runKey, String batchId) {
+        this.delegate = delegate;
+        this.checkpointService = checkpointService;
+        this.shutdownCoordinator = shutdownCoordinator;
+        this.execution = execution;
+        this.jobName = jobName;
+        this.runKey = runKey;
+        this.batchId = batchId;
+    }
+
+    @Override
+    public int partitionCount() {
+        return delegate.partitionCount();
+    }
+
+    @Override
+    public Integer next() {
+        while (!stopRequested()) {
+            Integer partition = delegate.next();
+            if (partition == null) {
+                return null;
+            }
+
+            JobCheckpoint checkpoint = checkpointService.find(jobName, runKey, partition, partitionCount());
+            if (checkpoint == null) {
+                return partition;
+            }
+            if (JobCheckpointService.STATUS_COMPLETED.equals(checkpoint.getStatus())) {
+                log.info("Partition {} of {}/{} already completed, skipping", partition, jobName, runKey);
+                delegate.complete(partition);
+                continue;
+            }
+
+            log.info("Resuming partition {} of {}/{} after key {} ({} processed so far)",
+                    partition, jobName, runKey, checkpoint.getLastKey(), checkpoint.getProcessedCount());
+            resumedCheckpoints.put(partition, checkpoint);
+            return partition;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean renew(int partition) {
+        if (stopRequested()) {
+            stoppedPartitions.add(partition);
+            return false;
+        }
+        if (!delegate.renew(partition)) {
+            lostPartitions.add(partition);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void complete(int partition) {
+        if (stoppedPartitions.contains(partition)) {
+            checkpointService.stop(jobName, runKey, partition, partitionCount(), batchId);
+            return;
+        }
+        if (lostPartitions.contains(partition)) {
+            // Another replica took the partition over and will complete it
+            return;
+        }
+        checkpointService.complete(jobName, runKey, partition, partitionCount(), batchId);
+        delegate.complete(partition);
+    }
+
+    private boolean stopRequested() {
+        return shutdownCoordinator.isStopRequested() || execution.isCancelRequested();
+    }
+
+    @Override
+    public String resumeAfter(int partition) {
+        JobCheckpoint checkpoint = resumedCheckpoints.get(partition);
+        return checkpoint != null ? checkpoint.getLastKey() : null;
+    }
+
+    @Override
+    public void checkpoint(int partition, String lastKey, long processedCount, long failedCount) {
+        JobCheckpoint resumed = resumedCheckpoints.get(partition);
+        long previousProcessed = resumed != null && resumed.getProcessedCount() != null ? resumed.getProcessedCount() : 0L;
+        long previousFailed = resumed != null && resumed.getFailedCount() != null ? resumed.getFailedCount() : 0L;
+        checkpointService.record(jobName, runKey, partition, partitionCount(), batchId, lastKey,
+                previousProcessed + processedCount, previousFailed + failedCount);
+    }
+}
@@ -0,0 +1,49 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Isolates the failing items of a chunk that is processed all-or-nothing.
+ *
+ * The chunk is attempted as a whole; if it fails it is reloaded and split in half, and each half is
+ * attempted the same way until the failing items are on their own. A single bad item in a chunk of n
+ * costs about 2 log2(n) extra attempts, and the good items still commit together in the larger halves.
+ */
+final class ChunkBisection {
+
+    private ChunkBisection() {
+    }
+
+    /**
+     * @param chunk Items to process
+     * @param attempt Processes a chunk all-or-nothing; throws if any item fails
+     * @param reload Returns the items of a failed chunk to retry, e.g. re-read from the committed state;
+     *               may drop items that no longer need processing
+     * @param onFailure Called with each item that failed on its own
+     */
+    static <T> void run(List<T> chunk, Consumer<List<T>> attempt,
+                        BiFunction<List<T>, Exception, List<T>> reload, BiConsumer<T, Exception> onFailure) {
+        try {
+            attempt.accept(chunk);
+        } catch (Exception ex) {
+            if (chunk.size() == 1) {
+                onFailure.accept(chunk.get(0), ex);
+                return;
+            }
+
+            List<T> reloaded = reload.apply(chunk, ex);
+            int middle = reloaded.size() / 2;
+            if (middle == 0) {
+                if (!reloaded.isEmpty()) {
+                    run(reloaded, attempt, reload, onFailure);
+                }
+                return;
+            }
+            run(reloaded.subList(0, middle), attempt, reload, onFailure);
+            run(reloaded.subList(middle, reloaded.size()), attempt, reload, onFailure);
+        }
+    }
+}
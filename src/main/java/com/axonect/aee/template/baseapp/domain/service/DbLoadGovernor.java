@@ -0,0 +1,261 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits how many batch workers use database connections at the same time, based on how loaded
+ * the pool and the database are.
+ *
+ * While batch work is running, the pool and the database are sampled periodically:
+ * - threads waiting for a connection in the Hikari pool (online requests included)
+ * - time to acquire a connection and round-trip a validation query, smoothed as an EWMA
+ * Under pressure the worker limit is halved (down to min-permits); otherwise it grows by one
+ * (up to max-permits). Workers take a permit around each chunk of database work, so batch jobs
+ * slow down before the API starts waiting for connections. min-permits and max-permits are
+ * {@link JobTunables}; a lowered max-permits applies from the next sample.
+ *
+ * Sampling runs on its own thread, so a probe waiting for a connection never holds up the shared
+ * scheduler. The probe is skipped while the pool has no idle connection and is abandoned after
+ * 10 x max-probe-ms; both count as pressure.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DbLoadGovernor implements SmartLifecycle {
+
+    private static final double EWMA_ALPHA = 0.3;
+    private static final Permit NO_PERMIT = () -> { };
+
+    private final DataSource dataSource;
+    private final JobTunables jobTunables;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+
+    @Value("${db-governor.enabled:false}")
+    private boolean enabled;
+
+    @Value("${db-governor.max-awaiting-threads:0}")
+    private int maxAwaitingThreads;
+
+    @Value("${db-governor.max-probe-ms:100}")
+    private long maxProbeMillis;
+
+    @Value("${db-governor.sample-interval-ms:1000}")
+    private long sampleIntervalMillis;
+
+    private int limit = -1;
+    private int inUse;
+    private int waiting;
+    private double probeMillisEwma = -1;
+    private HikariPoolMXBean poolMXBean;
+    private boolean poolLookupDone;
+    private Future<Long> pendingProbe;
+
+    private volatile ScheduledExecutorService sampler;
+    private volatile ExecutorService prober;
+
+    /**
+     * Blocks until the worker may use the database. The permit must be closed when the chunk is done,
+     * and a worker must not acquire a second permit while holding one.
+     */
+    public Permit acquire() {
+        if (!enabled) {
+            return NO_PERMIT;
+        }
+        lock.lock();
+        try {
+            if (limit < 0) {
+                limit = jobTunables.getInt(JobTunables.DB_GOVERNOR_MAX_PERMITS);
+            }
+            waiting++;
+            try {
+                while (inUse >= limit) {
+                    permitReleased.await();
+                }
+            } finally {
+                waiting--;
+            }
+            inUse++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a database permit", e);
+        } finally {
+            lock.unlock();
+        }
+        return this::release;
+    }
+
+    /**
+     * Current worker limit, for monitoring; -1 before the first permit.
+     */
+    public int currentLimit() {
+        lock.lock();
+        try {
+            return enabled ? limit : -1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void sample() {
+        if (!batchWorkActive()) {
+            return;
+        }
+
+        int awaiting = awaitingThreads();
+        long probeMillis = probe();
+        probeMillisEwma = probeMillisEwma < 0 ? probeMillis
+                : EWMA_ALPHA * probeMillis + (1 - EWMA_ALPHA) * probeMillisEwma;
+        boolean underPressure = awaiting > maxAwaitingThreads || probeMillisEwma > maxProbeMillis;
+        int minPermits = jobTunables.getInt(JobTunables.DB_GOVERNOR_MIN_PERMITS);
+        int maxPermits = Math.max(minPermits, jobTunables.getInt(JobTunables.DB_GOVERNOR_MAX_PERMITS));
+
+        lock.lock();
+        try {
+            int previous = limit;
+            limit = underPressure
+                    ? Math.clamp(limit / 2, minPermits, maxPermits)
+                    : Math.clamp(limit + 1L, minPermits, maxPermits);
+            if (limit != previous) {
+                if (underPressure) {
+                    log.info("DB load high (awaiting connection: {}, probe: {} ms), batch worker limit {} -> {}",
+                            awaiting, String.format("%.1f", probeMillisEwma), previous, limit);
+                } else {
+                    log.debug("DB load normal, batch worker limit {} -> {}", previous, limit);
+                }
+                permitReleased.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean batchWorkActive() {
+        lock.lock();
+        try {
+            return limit >= 0 && (inUse > 0 || waiting > 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            inUse--;
+            permitReleased.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int awaitingThreads() {
+        if (!poolLookupDone) {
+            poolLookupDone = true;
+            try {
+                poolMXBean = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+            } catch (SQLException | RuntimeException e) {
+                log.warn("Hikari pool statistics unavailable, governing on probe latency only: {}", e.getMessage());
+            }
+        }
+        return poolMXBean != null ? poolMXBean.getThreadsAwaitingConnection() : 0;
+    }
+
+    /**
+     * Time to take a connection from the pool and validate it, i.e. pool wait plus one round trip,
+     * waited for at most 10 x max-probe-ms. A probe still waiting from an earlier sample is waited for
+     * again rather than started twice.
+     */
+    private long probe() {
+        long slowProbeMillis = maxProbeMillis * 10;
+        if (poolMXBean != null && poolMXBean.getIdleConnections() == 0) {
+            // Exhausted: the probe would only join the threads waiting for a connection
+            return slowProbeMillis;
+        }
+        if (pendingProbe == null || pendingProbe.isDone()) {
+            pendingProbe = prober.submit(() -> timeConnection(slowProbeMillis));
+        }
+        try {
+            return pendingProbe.get(slowProbeMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return slowProbeMillis;
+        } catch (ExecutionException e) {
+            log.warn("DB load probe failed: {}", e.getCause().getMessage());
+            return slowProbeMillis;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return slowProbeMillis;
+        }
+    }
+
+    private long timeConnection(long slowProbeMillis) throws SQLException {
+        long startNanos = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.isValid((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(slowProbeMillis)));
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        prober = Executors.newVirtualThreadPerTaskExecutor();
+        sampler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("db-governor-sampler").factory());
+        sampler.scheduleWithFixedDelay(this::sampleSafely, sampleIntervalMillis, sampleIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService current = sampler;
+        sampler = null;
+        if (current != null) {
+            current.shutdownNow();
+            prober.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return sampler != null;
+    }
+
+    private void sampleSafely() {
+        try {
+            sample();
+        } catch (RuntimeException e) {
+            // An exception would cancel the periodic task
+            log.error("DB load sampling failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Permit to use the database for one chunk of work.
+     */
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
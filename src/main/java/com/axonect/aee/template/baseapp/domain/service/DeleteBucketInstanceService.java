@@ -1,51 +1,124 @@
 package com.axonect.aee.template.baseapp.domain.service;
 
 import com.axonect.aee.template.baseapp.application.repository.BucketInstanceRepository;
-import com.axonect.aee.template.baseapp.domain.entities.repo.BucketInstance;
 import com.axonect.aee.template.baseapp.domain.util.Constants;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class DeleteBucketInstanceService {
 
+    public static final String JOB_NAME = "DELETE_EXPIRED_BUCKETS";
+
     private final BucketInstanceRepository bucketInstanceRepository;
+    private final JobPartitionLeaseService jobPartitionLeaseService;
+    private final JobCheckpointService jobCheckpointService;
+    private final JobShutdownCoordinator jobShutdownCoordinator;
+    private final AdaptiveChunkSizing adaptiveChunkSizing;
+    private final DbLoadGovernor dbLoadGovernor;
+    private final JobExecutionRegistry jobExecutionRegistry;
+    private final JobTunables jobTunables;
 
-    @Value("${delete-expired-buckets.chunk-size}")
-    private int chunkSize;
+    @Value("${delete-expired-buckets.partitions:16}")
+    private int partitionCount;
 
     public void deleteExpiredBucketInstance(){
-        log.debug("Starting delete expired buckets");
+        deleteBucketsExpiredBefore(LocalDate.now(ZoneId.of(Constants.SL_TIME_ZONE)));
+    }
 
-        LocalDateTime today = LocalDate.now(ZoneId.of(Constants.SL_TIME_ZONE)).atStartOfDay();
-        int pageNumber = 0;
-        Page<BucketInstance> userPage;
+    /**
+     * Continues a lease-coordinated run started by this or another replica.
+     *
+     * @param runKey the run key (ISO date of the run) from JOB_PARTITION_LEASE
+     */
+    public void resumeLeasedRun(String runKey) {
+        deleteBucketsExpiredBefore(LocalDate.parse(runKey));
+    }
 
-        do {
-            Pageable pageable = PageRequest.of(pageNumber, chunkSize);
+    private void deleteBucketsExpiredBefore(LocalDate runDate) {
+        if (!jobShutdownCoordinator.enter()) {
+            log.warn("Shutdown in progress, delete expired buckets for {} not started", runDate);
+            return;
+        }
+        try {
+            runDeletion(runDate);
+        } finally {
+            jobShutdownCoordinator.exit();
+        }
+    }
 
-            userPage = bucketInstanceRepository.findExpiredBuckets(today, pageable);
-            List<BucketInstance> expiringTomorrowList = userPage.getContent();
+    private void runDeletion(LocalDate runDate) {
+        log.debug("Starting delete expired buckets");
+
+        String runKey = runDate.toString();
+        LocalDateTime today = runDate.atStartOfDay();
+        JobExecution execution = jobExecutionRegistry.current(JOB_NAME);
+        PartitionSource partitionSource = PartitionSource.checkpointed(
+                jobPartitionLeaseService.isEnabled()
+                        ? PartitionSource.leased(jobPartitionLeaseService, JOB_NAME, runKey, partitionCount)
+                        : PartitionSource.local(1),
+                jobCheckpointService, jobShutdownCoordinator, execution, JOB_NAME, runKey,
+                jobCheckpointService.resolveBatchId(JOB_NAME, runKey));
 
-            bucketInstanceRepository.deleteAll(expiringTomorrowList);
-            log.info("Deleted {}  expired buckets", expiringTomorrowList.size());
-            pageNumber ++;
+        AtomicLong totalDeleted = new AtomicLong();
+        execution.track(-1, totalDeleted::get, () -> 0L);
+        Integer partition;
+        while ((partition = partitionSource.next()) != null) {
+            deletePartition(today, partition, partitionSource, totalDeleted);
+            partitionSource.complete(partition);
+        }
 
-        } while (userPage.hasNext());
+        log.info("Finished deleting expired buckets. Deleted: {}", totalDeleted.get());
+    }
 
-        log.info("Finished deleting expired buckets");
+    /**
+     * Deletes the expired buckets of one partition with keyset reads.
+     * Each chunk is deleted with a single statement and committed on its own, then checkpointed;
+     * a partition with a checkpoint resumes after its last bucket ID.
+     */
+    private void deletePartition(LocalDateTime today, int partition, PartitionSource partitionSource,
+                                 AtomicLong totalDeleted) {
+        int partitions = partitionSource.partitionCount();
+        int deleted = 0;
+        String resumeKey = partitionSource.resumeAfter(partition);
+        long lastId = resumeKey != null ? Long.parseLong(resumeKey) : 0L;
+        List<Long> expiredIds;
+        int requested;
+
+        do {
+            AdaptiveChunkSizer chunkSizer = adaptiveChunkSizing.sizer(JOB_NAME,
+                    jobTunables.getInt(JobTunables.DELETE_BUCKETS_CHUNK_SIZE));
+            requested = chunkSizer.current();
+            long startNanos = System.nanoTime();
+            try (DbLoadGovernor.Permit permit = dbLoadGovernor.acquire()) {
+                expiredIds = bucketInstanceRepository.findExpiredBucketIdsAfterId(
+                        today, partition, partitions, lastId, PageRequest.of(0, requested));
+                if (expiredIds.isEmpty()) {
+                    break;
+                }
+                bucketInstanceRepository.deleteAllByIdInBatch(expiredIds);
+            } catch (RuntimeException ex) {
+                chunkSizer.recordFailure(requested, System.nanoTime() - startNanos);
+                throw ex;
+            }
+            lastId = expiredIds.get(expiredIds.size() - 1);
+            chunkSizer.record(expiredIds.size(), System.nanoTime() - startNanos, 0);
+            deleted += expiredIds.size();
+            totalDeleted.addAndGet(expiredIds.size());
+            log.info("Deleted {}  expired buckets (partition {})", expiredIds.size(), partition);
+            partitionSource.checkpoint(partition, String.valueOf(lastId), deleted, 0L);
 
+        } while (expiredIds.size() == requested && partitionSource.renew(partition));
     }
 }
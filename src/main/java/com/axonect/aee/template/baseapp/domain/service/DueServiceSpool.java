@@ -0,0 +1,267 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Memory-mapped snapshot of the services due on one day.
+ *
+ * The due set is written once, before processing starts, as fixed-size records:
+ * <pre>
+ *   header (32 bytes): magic, version, due date (epoch day), record count, complete flag
+ *   record (24 bytes): service ID, NEXT_CYCLE_START_DATE (epoch second), username hash, flags
+ * </pre>
+ * Workers then read records by index from the mapped file, so the work list is stable while
+ * processing moves rows out of the due set, and the total is known up front for progress and ETA.
+ * A complete spool for the same due date is reused after a restart; records already processed
+ * are recognised because their NEXT_CYCLE_START_DATE no longer matches the spooled value.
+ *
+ * A mapped buffer is indexed by int, so a spool holds at most {@value #MAX_RECORDS} records (about
+ * 89 million); appending beyond that fails instead of writing records that could not be read back.
+ */
+@Slf4j
+final class DueServiceSpool implements AutoCloseable {
+
+    static final int FLAG_GROUP = 1;
+
+    private static final int MAGIC = 0x53504F4C;  // "SPOL"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int RECORD_BYTES = 24;
+
+    static final int MAX_RECORDS = (Integer.MAX_VALUE - HEADER_BYTES) / RECORD_BYTES;
+
+    private static final int OFFSET_DUE_DATE = 8;
+    private static final int OFFSET_COUNT = 16;
+    private static final int OFFSET_COMPLETE = 20;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int size;
+
+    private DueServiceSpool(Path path, FileChannel channel, MappedByteBuffer buffer, int size) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.size = size;
+    }
+
+    /**
+     * Starts writing a new spool, replacing any existing file.
+     */
+    static Writer create(Path path, LocalDate dueDate) {
+        try {
+            Files.createDirectories(path.getParent());
+            return new Writer(path, dueDate);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create spool file " + path, e);
+        }
+    }
+
+    /**
+     * Opens a complete spool written for the given due date.
+     *
+     * @return the spool, or null if the file is missing, incomplete or for another due date
+     */
+    static DueServiceSpool openIfComplete(Path path, LocalDate dueDate) {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (channel.size() < HEADER_BYTES
+                    || buffer.getInt(0) != MAGIC
+                    || buffer.getInt(4) != VERSION
+                    || buffer.getLong(OFFSET_DUE_DATE) != dueDate.toEpochDay()
+                    || buffer.getInt(OFFSET_COMPLETE) != 1
+                    || channel.size() < HEADER_BYTES + (long) buffer.getInt(OFFSET_COUNT) * RECORD_BYTES) {
+                channel.close();
+                return null;
+            }
+            return new DueServiceSpool(path, channel, buffer, buffer.getInt(OFFSET_COUNT));
+        } catch (IOException e) {
+            log.warn("Cannot open spool file {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long serviceId(int index) {
+        return buffer.getLong(recordOffset(index));
+    }
+
+    LocalDateTime nextCycleStartDate(int index) {
+        return LocalDateTime.ofEpochSecond(buffer.getLong(recordOffset(index) + 8), 0, ZoneOffset.UTC);
+    }
+
+    int usernameHash(int index) {
+        return buffer.getInt(recordOffset(index) + 16);
+    }
+
+    int flags(int index) {
+        return buffer.getInt(recordOffset(index) + 20);
+    }
+
+    /**
+     * Deletes the spool file once the run it was written for has completed.
+     */
+    void delete() {
+        close();
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Cannot delete spool file {}: {}", path, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Cannot close spool file {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static int recordOffset(int index) {
+        return HEADER_BYTES + index * RECORD_BYTES;
+    }
+
+    /**
+     * Appends records to a new spool. The complete flag is written last, so a spool interrupted
+     * while being written is never reused.
+     */
+    static final class Writer implements AutoCloseable {
+
+        private static final int BUFFER_RECORDS = 4096;
+
+        private final Path path;
+        private final LocalDate dueDate;
+        private final FileChannel channel;
+        private final ByteBuffer pending = ByteBuffer.allocateDirect(BUFFER_RECORDS * RECORD_BYTES);
+        private int count;
+
+        private Writer(Path path, LocalDate dueDate) throws IOException {
+            this.path = path;
+            this.dueDate = dueDate;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING);
+            channel.write(header(0, false), 0);
+            channel.position(HEADER_BYTES);
+        }
+
+        void append(long serviceId, LocalDateTime nextCycleStartDate, String username, int flags) {
+            if (count == MAX_RECORDS) {
+                throw new IllegalStateException("Spool file " + path + " is full: a spool holds at most "
+                        + MAX_RECORDS + " records");
+            }
+            if (!pending.hasRemaining()) {
+                flush();
+            }
+            pending.putLong(serviceId);
+            pending.putLong(nextCycleStartDate.toEpochSecond(ZoneOffset.UTC));
+            pending.putInt(username != null ? username.hashCode() : 0);
+            pending.putInt(flags);
+            count++;
+        }
+
+        /**
+         * Marks the spool complete and opens it for reading.
+         */
+        DueServiceSpool finish() {
+            flush();
+            try {
+                channel.write(header(count, true), 0);
+                channel.force(true);
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot finish spool file " + path, e);
+            }
+            DueServiceSpool spool = openIfComplete(path, dueDate);
+            if (spool == null) {
+                throw new IllegalStateException("Spool file " + path + " could not be reopened");
+            }
+            return spool;
+        }
+
+        @Override
+        public void close() {
+            if (channel.isOpen()) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    log.warn("Cannot close spool file {}: {}", path, e.getMessage());
+                }
+            }
+        }
+
+        private void flush() {
+            pending.flip();
+            try {
+                while (pending.hasRemaining()) {
+                    channel.write(pending);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write spool file " + path, e);
+            }
+            pending.clear();
+        }
+
+        private ByteBuffer header(int recordCount, boolean complete) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            header.putLong(dueDate.toEpochDay());
+            header.putInt(recordCount);
+            header.putInt(complete ? 1 : 0);
+            // Write the padding too, so a spool without records is still a full header long
+            header.position(HEADER_BYTES);
+            header.flip();
+            return header;
+        }
+    }
+
+    /**
+     * Progress over a spool of known size, for exact percentage and ETA reporting.
+     */
+    static final class Progress {
+
+        private final long total;
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong done = new AtomicLong();
+
+        Progress(long total) {
+            this.total = total;
+        }
+
+        void advance(long records) {
+            done.addAndGet(records);
+        }
+
+        String describe() {
+            long completed = done.get();
+            double elapsedSeconds = Math.max(1e-3, (System.nanoTime() - startNanos) / 1_000_000_000.0);
+            double rate = completed / elapsedSeconds;
+            String eta = rate > 0 ? String.format("%.0f s", (total - completed) / rate) : "unknown";
+            return String.format("%d/%d (%.1f%%), %.1f services/s, ETA %s",
+                    completed, total, total > 0 ? completed * 100.0 / total : 100.0, rate, eta);
+        }
+    }
+}
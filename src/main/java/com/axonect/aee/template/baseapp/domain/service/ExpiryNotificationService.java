@@ -11,9 +11,7 @@ import com.axonect.aee.template.baseapp.domain.exception.NotificationProcessingE
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -41,18 +39,23 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class ExpiryNotificationService {
 
+    public static final String JOB_NAME = "EXPIRY_NOTIFICATIONS";
+
     private final ChildTemplateTableRepository childTemplateTableRepository;
     private final BucketInstanceRepository bucketInstanceRepository;
     private final ServiceInstanceRepository serviceInstanceRepository;
     private final KafkaTemplate<String, Object> kafkaTemplate;
     private final UserCacheService userCacheService;
+    private final JobCheckpointService jobCheckpointService;
+    private final JobShutdownCoordinator jobShutdownCoordinator;
+    private final AdaptiveChunkSizing adaptiveChunkSizing;
+    private final DbLoadGovernor dbLoadGovernor;
+    private final JobTunables jobTunables;
+    private final JobExecutionRegistry jobExecutionRegistry;
 
     @Value("${kafka.topic.bucket-expiry-notification:bucket-expiry-notifications}")
     private String bucketExpiryTopic;
 
-    @Value("${expiry-notification.batch-size:100}")
-    private Integer batchSize;
-
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
@@ -60,12 +63,41 @@ public class ExpiryNotificationService {
      * Process and send expiry notifications for all configured EXPIRE templates
      * Called by scheduled job to check daily
      *
+     * Progress is checkpointed per page as templateId:bucketId, so a re-run on the same day resumes
+     * after the last page sent instead of notifying users twice.
+     *
      * @return total number of notifications sent
      */
     @Transactional(readOnly = true)
     public int processExpiryNotifications() {
         log.info("Starting expiry notification processing...");
 
+        if (!jobShutdownCoordinator.enter()) {
+            log.warn("Shutdown in progress, expiry notification processing not started");
+            return 0;
+        }
+        try {
+            return processExpiryNotificationsForToday();
+        } finally {
+            jobShutdownCoordinator.exit();
+        }
+    }
+
+    private int processExpiryNotificationsForToday() {
+        String runKey = LocalDate.now().toString();
+        JobExecution execution = jobExecutionRegistry.current(JOB_NAME);
+        PartitionSource progress = PartitionSource.checkpointed(PartitionSource.local(1),
+                jobCheckpointService, jobShutdownCoordinator, execution, JOB_NAME, runKey,
+                jobCheckpointService.resolveBatchId(JOB_NAME, runKey));
+
+        Integer partition = progress.next();
+        if (partition == null) {
+            log.info("Expiry notifications for {} already completed or shutdown in progress. Skipping.", runKey);
+            return 0;
+        }
+
+        NotificationRun run = new NotificationRun(progress, partition);
+        execution.track(-1, () -> run.sent + run.failed, () -> run.failed);
         int totalNotificationsSent = 0;
 
         try {
@@ -79,17 +111,25 @@ public class ExpiryNotificationService {
 
             log.info("Found {} EXPIRE templates to process", expireTemplates.size());
 
+            // Templates before the checkpointed one were completed by an earlier attempt
+            int firstTemplate = run.firstTemplateIndex(expireTemplates);
+
             // Process each template configuration
-            for (ChildTemplateTable template : expireTemplates) {
+            for (int i = firstTemplate; i < expireTemplates.size() && !run.stopped; i++) {
+                ChildTemplateTable template = expireTemplates.get(i);
                 if (template.getDaysToExpire() == null) {
                     log.warn("Template {} has null DAYS_TO_EXPIRE, skipping", template.getId());
                     continue;
                 }
 
-                int sentCount = processTemplateNotifications(template);
+                long startAfterId = template.getId().equals(run.resumeTemplateId) ? run.resumeBucketId : 0L;
+                int sentCount = processTemplateNotifications(template, startAfterId, run);
                 totalNotificationsSent += sentCount;
             }
 
+            // Records COMPLETED, or STOPPED when shutdown interrupted the run
+            progress.complete(partition);
+
             log.info("Expiry notification processing completed. Total notifications sent: {}", totalNotificationsSent);
 
         } catch (Exception e) {
@@ -104,9 +144,11 @@ public class ExpiryNotificationService {
      * Process notifications for a specific template configuration
      *
      * @param template the child template with DAYS_TO_EXPIRE configuration
+     * @param startAfterId bucket instance ID to resume after, 0 to start from the beginning
+     * @param run progress of the current run, checkpointed after each page
      * @return number of notifications sent for this template
      */
-    private int processTemplateNotifications(ChildTemplateTable template) {
+    private int processTemplateNotifications(ChildTemplateTable template, long startAfterId, NotificationRun run) {
         int daysToExpire = template.getDaysToExpire();
         log.info("Processing template ID: {} with DAYS_TO_EXPIRE: {}", template.getId(), daysToExpire);
 
@@ -121,14 +163,20 @@ public class ExpiryNotificationService {
 
         int notificationsSent = 0;
         int page = 0;
+        long lastId = startAfterId;
         boolean hasMore = true;
 
-        // Process in batches to handle large datasets
+        // Process in batches to handle large datasets; keyset paging so a run can resume after lastId
         while (hasMore) {
-            Pageable pageable = PageRequest.of(page, batchSize);
-            Page<BucketInstance> bucketPage = findBucketsExpiringBetween(targetExpiryStart, targetExpiryEnd, pageable);
-
-            List<BucketInstance> buckets = bucketPage.getContent();
+            AdaptiveChunkSizer chunkSizer = adaptiveChunkSizing.sizer(JOB_NAME,
+                    jobTunables.getInt(JobTunables.EXPIRY_NOTIFICATION_BATCH_SIZE));
+            int requested = chunkSizer.current();
+            long startNanos = System.nanoTime();
+            long failuresBefore = run.failed;
+            List<BucketInstance> buckets;
+            try (DbLoadGovernor.Permit permit = dbLoadGovernor.acquire()) {
+                buckets = findBucketsExpiringBetween(targetExpiryStart, targetExpiryEnd, lastId, requested);
+            }
 
             if (buckets.isEmpty()) {
                 hasMore = false;
@@ -141,13 +189,24 @@ public class ExpiryNotificationService {
                 try {
                     sendNotificationForBucket(bucket, template, daysToExpire, targetExpiryDate);
                     notificationsSent++;
+                    run.sent++;
                 } catch (Exception e) {
                     log.error("Failed to send notification for bucket instance ID: {}", bucket.getId(), e);
+                    run.failed++;
                     // Continue processing other buckets even if one fails
                 }
             }
 
-            hasMore = bucketPage.hasNext();
+            chunkSizer.record(buckets.size(), System.nanoTime() - startNanos, (int) (run.failed - failuresBefore));
+            lastId = buckets.get(buckets.size() - 1).getId();
+            run.checkpoint(template.getId(), lastId);
+
+            hasMore = buckets.size() == requested;
+            if (hasMore && !run.progress.renew(run.partition)) {
+                log.info("Stopping expiry notifications at template {} after bucket ID {}", template.getId(), lastId);
+                run.stopped = true;
+                hasMore = false;
+            }
             page++;
         }
 
@@ -160,15 +219,18 @@ public class ExpiryNotificationService {
      *
      * @param startDateTime start of expiry date range
      * @param endDateTime end of expiry date range
-     * @param pageable pagination information
-     * @return page of bucket instances
+     * @param lastId last bucket instance ID already processed
+     * @param limit maximum number of bucket instances to return
+     * @return next batch of bucket instances in ID order
      */
-    private Page<BucketInstance> findBucketsExpiringBetween(
+    private List<BucketInstance> findBucketsExpiringBetween(
             LocalDateTime startDateTime,
             LocalDateTime endDateTime,
-            Pageable pageable) {
+            long lastId,
+            int limit) {
 
-        return bucketInstanceRepository.findBucketsExpiringBetween(startDateTime, endDateTime, pageable);
+        return bucketInstanceRepository.findBucketsExpiringBetweenAfterId(
+                startDateTime, endDateTime, lastId, PageRequest.of(0, limit));
     }
 
     /**
@@ -277,4 +339,51 @@ public class ExpiryNotificationService {
                 .replace("{DATE_OF_EXPIRY}", expiryDateStr)
                 .replace("{DAYS_TO_EXPIRE}", String.valueOf(daysToExpire));
     }
+
+    /**
+     * Progress of one expiry notification run; the checkpoint key is templateId:bucketId.
+     */
+    private static final class NotificationRun {
+        final PartitionSource progress;
+        final int partition;
+        final Long resumeTemplateId;
+        final long resumeBucketId;
+        volatile long sent;
+        volatile long failed;
+        boolean stopped;
+
+        NotificationRun(PartitionSource progress, int partition) {
+            this.progress = progress;
+            this.partition = partition;
+            String resumeKey = progress.resumeAfter(partition);
+            if (resumeKey != null && resumeKey.contains(":")) {
+                this.resumeTemplateId = Long.valueOf(resumeKey.substring(0, resumeKey.indexOf(':')));
+                this.resumeBucketId = Long.parseLong(resumeKey.substring(resumeKey.indexOf(':') + 1));
+            } else {
+                this.resumeTemplateId = null;
+                this.resumeBucketId = 0L;
+            }
+        }
+
+        /**
+         * Index of the template to resume; 0 when there is no checkpoint or its template no longer exists.
+         */
+        int firstTemplateIndex(List<ChildTemplateTable> templates) {
+            if (resumeTemplateId == null) {
+                return 0;
+            }
+            for (int i = 0; i < templates.size(); i++) {
+                if (resumeTemplateId.equals(templates.get(i).getId())) {
+                    log.info("Resuming expiry notifications at template {} after bucket ID {}",
+                            resumeTemplateId, resumeBucketId);
+                    return i;
+                }
+            }
+            return 0;
+        }
+
+        void checkpoint(Long templateId, long lastBucketId) {
+            progress.checkpoint(partition, templateId + ":" + lastBucketId, sent + failed, failed);
+        }
+    }
 }
@@ -0,0 +1,48 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+/**
+ * Writes the queued failure records of a run before another partition source records its progress,
+ * so a checkpoint or completion never persists ahead of the failures of the services it covers.
+ */
+final class FailureFlushingPartitionSource implements PartitionSource {
+
+    private final PartitionSource delegate;
+    private final ServiceFailureSink failureSink;
+
+    FailureFlushingPartitionSource(PartitionSource delegate, ServiceFailureSink failureSink) {
+        this.delegate = delegate;
+        this.failureSink = failureSink;
+    }
+
+    @Override
+    public int partitionCount() {
+        return delegate.partitionCount();
+    }
+
+    @Override
+    public Integer next() {
+        return delegate.next();
+    }
+
+    @Override
+    public boolean renew(int partition) {
+        return delegate.renew(partition);
+    }
+
+    @Override
+    public void complete(int partition) {
+        failureSink.flush();
+        delegate.complete(partition);
+    }
+
+    @Override
+    public String resumeAfter(int partition) {
+        return delegate.resumeAfter(partition);
+    }
+
+    @Override
+    public void checkpoint(int partition, String lastKey, long processedCount, long failedCount) {
+        failureSink.flush();
+        delegate.checkpoint(partition, lastKey, processedCount, failedCount);
+    }
+}
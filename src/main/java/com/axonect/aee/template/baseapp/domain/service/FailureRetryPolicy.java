@@ -0,0 +1,59 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import com.axonect.aee.template.baseapp.domain.entities.repo.ServiceInstance;
+import com.axonect.aee.template.baseapp.domain.entities.repo.ServiceProcessingFailure;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * When a row of SERVICE_PROCESSING_FAILURE may be retried, and whether its service still needs renewing.
+ * All timestamps are wall-clock times in the SL time zone ({@code Constants.SL_TIME_ZONE}), as written by
+ * {@link ServiceFailureSink} and the retry.
+ */
+final class FailureRetryPolicy {
+
+    private final long baseBackoffMinutes;
+    private final long maxBackoffMinutes;
+
+    FailureRetryPolicy(long baseBackoffMinutes, long maxBackoffMinutes) {
+        this.baseBackoffMinutes = baseBackoffMinutes;
+        this.maxBackoffMinutes = maxBackoffMinutes;
+    }
+
+    /**
+     * Earliest time the row may be retried: base backoff after the failure, doubled for every failed retry
+     * and counted from the last retry, up to the maximum backoff.
+     */
+    LocalDateTime nextRetryAt(ServiceProcessingFailure failure) {
+        int retries = failure.getRetryCount() != null ? failure.getRetryCount() : 0;
+        long backoffMinutes = Math.min(maxBackoffMinutes, baseBackoffMinutes << Math.min(retries, 30));
+        LocalDateTime lastAttempt = failure.getLastRetryDate() != null
+                ? failure.getLastRetryDate()
+                : failure.getFailureDate();
+        return lastAttempt != null ? lastAttempt.plusMinutes(backoffMinutes) : LocalDateTime.MIN;
+    }
+
+    /**
+     * Whether the service is still due as it was when its rows were recorded. A run on day D renews the
+     * services due on D + 1, so a failure recorded on D was for a cycle starting before D + 2.
+     *
+     * @param now Taken as the failure time of rows without one
+     */
+    boolean isStillDue(ServiceInstance service, List<ServiceProcessingFailure> rows, LocalDateTime now) {
+        if (service == null || !Boolean.TRUE.equals(service.getRecurringFlag())
+                || service.getNextCycleStartDate() == null) {
+            return false;
+        }
+        LocalDateTime lastFailure = rows.stream()
+                .map(ServiceProcessingFailure::getFailureDate)
+                .max(Comparator.naturalOrder())
+                .orElse(now);
+        LocalDateTime dueBefore = lastFailure.toLocalDate().plusDays(2).atStartOfDay();
+        LocalDateTime dueDay = service.getNextCycleStartDate().toLocalDate().atStartOfDay();
+        // Same expiry criterion as the nightly run
+        return service.getNextCycleStartDate().isBefore(dueBefore)
+                && (service.getExpiryDate() == null || service.getExpiryDate().isAfter(dueDay));
+    }
+}
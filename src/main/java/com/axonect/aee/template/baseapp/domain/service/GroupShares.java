@@ -0,0 +1,75 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import com.axonect.aee.template.baseapp.domain.entities.repo.ServiceInstance;
+import com.axonect.aee.template.baseapp.domain.entities.repo.UserEntity;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared group plans of a run. Group services (SERVICE_INSTANCE.IS_GROUP) of members of the same group,
+ * on the same plan and starting the same cycle share one set of buckets: the first of them provisioned
+ * in the run is the lead and gets the buckets, the others only move to the new cycle. A lead that fails
+ * for good gives up its claim, so the next service of the group provisioned in the run gets the buckets;
+ * members moved on before that rely on the retry of the failed lead. Safe for concurrent partition workers.
+ * The election only covers this run on this replica: the chunk transaction of a lead checks, with the group's
+ * services locked, that no other replica or earlier attempt of the run already provisioned the shared buckets.
+ */
+final class GroupShares {
+
+    private static final String NO_GROUP = "1";
+
+    private final Map<String, Long> leads = new ConcurrentHashMap<>();
+    private final Map<Long, String> claims = new ConcurrentHashMap<>();
+    private final Set<Long> members = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The group whose cache entry holds the buckets of the service, or null if the service is provisioned
+     * for its user alone. Uses the same notion of group membership as the group cache key.
+     */
+    static String sharedGroupId(ServiceInstance serviceInstance, UserEntity user) {
+        String groupId = user.getGroupId();
+        if (!Boolean.TRUE.equals(serviceInstance.getIsGroup()) || groupId == null || groupId.isBlank()
+                || NO_GROUP.equalsIgnoreCase(groupId)) {
+            return null;
+        }
+        return groupId;
+    }
+
+    /**
+     * Claims the shared buckets of the group plan for the service unless another service of the group
+     * already has. A service keeps its claim when it is provisioned again, e.g. after a rolled back chunk.
+     *
+     * @return true if the service is a member whose buckets are provisioned by the lead
+     */
+    boolean isMember(String groupId, ServiceInstance serviceInstance) {
+        String key = groupId + '|' + serviceInstance.getPlanId() + '|' + serviceInstance.getNextCycleStartDate();
+        Long lead = leads.putIfAbsent(key, serviceInstance.getId());
+        if (lead == null || lead.equals(serviceInstance.getId())) {
+            claims.put(serviceInstance.getId(), key);
+            return false;
+        }
+        members.add(serviceInstance.getId());
+        return true;
+    }
+
+    /**
+     * Gives up the claim of a lead that failed for good, so another service of the group can take it.
+     * Does nothing for a service that holds no claim.
+     */
+    void release(long serviceId) {
+        String key = claims.remove(serviceId);
+        if (key != null) {
+            leads.remove(key, serviceId);
+        }
+    }
+
+    int groups() {
+        return leads.size();
+    }
+
+    int members() {
+        return members.size();
+    }
+}
@@ -0,0 +1,136 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel (Varghese and Lauck).
+ *
+ * Level 0 has {@code wheelSize} slots of one tick each, every higher level has {@code wheelSize} slots
+ * covering a whole rotation of the level below. Items are added to the coarsest level that still
+ * matches the current rotation and cascade down as time reaches their slot, so adding and firing
+ * are O(1) per item regardless of how many items are waiting.
+ * The wheel covers {@code wheelSize ^ levels} ticks ahead of the current time; later items are refused
+ * and have to be added again once they are within range.
+ *
+ * @param <T> item type
+ */
+final class HierarchicalTimingWheel<T> {
+
+    private final long originMillis;
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long[] ticksPerSlot;
+    private final List<List<Entry<T>>> slots;
+    private final long capacityTicks;
+
+    private long currentTick;
+    private int size;
+
+    HierarchicalTimingWheel(long originMillis, long tickMillis, int wheelSize, int levels) {
+        if (tickMillis <= 0 || wheelSize < 2 || levels < 1) {
+            throw new IllegalArgumentException("Invalid timing wheel dimensions");
+        }
+        this.originMillis = originMillis;
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.ticksPerSlot = new long[levels + 1];
+        this.ticksPerSlot[0] = 1;
+        for (int level = 1; level <= levels; level++) {
+            this.ticksPerSlot[level] = Math.multiplyExact(ticksPerSlot[level - 1], wheelSize);
+        }
+        this.capacityTicks = ticksPerSlot[levels];
+        this.slots = new ArrayList<>(levels * wheelSize);
+        for (int i = 0; i < levels * wheelSize; i++) {
+            slots.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Schedules an item. Items already due fire on the next tick {@link #advance} reaches.
+     *
+     * @return false if the due time is beyond the range of the wheel
+     */
+    synchronized boolean add(T item, long dueMillis) {
+        long dueTick = Math.max(currentTick, Math.floorDiv(dueMillis - originMillis, tickMillis));
+        if (dueTick - currentTick >= capacityTicks) {
+            return false;
+        }
+        place(new Entry<>(item, dueTick));
+        size++;
+        return true;
+    }
+
+    /**
+     * Moves the wheel forward to the given time, handing every item that became due to the sink.
+     */
+    synchronized void advance(long nowMillis, Consumer<T> sink) {
+        long targetTick = Math.floorDiv(nowMillis - originMillis, tickMillis);
+        while (currentTick <= targetTick) {
+            cascade();
+            List<Entry<T>> due = slot(0, currentTick);
+            if (!due.isEmpty()) {
+                List<Entry<T>> fired = new ArrayList<>(due);
+                due.clear();
+                size -= fired.size();
+                fired.forEach(entry -> sink.accept(entry.item()));
+            }
+            currentTick++;
+        }
+    }
+
+    /**
+     * Latest time up to which items can currently be added.
+     */
+    synchronized long horizonMillis() {
+        return originMillis + (currentTick + capacityTicks) * tickMillis;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized void clear() {
+        slots.forEach(List::clear);
+        size = 0;
+    }
+
+    /**
+     * At the start of a slot on a higher level, re-distributes its items to the levels below.
+     * Higher levels go first so that their items can land in the lower slot being cascaded next.
+     */
+    private void cascade() {
+        for (int level = ticksPerSlot.length - 2; level >= 1; level--) {
+            if (currentTick % ticksPerSlot[level] != 0) {
+                continue;
+            }
+            List<Entry<T>> slot = slot(level, currentTick);
+            if (!slot.isEmpty()) {
+                List<Entry<T>> entries = new ArrayList<>(slot);
+                slot.clear();
+                entries.forEach(this::place);
+            }
+        }
+    }
+
+    private void place(Entry<T> entry) {
+        int level = 0;
+        int topLevel = ticksPerSlot.length - 2;
+        // Lowest level whose current rotation contains the due tick. The top level takes the rest:
+        // an item one full rotation ahead shares the current top slot and is cascaded when it comes round again
+        while (level < topLevel
+                && entry.dueTick() / ticksPerSlot[level + 1] != currentTick / ticksPerSlot[level + 1]) {
+            level++;
+        }
+        slot(level, entry.dueTick()).add(entry);
+    }
+
+    private List<Entry<T>> slot(int level, long tick) {
+        int index = (int) ((tick / ticksPerSlot[level]) % wheelSize);
+        return slots.get(level * wheelSize + index);
+    }
+
+    private record Entry<T>(T item, long dueTick) {
+    }
+}
@@ -0,0 +1,144 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import com.axonect.aee.template.baseapp.application.repository.JobCheckpointRepository;
+import com.axonect.aee.template.baseapp.domain.entities.repo.JobCheckpoint;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Persists the progress of nightly job runs in JOB_CHECKPOINT so that a restarted or re-triggered run
+ * for the same business date continues where the previous one stopped instead of starting over.
+ *
+ * Checkpoints are written per partition after each committed chunk and hold the last processed key,
+ * the batch ID of the run and the running counters. Checkpoints are best effort: a failed write is
+ * logged and never fails the job itself.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class JobCheckpointService {
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_STOPPED = "STOPPED";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+
+    private final JobCheckpointRepository jobCheckpointRepository;
+
+    @Value("${job-checkpoint.enabled:false}")
+    private boolean enabled;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Finds the checkpoint of a partition.
+     *
+     * @return the checkpoint, or null if there is none or it was written for a different partition count
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public JobCheckpoint find(String jobName, String runKey, int partition, int partitionCount) {
+        if (!enabled) {
+            return null;
+        }
+        return jobCheckpointRepository.findByJobNameAndRunKeyAndPartitionNo(jobName, runKey, partition)
+                .filter(checkpoint -> checkpoint.getPartitionCount() == partitionCount)
+                .orElse(null);
+    }
+
+    /**
+     * Returns the batch ID of an earlier attempt of the run so that a resumed run reports under the same ID,
+     * or a new batch ID if the run has no checkpoint yet.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public String resolveBatchId(String jobName, String runKey) {
+        if (enabled) {
+            String batchId = jobCheckpointRepository.findFirstByJobNameAndRunKeyOrderByUpdatedAtDesc(jobName, runKey)
+                    .map(JobCheckpoint::getBatchId)
+                    .orElse(null);
+            if (batchId != null) {
+                log.info("Resuming {} run {} with batch ID: {}", jobName, runKey, batchId);
+                return batchId;
+            }
+        }
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * Records a committed chunk of a partition.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @SuppressWarnings("java:S107")
+    public void record(String jobName, String runKey, int partition, int partitionCount, String batchId,
+                       String lastKey, long processedCount, long failedCount) {
+        save(jobName, runKey, partition, partitionCount, batchId, checkpoint -> {
+            checkpoint.setLastKey(lastKey);
+            checkpoint.setProcessedCount(processedCount);
+            checkpoint.setFailedCount(failedCount);
+            checkpoint.setStatus(STATUS_RUNNING);
+        });
+    }
+
+    /**
+     * Marks a partition as stopped by shutdown; the next run resumes after its last key.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void stop(String jobName, String runKey, int partition, int partitionCount, String batchId) {
+        save(jobName, runKey, partition, partitionCount, batchId, checkpoint -> checkpoint.setStatus(STATUS_STOPPED));
+        log.info("Checkpoint of {} run {} partition {} stopped", jobName, runKey, partition);
+    }
+
+    /**
+     * Marks a partition as fully processed; later runs for the same business date skip it.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void complete(String jobName, String runKey, int partition, int partitionCount, String batchId) {
+        save(jobName, runKey, partition, partitionCount, batchId, checkpoint -> checkpoint.setStatus(STATUS_COMPLETED));
+    }
+
+    private void save(String jobName, String runKey, int partition, int partitionCount, String batchId,
+                      Consumer<JobCheckpoint> update) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            JobCheckpoint checkpoint = jobCheckpointRepository
+                    .findByJobNameAndRunKeyAndPartitionNo(jobName, runKey, partition)
+                    .map(existing -> existing.getPartitionCount() == partitionCount
+                            ? existing
+                            : resetCheckpoint(existing, partitionCount))
+                    .orElseGet(() -> JobCheckpoint.builder()
+                            .jobName(jobName)
+                            .runKey(runKey)
+                            .partitionNo(partition)
+                            .partitionCount(partitionCount)
+                            .processedCount(0L)
+                            .failedCount(0L)
+                            .status(STATUS_RUNNING)
+                            .build());
+            checkpoint.setBatchId(batchId);
+            update.accept(checkpoint);
+            jobCheckpointRepository.save(checkpoint);
+        } catch (Exception ex) {
+            // Log but don't throw - a missing checkpoint only costs a rescan
+            log.error("Failed to save checkpoint of {} run {} partition {}. Error: {}",
+                    jobName, runKey, partition, ex.getMessage(), ex);
+        }
+    }
+
+    private static JobCheckpoint resetCheckpoint(JobCheckpoint stale, int partitionCount) {
+        // Written by a run with a different partition count: its last key does not apply to this partition
+        stale.setPartitionCount(partitionCount);
+        stale.setLastKey(null);
+        stale.setProcessedCount(0L);
+        stale.setFailedCount(0L);
+        return stale;
+    }
+}
@@ -0,0 +1,151 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import com.axonect.aee.template.baseapp.domain.entities.dto.JobExecutionStatus;
+import com.axonect.aee.template.baseapp.domain.util.Constants;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.LongSupplier;
+
+/**
+ * One execution of a batch job submitted through {@link JobExecutionRegistry}.
+ *
+ * The job reports progress by handing its own counters to {@link #track}, and checks
+ * {@link #isCancelRequested()} at its chunk boundaries to stop cooperatively. A job started
+ * outside the registry (lease sweeper, renewal wheel) gets an untracked execution that is never
+ * cancelled and reports nowhere.
+ */
+public final class JobExecution {
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_CANCELLED = "CANCELLED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private static final LongSupplier NONE = () -> 0L;
+
+    private final String id;
+    private final String jobName;
+    private final LocalDateTime startedAt = now();
+    private final long startNanos = System.nanoTime();
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    private volatile String status = STATUS_RUNNING;
+    private volatile boolean cancelRequested;
+    private volatile LocalDateTime finishedAt;
+    private volatile long finishedNanos;
+    private volatile String error;
+    private volatile long total = -1;
+    private volatile LongSupplier processed = NONE;
+    private volatile LongSupplier failed = NONE;
+
+    JobExecution(String id, String jobName) {
+        this.id = id;
+        this.jobName = jobName;
+    }
+
+    static JobExecution untracked(String jobName) {
+        return new JobExecution(null, jobName);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public boolean isTracked() {
+        return id != null;
+    }
+
+    /**
+     * Registers the job's progress counters.
+     *
+     * @param totalCount items the execution is expected to process, or -1 if unknown
+     * @param processedCount items processed so far, failures included
+     * @param failedCount items failed so far
+     */
+    public void track(long totalCount, LongSupplier processedCount, LongSupplier failedCount) {
+        this.total = totalCount;
+        this.processed = processedCount;
+        this.failed = failedCount;
+    }
+
+    /**
+     * Whether the job should stop at its next chunk boundary.
+     */
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public boolean isFinished() {
+        return finished.getCount() == 0;
+    }
+
+    void requestCancel() {
+        cancelRequested = true;
+    }
+
+    void finish(String finalStatus, String errorMessage) {
+        finishedNanos = System.nanoTime();
+        finishedAt = now();
+        error = errorMessage;
+        status = finalStatus;
+        finished.countDown();
+    }
+
+    /**
+     * Blocks until the execution has finished.
+     */
+    public void await() {
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public JobExecutionStatus status() {
+        long processedCount = processed.getAsLong();
+        long failedCount = failed.getAsLong();
+        long endNanos = isFinished() ? finishedNanos : System.nanoTime();
+        double elapsedSeconds = Math.max(1e-3, (endNanos - startNanos) / 1_000_000_000.0);
+        double throughput = processedCount / elapsedSeconds;
+        long totalCount = total;
+
+        Long etaSeconds = null;
+        if (!isFinished() && totalCount >= 0 && throughput > 0) {
+            etaSeconds = (long) (Math.max(0, totalCount - processedCount) / throughput);
+        }
+
+        return JobExecutionStatus.builder()
+                .executionId(id)
+                .jobName(jobName)
+                .status(status)
+                .cancelRequested(cancelRequested)
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .processed(processedCount)
+                .failed(failedCount)
+                .total(totalCount >= 0 ? totalCount : null)
+                .throughputPerSecond(Math.round(throughput * 10) / 10.0)
+                .etaSeconds(etaSeconds)
+                .error(error)
+                .build();
+    }
+
+    private static LocalDateTime now() {
+        return LocalDateTime.now(ZoneId.of(Constants.SL_TIME_ZONE));
+    }
+}
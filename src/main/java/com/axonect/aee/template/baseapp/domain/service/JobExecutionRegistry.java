@@ -0,0 +1,128 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import com.axonect.aee.template.baseapp.domain.entities.dto.JobExecutionStatus;
+import com.axonect.aee.template.baseapp.domain.exception.AAAException;
+import com.axonect.aee.template.baseapp.domain.util.Constants;
+import com.axonect.aee.template.baseapp.domain.util.LogMessages;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs batch jobs in the background and keeps their executions for status queries.
+ *
+ * A job runs at most once at a time per replica: submitting a job that is already running returns
+ * the running execution instead of starting a duplicate, whether it was triggered by the API or
+ * by its schedule. Finished executions are kept for job-executions.retention-hours.
+ */
+@Component
+@Slf4j
+public class JobExecutionRegistry {
+
+    private final Map<String, JobExecution> executions = new ConcurrentHashMap<>();
+    private final Map<String, JobExecution> runningByJob = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("job-execution-", 0).factory());
+
+    @Value("${job-executions.retention-hours:24}")
+    private long retentionHours;
+
+    /**
+     * Starts the job in the background, or joins its running execution.
+     */
+    public JobExecution submit(String jobName, Runnable job) {
+        purgeFinished();
+
+        JobExecution[] started = new JobExecution[1];
+        JobExecution execution = runningByJob.computeIfAbsent(jobName, name -> {
+            started[0] = new JobExecution(UUID.randomUUID().toString(), name);
+            return started[0];
+        });
+        if (started[0] == null) {
+            log.info("{} is already running as execution {}, not starting another", jobName, execution.getId());
+            return execution;
+        }
+
+        executions.put(execution.getId(), execution);
+        log.info("{} started as execution {}", jobName, execution.getId());
+        executor.submit(() -> run(execution, job));
+        return execution;
+    }
+
+    /**
+     * The running execution of a job, for the job to report progress and check for cancellation;
+     * an untracked execution when the job was not started through the registry.
+     */
+    public JobExecution current(String jobName) {
+        JobExecution execution = runningByJob.get(jobName);
+        return execution != null ? execution : JobExecution.untracked(jobName);
+    }
+
+    public JobExecution get(String executionId) {
+        JobExecution execution = executions.get(executionId);
+        if (execution == null) {
+            throw new AAAException(LogMessages.ERROR_NOT_FOUND, "Unknown job execution: " + executionId,
+                    HttpStatus.NOT_FOUND);
+        }
+        return execution;
+    }
+
+    /**
+     * Executions still held, most recent first.
+     */
+    public List<JobExecution> list() {
+        return executions.values().stream()
+                .sorted(Comparator.comparing(JobExecution::getStartedAt).reversed())
+                .toList();
+    }
+
+    /**
+     * Asks a running execution to stop at its next chunk boundary. Progress up to there is
+     * checkpointed, so the job resumes from it when triggered again.
+     */
+    public JobExecution cancel(String executionId) {
+        JobExecution execution = get(executionId);
+        if (!execution.isFinished()) {
+            log.info("Cancellation of {} execution {} requested", execution.getJobName(), executionId);
+            execution.requestCancel();
+        }
+        return execution;
+    }
+
+    private void run(JobExecution execution, Runnable job) {
+        String status;
+        String error = null;
+        try {
+            job.run();
+            status = execution.isCancelRequested() ? JobExecution.STATUS_CANCELLED : JobExecution.STATUS_COMPLETED;
+        } catch (Exception e) {
+            log.error("{} execution {} failed", execution.getJobName(), execution.getId(), e);
+            status = JobExecution.STATUS_FAILED;
+            error = e.getMessage();
+        }
+        // Released before finishing, so a trigger that sees the execution finished can start a new one
+        runningByJob.remove(execution.getJobName(), execution);
+        execution.finish(status, error);
+
+        JobExecutionStatus finalStatus = execution.status();
+        log.info("{} execution {} {}: {} processed, {} failed", execution.getJobName(), execution.getId(),
+                finalStatus.getStatus(), finalStatus.getProcessed(), finalStatus.getFailed());
+    }
+
+    private void purgeFinished() {
+        LocalDateTime cutoff = LocalDateTime.now(ZoneId.of(Constants.SL_TIME_ZONE)).minusHours(retentionHours);
+        executions.values().removeIf(execution -> execution.isFinished()
+                && execution.getFinishedAt().isBefore(cutoff));
+    }
+}
@@ -0,0 +1,241 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import com.axonect.aee.template.baseapp.domain.util.Constants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Coordinates partitioned batch jobs across replicas through the JOB_PARTITION_LEASE table.
+ *
+ * Each job run (job name + run key, e.g. the business date) is split into a fixed number of partitions.
+ * Replicas claim one partition at a time with a conditional UPDATE, so a partition has at most one owner.
+ * Ownership is a time-bound lease that the owner renews at chunk boundaries:
+ * - A replica that dies stops renewing, its lease expires and another replica takes the partition over
+ * - A replica that joins mid-run simply claims the partitions that are still pending
+ * Because partitions are claimed one by one, adding replicas shortens the run instead of duplicating it.
+ *
+ * All lease operations run in their own transaction so claims are visible to other replicas immediately.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class JobPartitionLeaseService {
+
+    private static final String STATUS_PENDING = "PENDING";
+    private static final String STATUS_CLAIMED = "CLAIMED";
+    private static final String STATUS_DONE = "DONE";
+
+    private static final String COUNT_PARTITIONS_SQL =
+            "SELECT COUNT(*) FROM JOB_PARTITION_LEASE WHERE JOB_NAME = ? AND RUN_KEY = ?";
+
+    private static final String FIND_PARTITION_COUNT_SQL =
+            "SELECT MAX(PARTITION_COUNT) FROM JOB_PARTITION_LEASE WHERE JOB_NAME = ? AND RUN_KEY = ?";
+
+    private static final String INSERT_PARTITION_SQL =
+            "INSERT INTO JOB_PARTITION_LEASE (JOB_NAME, RUN_KEY, PARTITION_NO, PARTITION_COUNT, STATUS, " +
+            "CREATED_AT, UPDATED_AT) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String FIND_CLAIMABLE_SQL =
+            "SELECT PARTITION_NO FROM JOB_PARTITION_LEASE WHERE JOB_NAME = ? AND RUN_KEY = ? " +
+            "AND (STATUS = ? OR (STATUS = ? AND LEASE_EXPIRES_AT < ?)) ORDER BY PARTITION_NO";
+
+    private static final String CLAIM_SQL =
+            "UPDATE JOB_PARTITION_LEASE SET STATUS = ?, OWNER_ID = ?, LEASE_EXPIRES_AT = ?, UPDATED_AT = ? " +
+            "WHERE JOB_NAME = ? AND RUN_KEY = ? AND PARTITION_NO = ? " +
+            "AND (STATUS = ? OR (STATUS = ? AND LEASE_EXPIRES_AT < ?))";
+
+    private static final String RENEW_SQL =
+            "UPDATE JOB_PARTITION_LEASE SET LEASE_EXPIRES_AT = ?, UPDATED_AT = ? " +
+            "WHERE JOB_NAME = ? AND RUN_KEY = ? AND PARTITION_NO = ? AND STATUS = ? AND OWNER_ID = ?";
+
+    private static final String COMPLETE_SQL =
+            "UPDATE JOB_PARTITION_LEASE SET STATUS = ?, LEASE_EXPIRES_AT = NULL, UPDATED_AT = ? " +
+            "WHERE JOB_NAME = ? AND RUN_KEY = ? AND PARTITION_NO = ? AND STATUS = ? AND OWNER_ID = ?";
+
+    private static final String COUNT_ACTIVE_OWNERS_SQL =
+            "SELECT COUNT(DISTINCT OWNER_ID) FROM JOB_PARTITION_LEASE WHERE JOB_NAME = ? AND RUN_KEY = ? " +
+            "AND STATUS = ? AND LEASE_EXPIRES_AT >= ?";
+
+    private static final String FIND_OPEN_RUNS_SQL =
+            "SELECT DISTINCT JOB_NAME, RUN_KEY FROM JOB_PARTITION_LEASE WHERE CREATED_AT >= ? " +
+            "AND (STATUS = ? OR (STATUS = ? AND LEASE_EXPIRES_AT < ?))";
+
+    private static final String PURGE_SQL =
+            "DELETE FROM JOB_PARTITION_LEASE WHERE CREATED_AT < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${job-lease.enabled:false}")
+    private boolean enabled;
+
+    @Value("${job-lease.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${job-lease.owner-id:#{null}}")
+    private String ownerId;
+
+    private Clock clock = Clock.system(ZoneId.of(Constants.SL_TIME_ZONE));
+
+    /**
+     * Whether scheduled jobs should share work with other replicas through leases.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Identifier of this replica in OWNER_ID. Defaults to host name plus a random suffix so that
+     * two pods on the same host (or a restarted pod) never share an identity.
+     */
+    public String getOwnerId() {
+        if (ownerId == null || ownerId.isBlank()) {
+            ownerId = resolveHostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        }
+        return ownerId;
+    }
+
+    /**
+     * Creates the partition rows of a run if they do not exist yet. Safe to call from every replica:
+     * rows inserted concurrently by another replica are ignored.
+     *
+     * @return the partition count the run was created with
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int ensurePartitions(String jobName, String runKey, int partitionCount) {
+        Integer existing = jdbcTemplate.queryForObject(COUNT_PARTITIONS_SQL, Integer.class, jobName, runKey);
+
+        if (existing == null || existing == 0) {
+            Timestamp now = Timestamp.valueOf(now());
+            for (int partition = 0; partition < partitionCount; partition++) {
+                try {
+                    jdbcTemplate.update(INSERT_PARTITION_SQL, jobName, runKey, partition, partitionCount,
+                            STATUS_PENDING, now, now);
+                } catch (DuplicateKeyException ex) {
+                    log.debug("Partition {} of {}/{} already created by another replica", partition, jobName, runKey);
+                }
+            }
+        }
+
+        Integer effectiveCount = jdbcTemplate.queryForObject(FIND_PARTITION_COUNT_SQL, Integer.class, jobName, runKey);
+        int result = effectiveCount != null ? effectiveCount : partitionCount;
+        log.info("Job {} run {} has {} partitions (owner: {})", jobName, runKey, result, getOwnerId());
+        return result;
+    }
+
+    /**
+     * Claims the next pending partition, or one whose lease has expired.
+     *
+     * @return the claimed partition number, or null when nothing is claimable
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Integer claimNext(String jobName, String runKey) {
+        LocalDateTime now = now();
+        Timestamp nowTs = Timestamp.valueOf(now);
+        Timestamp expiresAt = Timestamp.valueOf(now.plusSeconds(leaseSeconds));
+
+        List<Integer> candidates = jdbcTemplate.queryForList(FIND_CLAIMABLE_SQL, Integer.class,
+                jobName, runKey, STATUS_PENDING, STATUS_CLAIMED, nowTs);
+
+        for (Integer partition : candidates) {
+            // The predicate is re-checked under the row lock, so only one replica can win a partition
+            int updated = jdbcTemplate.update(CLAIM_SQL, STATUS_CLAIMED, getOwnerId(), expiresAt, nowTs,
+                    jobName, runKey, partition, STATUS_PENDING, STATUS_CLAIMED, nowTs);
+            if (updated == 1) {
+                log.info("Claimed partition {} of {}/{} (owner: {})", partition, jobName, runKey, getOwnerId());
+                return partition;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Extends the lease of a partition owned by this replica.
+     *
+     * @return false if this replica no longer owns the partition
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean renew(String jobName, String runKey, int partition) {
+        LocalDateTime now = now();
+        int updated = jdbcTemplate.update(RENEW_SQL, Timestamp.valueOf(now.plusSeconds(leaseSeconds)),
+                Timestamp.valueOf(now), jobName, runKey, partition, STATUS_CLAIMED, getOwnerId());
+        if (updated == 0) {
+            log.warn("Lost lease on partition {} of {}/{} (owner: {})", partition, jobName, runKey, getOwnerId());
+        }
+        return updated == 1;
+    }
+
+    /**
+     * Marks a partition owned by this replica as done.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void complete(String jobName, String runKey, int partition) {
+        int updated = jdbcTemplate.update(COMPLETE_SQL, STATUS_DONE, Timestamp.valueOf(now()),
+                jobName, runKey, partition, STATUS_CLAIMED, getOwnerId());
+        if (updated == 0) {
+            log.warn("Partition {} of {}/{} was not completed by owner {}: lease lost",
+                    partition, jobName, runKey, getOwnerId());
+        }
+    }
+
+    /**
+     * Number of replicas currently holding a live lease on a partition of the run.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public int countActiveOwners(String jobName, String runKey) {
+        Integer owners = jdbcTemplate.queryForObject(COUNT_ACTIVE_OWNERS_SQL, Integer.class,
+                jobName, runKey, STATUS_CLAIMED, Timestamp.valueOf(now()));
+        return owners != null ? owners : 0;
+    }
+
+    /**
+     * Finds recent runs that still have pending partitions or partitions with expired leases,
+     * i.e. work this replica can pick up.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public List<JobRun> findRunsWithClaimableWork(LocalDateTime createdSince) {
+        return jdbcTemplate.query(FIND_OPEN_RUNS_SQL,
+                (rs, rowNum) -> new JobRun(rs.getString("JOB_NAME"), rs.getString("RUN_KEY")),
+                Timestamp.valueOf(createdSince), STATUS_PENDING, STATUS_CLAIMED, Timestamp.valueOf(now()));
+    }
+
+    /**
+     * Deletes lease rows of runs created before the given time.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int purgeRunsCreatedBefore(LocalDateTime createdBefore) {
+        return jdbcTemplate.update(PURGE_SQL, Timestamp.valueOf(createdBefore));
+    }
+
+    LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+    private static String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown-host";
+        }
+    }
+
+    /**
+     * A partitioned job run identified by job name and run key.
+     */
+    public record JobRun(String jobName, String runKey) {
+    }
+}
@@ -0,0 +1,105 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lets running batch jobs finish their in-flight chunk on shutdown.
+ *
+ * When the application context stops, jobs are asked to stop at their next chunk boundary and
+ * the shutdown waits (up to job-checkpoint.shutdown-drain-seconds) until they have written
+ * their final checkpoint. Runs triggered after that point are refused.
+ */
+@Component
+@Slf4j
+public class JobShutdownCoordinator implements SmartLifecycle {
+
+    private static final long POLL_INTERVAL_MS = 200;
+
+    private final AtomicInteger activeJobs = new AtomicInteger();
+
+    private volatile boolean stopRequested;
+    private volatile boolean running;
+
+    @Value("${job-checkpoint.shutdown-drain-seconds:60}")
+    private long drainSeconds;
+
+    /**
+     * Registers a starting job run.
+     *
+     * @return false if shutdown is in progress and the run must not start
+     */
+    public boolean enter() {
+        activeJobs.incrementAndGet();
+        if (stopRequested) {
+            activeJobs.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Unregisters a job run registered with {@link #enter()}.
+     */
+    public void exit() {
+        activeJobs.decrementAndGet();
+    }
+
+    /**
+     * Whether jobs should stop at their next chunk boundary.
+     */
+    public boolean isStopRequested() {
+        return stopRequested;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        stopRequested = true;
+        awaitDrain();
+        running = false;
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        stopRequested = true;
+        log.info("Shutdown requested, waiting for {} running job(s) to checkpoint", activeJobs.get());
+        Thread.ofVirtual().name("job-shutdown-drain").start(() -> {
+            awaitDrain();
+            running = false;
+            callback.run();
+        });
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void awaitDrain() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(drainSeconds);
+        while (activeJobs.get() > 0 && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (activeJobs.get() > 0) {
+            log.warn("{} job(s) still running after {} s; their last committed checkpoint will be resumed",
+                    activeJobs.get(), drainSeconds);
+        } else {
+            log.info("All running jobs stopped at a checkpoint");
+        }
+    }
+}
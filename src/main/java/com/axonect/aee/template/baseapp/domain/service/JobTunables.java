@@ -0,0 +1,217 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import com.axonect.aee.template.baseapp.domain.exception.AAAException;
+import com.axonect.aee.template.baseapp.domain.util.LogMessages;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Job parameters that can be changed while the application runs.
+ *
+ * A tunable starts from its application.yml value; an override set through /api/jobs/tunables
+ * replaces it until it is reset. Jobs read tunables at every chunk boundary instead of once at startup,
+ * so a change applies to the next chunk of a running job. Overrides are held per replica and are
+ * lost on restart; application.yml stays the source of the permanent values.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JobTunables {
+
+    public static final String RECURRENT_CHUNK_SIZE = "recurrent-service.chunk-size";
+    public static final String RECURRENT_WORKERS = "recurrent-service.parallel.workers";
+    public static final String RECURRENT_PACING_WINDOW_END = "recurrent-service.pacing.window-end";
+    public static final String RECURRENT_PLAN_SCHEDULE = "recurrent-service.plan-apply.schedule";
+    public static final String DELETE_BUCKETS_CHUNK_SIZE = "delete-expired-buckets.chunk-size";
+    public static final String DELETE_BUCKETS_SCHEDULE = "delete-expired-buckets.schedule";
+    public static final String EXPIRY_NOTIFICATION_BATCH_SIZE = "expiry-notification.batch-size";
+    public static final String EXPIRY_NOTIFICATION_SCHEDULE = "expiry-notification.schedule";
+    public static final String DB_GOVERNOR_MIN_PERMITS = "db-governor.min-permits";
+    public static final String DB_GOVERNOR_MAX_PERMITS = "db-governor.max-permits";
+    public static final String FAILURE_RETRY_BATCH_SIZE = "failure-retry.batch-size";
+    public static final String FAILURE_RETRY_SCHEDULE = "failure-retry.schedule";
+
+    /**
+     * Largest chunk of the jobs that load a chunk's reference data with one IN list per table:
+     * Oracle accepts at most 1000 expressions in a list (ORA-01795).
+     */
+    public static final int MAX_CHUNK_SIZE = 1000;
+
+    private static final Map<String, Tunable> TUNABLES = Map.ofEntries(
+            Map.entry(RECURRENT_CHUNK_SIZE, new Tunable(Type.CHUNK_SIZE, "100")),
+            Map.entry(RECURRENT_WORKERS, new Tunable(Type.POSITIVE_INT, "8")),
+            Map.entry(RECURRENT_PACING_WINDOW_END, new Tunable(Type.TIME, "04:00")),
+            Map.entry(RECURRENT_PLAN_SCHEDULE, new Tunable(Type.CRON, Scheduled.CRON_DISABLED)),
+            Map.entry(DELETE_BUCKETS_CHUNK_SIZE, new Tunable(Type.POSITIVE_INT, "100")),
+            Map.entry(DELETE_BUCKETS_SCHEDULE, new Tunable(Type.CRON, "0 0 2 * * ?")),
+            Map.entry(EXPIRY_NOTIFICATION_BATCH_SIZE, new Tunable(Type.POSITIVE_INT, "100")),
+            Map.entry(EXPIRY_NOTIFICATION_SCHEDULE, new Tunable(Type.CRON, "0 0 9 * * ?")),
+            Map.entry(DB_GOVERNOR_MIN_PERMITS, new Tunable(Type.POSITIVE_INT, "1")),
+            Map.entry(DB_GOVERNOR_MAX_PERMITS, new Tunable(Type.POSITIVE_INT, "16")),
+            Map.entry(FAILURE_RETRY_BATCH_SIZE, new Tunable(Type.CHUNK_SIZE, "100")),
+            Map.entry(FAILURE_RETRY_SCHEDULE, new Tunable(Type.CRON, "0 */30 * * * ?"))
+    );
+
+    private final Environment environment;
+
+    private final Map<String, String> overrides = new ConcurrentHashMap<>();
+    private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+
+    /**
+     * Fails startup on a configured value an override of the tunable would be refused for.
+     */
+    @PostConstruct
+    void validateConfiguredValues() {
+        TUNABLES.forEach((key, tunable) -> {
+            String value = environment.getProperty(key, tunable.defaultValue()).trim();
+            if (!tunable.type().isValid(value)) {
+                throw new IllegalStateException("Invalid configured value '" + value + "' for " + key
+                        + ", expected " + tunable.type().description);
+            }
+        });
+    }
+
+    /**
+     * Current value: the override if one is set, otherwise the configured value.
+     */
+    public String get(String key) {
+        Tunable tunable = tunable(key);
+        String override = overrides.get(key);
+        return override != null ? override : environment.getProperty(key, tunable.defaultValue()).trim();
+    }
+
+    public int getInt(String key) {
+        return Integer.parseInt(get(key));
+    }
+
+    public LocalTime getTime(String key) {
+        return LocalTime.parse(get(key));
+    }
+
+    /**
+     * Current values of all tunables.
+     */
+    public Map<String, String> all() {
+        Map<String, String> values = new TreeMap<>();
+        TUNABLES.keySet().forEach(key -> values.put(key, get(key)));
+        return values;
+    }
+
+    /**
+     * Overrides a tunable until it is reset or the application restarts.
+     */
+    public void set(String key, String value) {
+        Tunable tunable = tunable(key);
+        String trimmed = value != null ? value.trim() : "";
+        if (!tunable.type().isValid(trimmed)) {
+            throw new AAAException(LogMessages.ERROR_INVALID_VALUE,
+                    "Invalid value '" + trimmed + "' for " + key + ", expected " + tunable.type().description,
+                    HttpStatus.BAD_REQUEST);
+        }
+        String previous = get(key);
+        overrides.put(key, trimmed);
+        log.info("Tunable {} changed from {} to {}", key, previous, trimmed);
+        notifyListeners(key);
+    }
+
+    /**
+     * Drops the override, returning the tunable to its configured value.
+     */
+    public void reset(String key) {
+        tunable(key);
+        if (overrides.remove(key) != null) {
+            log.info("Tunable {} reset to {}", key, get(key));
+            notifyListeners(key);
+        }
+    }
+
+    /**
+     * Registers a callback run with the new value whenever the tunable changes, for values that are
+     * not simply re-read at the next chunk (e.g. cron schedules).
+     */
+    public void onChange(String key, Consumer<String> listener) {
+        tunable(key);
+        listeners.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    private void notifyListeners(String key) {
+        String value = get(key);
+        for (Consumer<String> listener : listeners.getOrDefault(key, List.of())) {
+            try {
+                listener.accept(value);
+            } catch (RuntimeException e) {
+                log.error("Error applying tunable {} = {}", key, value, e);
+            }
+        }
+    }
+
+    private static Tunable tunable(String key) {
+        Tunable tunable = TUNABLES.get(key);
+        if (tunable == null) {
+            throw new AAAException(LogMessages.ERROR_NOT_FOUND, "Unknown tunable: " + key, HttpStatus.NOT_FOUND);
+        }
+        return tunable;
+    }
+
+    private record Tunable(Type type, String defaultValue) {
+    }
+
+    private enum Type {
+        POSITIVE_INT("a positive integer") {
+            @Override
+            boolean isValid(String value) {
+                try {
+                    return Integer.parseInt(value) > 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        },
+        CHUNK_SIZE("a positive integer up to " + MAX_CHUNK_SIZE) {
+            @Override
+            boolean isValid(String value) {
+                return POSITIVE_INT.isValid(value) && Integer.parseInt(value) <= MAX_CHUNK_SIZE;
+            }
+        },
+        TIME("a time of day (HH:mm)") {
+            @Override
+            boolean isValid(String value) {
+                try {
+                    LocalTime.parse(value);
+                    return true;
+                } catch (DateTimeParseException e) {
+                    return false;
+                }
+            }
+        },
+        CRON("a cron expression or '-' to disable") {
+            @Override
+            boolean isValid(String value) {
+                return Scheduled.CRON_DISABLED.equals(value) || CronExpression.isValidExpression(value);
+            }
+        };
+
+        private final String description;
+
+        Type(String description) {
+            this.description = description;
+        }
+
+        abstract boolean isValid(String value);
+    }
+}
@@ -0,0 +1,41 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+/**
+ * Partition source backed by the JOB_PARTITION_LEASE table.
+ * Must be given the Spring proxy of {@link JobPartitionLeaseService} so every lease
+ * operation commits in its own transaction and is visible to the other replicas immediately.
+ */
+final class LeasedPartitionSource implements PartitionSource {
+
+    private final JobPartitionLeaseService leaseService;
+    private final String jobName;
+    private final String runKey;
+    private final int partitionCount;
+
+    LeasedPartitionSource(JobPartitionLeaseService leaseService, String jobName, String runKey, int partitionCount) {
+        this.leaseService = leaseService;
+        this.jobName = jobName;
+        this.runKey = runKey;
+        this.partitionCount = leaseService.ensurePartitions(jobName, runKey, Math.max(1, partitionCount));
+    }
+
+    @Override
+    public int partitionCount() {
+        return partitionCount;
+    }
+
+    @Override
+    public Integer next() {
+        return leaseService.claimNext(jobName, runKey);
+    }
+
+    @Override
+    public boolean renew(int partition) {
+        return leaseService.renew(jobName, runKey, partition);
+    }
+
+    @Override
+    public void complete(int partition) {
+        leaseService.complete(jobName, runKey, partition);
+    }
+}
@@ -0,0 +1,40 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * In-process partition source: every partition is handed out exactly once to the local workers.
+ */
+final class LocalPartitionSource implements PartitionSource {
+
+    private final int partitionCount;
+    private final Queue<Integer> pendingPartitions = new ConcurrentLinkedQueue<>();
+
+    LocalPartitionSource(int partitionCount) {
+        this.partitionCount = Math.max(1, partitionCount);
+        for (int partition = 0; partition < this.partitionCount; partition++) {
+            pendingPartitions.add(partition);
+        }
+    }
+
+    @Override
+    public int partitionCount() {
+        return partitionCount;
+    }
+
+    @Override
+    public Integer next() {
+        return pendingPartitions.poll();
+    }
+
+    @Override
+    public boolean renew(int partition) {
+        return true;
+    }
+
+    @Override
+    public void complete(int partition) {
+        // Nothing to record for local runs
+    }
+}
@@ -0,0 +1,48 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+/**
+ * Paces another partition source: every chunk boundary ({@link #renew(int)}) waits for the
+ * {@link WindowPacer} before the next chunk is read. The partition is renewed through the other source
+ * before and during the wait, so a long wait neither loses a leased partition nor delays a stop.
+ */
+final class PacedPartitionSource implements PartitionSource {
+
+    private final PartitionSource delegate;
+    private final WindowPacer pacer;
+
+    PacedPartitionSource(PartitionSource delegate, WindowPacer pacer) {
+        this.delegate = delegate;
+        this.pacer = pacer;
+    }
+
+    @Override
+    public int partitionCount() {
+        return delegate.partitionCount();
+    }
+
+    @Override
+    public Integer next() {
+        return delegate.next();
+    }
+
+    @Override
+    public boolean renew(int partition) {
+        // Renewed before the wait and between its slices, so neither the lease nor a stop waits for the pacer
+        return delegate.renew(partition) && pacer.pace(() -> delegate.renew(partition));
+    }
+
+    @Override
+    public void complete(int partition) {
+        delegate.complete(partition);
+    }
+
+    @Override
+    public String resumeAfter(int partition) {
+        return delegate.resumeAfter(partition);
+    }
+
+    @Override
+    public void checkpoint(int partition, String lastKey, long processedCount, long failedCount) {
+        delegate.checkpoint(partition, lastKey, processedCount, failedCount);
+    }
+}
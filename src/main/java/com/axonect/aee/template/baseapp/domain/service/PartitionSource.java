@@ -0,0 +1,77 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+/**
+ * Hands out the partitions of a partitioned job run to worker threads.
+ * A local source serves every partition to this process only; a leased source coordinates
+ * with the other replicas through the JOB_PARTITION_LEASE table so each partition is processed once.
+ */
+public interface PartitionSource {
+
+    /**
+     * Number of partitions the run is split into. For leased runs this is the count the run was
+     * created with, which may differ from the local configuration.
+     */
+    int partitionCount();
+
+    /**
+     * Claims the next partition for this node.
+     *
+     * @return the partition number, or null when no partition is left for this node
+     */
+    Integer next();
+
+    /**
+     * Extends ownership of a partition while it is being processed. Called at chunk boundaries.
+     *
+     * @return false if the partition was lost (lease expired and taken over), so processing must stop
+     */
+    boolean renew(int partition);
+
+    /**
+     * Marks a partition as fully processed.
+     */
+    void complete(int partition);
+
+    /**
+     * Key after which processing of a partition resumes, or null to start from the beginning.
+     */
+    default String resumeAfter(int partition) {
+        return null;
+    }
+
+    /**
+     * Records progress of a partition after a committed chunk.
+     *
+     * @param lastKey last key of the committed chunk
+     * @param processedCount items processed in the partition by this run
+     * @param failedCount items failed in the partition by this run
+     */
+    default void checkpoint(int partition, String lastKey, long processedCount, long failedCount) {
+        // Progress is not persisted unless the source is checkpointed
+    }
+
+    static PartitionSource local(int partitionCount) {
+        return new LocalPartitionSource(partitionCount);
+    }
+
+    static PartitionSource leased(JobPartitionLeaseService leaseService, String jobName, String runKey,
+                                  int partitionCount) {
+        return new LeasedPartitionSource(leaseService, jobName, runKey, partitionCount);
+    }
+
+    @SuppressWarnings("java:S107")
+    static PartitionSource checkpointed(PartitionSource delegate, JobCheckpointService checkpointService,
+                                        JobShutdownCoordinator shutdownCoordinator, JobExecution execution,
+                                        String jobName, String runKey, String batchId) {
+        return new CheckpointedPartitionSource(delegate, checkpointService, shutdownCoordinator, execution,
+                jobName, runKey, batchId);
+    }
+
+    static PartitionSource flushingFailures(PartitionSource delegate, ServiceFailureSink failureSink) {
+        return new FailureFlushingPartitionSource(delegate, failureSink);
+    }
+
+    static PartitionSource paced(PartitionSource delegate, WindowPacer pacer) {
+        return new PacedPartitionSource(delegate, pacer);
+    }
+}
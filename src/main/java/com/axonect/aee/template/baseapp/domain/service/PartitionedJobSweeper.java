@@ -0,0 +1,86 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import com.axonect.aee.template.baseapp.domain.util.Constants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Keeps lease-coordinated job runs moving across replicas.
+ * Periodically looks for recent runs with pending partitions or partitions whose lease expired
+ * (the owning replica died) and joins them. This is also how a replica started mid-run
+ * takes its share of the remaining work.
+ *
+ * Runs are joined through {@link JobExecutionRegistry}: the work runs on the registry's executor, not on
+ * the scheduler thread, and a job this replica is already running is not started a second time.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PartitionedJobSweeper {
+
+    private final JobPartitionLeaseService jobPartitionLeaseService;
+    private final RecurrentServiceService recurrentServiceService;
+    private final DeleteBucketInstanceService deleteBucketInstanceService;
+    private final JobExecutionRegistry jobExecutionRegistry;
+
+    @Value("${job-lease.lookback-hours:24}")
+    private long lookbackHours;
+
+    @Value("${job-lease.retention-days:7}")
+    private long retentionDays;
+
+    @Scheduled(fixedDelayString = "${job-lease.sweep-interval-ms:60000}",
+            initialDelayString = "${job-lease.sweep-interval-ms:60000}")
+    public void joinOpenRuns() {
+        if (!jobPartitionLeaseService.isEnabled()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now(ZoneId.of(Constants.SL_TIME_ZONE));
+        try {
+            List<JobPartitionLeaseService.JobRun> openRuns =
+                    jobPartitionLeaseService.findRunsWithClaimableWork(now.minusHours(lookbackHours));
+
+            for (JobPartitionLeaseService.JobRun run : openRuns) {
+                Runnable job = resumer(run);
+                if (job == null) {
+                    continue;
+                }
+                log.info("Joining job {} run {} with claimable partitions", run.jobName(), run.runKey());
+                // Joins the local execution if the job is already running here; an open run of another
+                // run key is picked up by a later sweep once that execution has finished
+                jobExecutionRegistry.submit(run.jobName(), job);
+            }
+
+            int purged = jobPartitionLeaseService.purgeRunsCreatedBefore(now.minusDays(retentionDays));
+            if (purged > 0) {
+                log.info("Purged {} job partition lease rows older than {} days", purged, retentionDays);
+            }
+        } catch (Exception e) {
+            log.error("Error while joining open partitioned job runs", e);
+        }
+    }
+
+    private Runnable resumer(JobPartitionLeaseService.JobRun run) {
+        return switch (run.jobName()) {
+            case RecurrentServiceService.JOB_NAME -> () -> recurrentServiceService.resumeLeasedRun(run.runKey());
+            case DeleteBucketInstanceService.JOB_NAME ->
+                    () -> deleteBucketInstanceService.resumeLeasedRun(run.runKey());
+            case RecurrentRenewalWheel.JOB_NAME -> {
+                log.debug("Renewal wheel leadership is claimed by its own refill");
+                yield null;
+            }
+            default -> {
+                log.warn("No handler for partitioned job {}", run.jobName());
+                yield null;
+            }
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import com.axonect.aee.template.baseapp.domain.exception.ReferenceDataException;
+import com.axonect.aee.template.baseapp.domain.util.LogMessages;
+import org.springframework.http.HttpStatus;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plans of a run whose reference data is broken, found by a pre-flight check before the run.
+ * Services on a broken plan are skipped instead of each paying a failed provisioning attempt. Each is
+ * still recorded as a failure of its own, with one stackless exception shared by all services of the
+ * plan, so the failure retry provisions it again once the plan is fixed.
+ */
+final class PlanIntegrity {
+
+    private final Map<String, ReferenceDataException> brokenPlans;
+    private final Map<String, AtomicInteger> skipped = new ConcurrentHashMap<>();
+
+    /**
+     * @param brokenPlans Plan ID to the reason it cannot be provisioned
+     */
+    PlanIntegrity(Map<String, String> brokenPlans) {
+        Map<String, ReferenceDataException> failures = new HashMap<>();
+        brokenPlans.forEach((planId, reason) -> failures.put(planId,
+                new ReferenceDataException(LogMessages.ERROR_POLICY_CONFLICT, reason, HttpStatus.NOT_FOUND)));
+        this.brokenPlans = Map.copyOf(failures);
+    }
+
+    /**
+     * Counts the service as skipped if its plan is broken.
+     *
+     * @return The failure to record for the service, or null if the plan is not broken
+     */
+    ReferenceDataException skipIfBroken(String planId) {
+        ReferenceDataException failure = planId != null ? brokenPlans.get(planId) : null;
+        if (failure != null) {
+            skipped.computeIfAbsent(planId, id -> new AtomicInteger()).incrementAndGet();
+        }
+        return failure;
+    }
+
+    String reason(String planId) {
+        ReferenceDataException failure = brokenPlans.get(planId);
+        return failure != null ? failure.getMessage() : null;
+    }
+
+    /**
+     * Broken plans that had services in the run, with the number of services skipped.
+     */
+    Map<String, Integer> skippedServices() {
+        Map<String, Integer> counts = new ConcurrentHashMap<>();
+        skipped.forEach((planId, count) -> counts.put(planId, count.get()));
+        return counts;
+    }
+}
@@ -0,0 +1,106 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import com.axonect.aee.template.baseapp.domain.entities.repo.Bucket;
+import com.axonect.aee.template.baseapp.domain.entities.repo.BucketInstance;
+import com.axonect.aee.template.baseapp.domain.entities.repo.PlanToBucket;
+import com.axonect.aee.template.baseapp.domain.entities.repo.QOSProfile;
+import com.axonect.aee.template.baseapp.domain.entities.repo.ServiceInstance;
+import com.axonect.aee.template.baseapp.domain.exception.ReferenceDataException;
+import com.axonect.aee.template.baseapp.domain.util.Constants;
+import com.axonect.aee.template.baseapp.domain.util.LogMessages;
+import org.springframework.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The buckets a plan provisions, with their bucket, QoS and quota settings resolved once, in plan order.
+ * Provisioning a service stamps copies of the prototypes with the service ID and cycle dates.
+ * Immutable, so a template is shared by all workers.
+ */
+record ProvisioningTemplate(String planId, List<BucketPrototype> prototypes) {
+
+    ProvisioningTemplate {
+        prototypes = List.copyOf(prototypes);
+    }
+
+    /**
+     * Resolves the plan's buckets against the reference data.
+     *
+     * @throws ReferenceDataException if a bucket or its QoS profile does not exist
+     */
+    static ProvisioningTemplate compile(String planId, List<PlanToBucket> quotaDetails, Map<String, Bucket> bucketMap,
+                                        Map<Long, QOSProfile> qosProfileMap) {
+        List<BucketPrototype> prototypes = new ArrayList<>(quotaDetails.size());
+        for (PlanToBucket planToBucket : quotaDetails) {
+            Bucket bucket = bucketMap.get(planToBucket.getBucketId());
+            if (bucket == null) {
+                throw new ReferenceDataException(LogMessages.ERROR_POLICY_CONFLICT,
+                        "BUCKET_NOT_FOUND " + planToBucket.getBucketId(), HttpStatus.NOT_FOUND);
+            }
+            QOSProfile qosProfile = qosProfileMap.get(bucket.getQosId());
+            if (qosProfile == null) {
+                throw new ReferenceDataException(LogMessages.ERROR_POLICY_CONFLICT,
+                        "QOS_PROFILE_NOT_FOUND " + bucket.getQosId(), HttpStatus.NOT_FOUND);
+            }
+            prototypes.add(new BucketPrototype(bucket.getBucketId(), bucket.getBucketType(), bucket.getPriority(),
+                    bucket.getTimeWindow(), qosProfile.getBngCode(), planToBucket.getCarryForward(),
+                    planToBucket.getMaxCarryForward(), planToBucket.getTotalCarryForward(),
+                    planToBucket.getConsumptionLimit(), planToBucket.getConsumptionLimitWindow(),
+                    planToBucket.getInitialQuota(), planToBucket.getCarryForwardValidity(),
+                    planToBucket.getIsUnlimited()));
+        }
+        return new ProvisioningTemplate(planId, prototypes);
+    }
+
+    /**
+     * One bucket of the plan, resolved from PLAN_TO_BUCKET, BUCKET and QOS_PROFILE.
+     */
+    @SuppressWarnings("java:S107")
+    record BucketPrototype(String bucketId, String bucketType, Long priority, String timeWindow, String rule,
+                           Boolean carryForward, Long maxCarryForward, Long totalCarryForward, Long consumptionLimit,
+                           String consumptionLimitWindow, Long initialQuota, Integer carryForwardValidity,
+                           Boolean isUnlimited) {
+
+        /**
+         * A new bucket of the service's current cycle, holding the initial quota.
+         */
+        BucketInstance newBucket(ServiceInstance serviceInstance) {
+            BucketInstance bucketInstance = new BucketInstance();
+            bucketInstance.setBucketId(bucketId);
+            bucketInstance.setBucketType(bucketType);
+            bucketInstance.setPriority(priority);
+            bucketInstance.setTimeWindow(timeWindow);
+            bucketInstance.setRule(rule);
+            bucketInstance.setServiceId(serviceInstance.getId());
+            bucketInstance.setCarryForward(carryForward);
+            bucketInstance.setMaxCarryForward(maxCarryForward);
+            bucketInstance.setTotalCarryForward(totalCarryForward);
+            bucketInstance.setConsumptionLimit(consumptionLimit);
+            bucketInstance.setConsumptionLimitWindow(consumptionLimitWindow);
+            bucketInstance.setCurrentBalance(initialQuota);
+            bucketInstance.setCarryForwardValidity(carryForwardValidity);
+            bucketInstance.setInitialBalance(initialQuota);
+            bucketInstance.setExpiration(serviceInstance.getServiceCycleEndDate());
+            bucketInstance.setIsUnlimited(isUnlimited);
+            bucketInstance.setUsage(0L);
+            return bucketInstance;
+        }
+
+        /**
+         * A carry forward bucket holding the unused balance of the previous cycle, up to the maximum carry forward.
+         */
+        BucketInstance newCarryForwardBucket(ServiceInstance serviceInstance, Long currentBalance) {
+            BucketInstance bucketInstance = newBucket(serviceInstance);
+            bucketInstance.setBucketType(Constants.CARRY_FORWARD_BUCKET);
+            bucketInstance.setCarryForward(Boolean.FALSE);
+
+            Long adjustedBalance = Math.min(currentBalance, maxCarryForward);
+            bucketInstance.setCurrentBalance(adjustedBalance);
+            bucketInstance.setInitialBalance(adjustedBalance);
+            bucketInstance.setExpiration(serviceInstance.getServiceStartDate().plusDays(carryForwardValidity));
+            return bucketInstance;
+        }
+    }
+}
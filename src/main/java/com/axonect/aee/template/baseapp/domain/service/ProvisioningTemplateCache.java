@@ -0,0 +1,74 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import com.axonect.aee.template.baseapp.domain.entities.repo.Bucket;
+import com.axonect.aee.template.baseapp.domain.entities.repo.PlanToBucket;
+import com.axonect.aee.template.baseapp.domain.entities.repo.QOSProfile;
+import com.axonect.aee.template.baseapp.domain.exception.ReferenceDataException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link ProvisioningTemplate}s by plan ID.
+ *
+ * Reference data is read with every chunk, so a template is checked against each chunk's data for its plan:
+ * services of a chunk after the first only pay an identity check of the chunk's maps. For a new chunk the
+ * template is compiled again from its data and kept if unchanged; a plan whose buckets, QoS profiles or
+ * quotas changed during the run gets a new template from the next chunk on. A plan that fails to compile
+ * fails the same way for the rest of the chunk without being compiled again.
+ */
+@Slf4j
+final class ProvisioningTemplateCache {
+
+    private final Map<String, Entry> templates = new ConcurrentHashMap<>();
+
+    /**
+     * @throws ReferenceDataException if a bucket or its QoS profile of the plan does not exist; the same
+     *         instance is thrown for every service of the chunk
+     */
+    ProvisioningTemplate get(String planId, List<PlanToBucket> quotaDetails, Map<String, Bucket> bucketMap,
+                             Map<Long, QOSProfile> qosProfileMap) {
+        Entry entry = templates.get(planId);
+        if (entry != null && entry.isFor(quotaDetails, bucketMap, qosProfileMap)) {
+            return entry.resolve();
+        }
+
+        ProvisioningTemplate template;
+        try {
+            template = ProvisioningTemplate.compile(planId, quotaDetails, bucketMap, qosProfileMap);
+        } catch (ReferenceDataException ex) {
+            templates.put(planId, new Entry(null, ex, quotaDetails, bucketMap, qosProfileMap));
+            throw ex;
+        }
+        if (entry != null && template.equals(entry.template())) {
+            template = entry.template();
+        } else if (entry != null && entry.template() != null) {
+            log.info("Reference data of plan {} changed, provisioning template recompiled", planId);
+        }
+        templates.put(planId, new Entry(template, null, quotaDetails, bucketMap, qosProfileMap));
+        return template;
+    }
+
+    /**
+     * A template, or the failure to compile one, with the chunk data it was last checked against.
+     */
+    private record Entry(ProvisioningTemplate template, ReferenceDataException failure,
+                         List<PlanToBucket> quotaDetails, Map<String, Bucket> bucketMap,
+                         Map<Long, QOSProfile> qosProfileMap) {
+
+        ProvisioningTemplate resolve() {
+            if (failure != null) {
+                throw failure;
+            }
+            return template;
+        }
+
+        boolean isFor(List<PlanToBucket> quotaDetails, Map<String, Bucket> bucketMap,
+                      Map<Long, QOSProfile> qosProfileMap) {
+            return this.quotaDetails == quotaDetails && this.bucketMap == bucketMap
+                    && this.qosProfileMap == qosProfileMap;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import com.axonect.aee.template.baseapp.application.repository.ServiceInstanceRepository;
+import com.axonect.aee.template.baseapp.domain.entities.dto.DueServiceKey;
+import com.axonect.aee.template.baseapp.domain.util.Constants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event-driven renewal mode: instead of renewing a whole day in one nightly burst, each recurring
+ * service is renewed close to its own NEXT_CYCLE_START_DATE.
+ *
+ * The next horizon-hours of due services are loaded into a {@link HierarchicalTimingWheel} and the wheel
+ * is refilled as time advances. A fired service is re-read from the database before it is renewed,
+ * so services renewed elsewhere in the meantime (nightly run, catch-up) are skipped; provisioning locks
+ * the row and checks the cycle again, so a renewal racing another replica is skipped too.
+ * Fired services are renewed on a worker thread, so a slow renewal never holds up the scheduler thread
+ * that also refills the wheel and renews the leader lease.
+ * With job-lease enabled only one replica, the one holding the lease, runs the wheel.
+ * On shutdown the renewal in progress stops at its next chunk and the worker is drained; services not
+ * renewed keep their NEXT_CYCLE_START_DATE and are renewed by the next run.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RecurrentRenewalWheel implements SmartLifecycle {
+
+    public static final String JOB_NAME = "RECURRENT_SERVICE_WHEEL";
+
+    private static final int WHEEL_SIZE = 60;
+    private static final int WHEEL_LEVELS = 3;
+
+    private final ServiceInstanceRepository serviceInstanceRepository;
+    private final RecurrentServiceService recurrentServiceService;
+    private final JobPartitionLeaseService jobPartitionLeaseService;
+    private final JobShutdownCoordinator jobShutdownCoordinator;
+    private final JobTunables jobTunables;
+
+    private final ExecutorService renewer = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("renewal-wheel").factory());
+
+    @Value("${recurrent-service.wheel.enabled:false}")
+    private boolean enabled;
+
+    @Value("${recurrent-service.wheel.horizon-hours:6}")
+    private long horizonHours;
+
+    @Value("${recurrent-service.wheel.lead-seconds:300}")
+    private long leadSeconds;
+
+    @Value("${recurrent-service.wheel.tick-ms:1000}")
+    private long tickMillis;
+
+    @Value("${recurrent-service.spool.fetch-size:5000}")
+    private int fetchSize;
+
+    @Value("${job-checkpoint.shutdown-drain-seconds:60}")
+    private long drainSeconds;
+
+    private volatile boolean running;
+
+    private HierarchicalTimingWheel<DueRenewal> wheel;
+    private LocalDateTime loadedUntil;
+    private String leaseRunKey;
+
+    /**
+     * Loads services that became due within the horizon since the last refill.
+     * The refill interval must stay below job-lease.lease-seconds, as it also renews the leader lease.
+     */
+    @Scheduled(fixedDelayString = "${recurrent-service.wheel.refill-interval-ms:60000}")
+    public synchronized void refill() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (!holdLeadership()) {
+                return;
+            }
+            LocalDateTime now = now();
+            if (wheel == null) {
+                wheel = new HierarchicalTimingWheel<>(toEpochMillis(now), tickMillis, WHEEL_SIZE, WHEEL_LEVELS);
+                // Services due earlier today and not renewed yet are picked up and fire at once
+                loadedUntil = now.toLocalDate().atStartOfDay();
+            }
+
+            LocalDateTime loadUntil = now.plusHours(horizonHours).plusSeconds(leadSeconds);
+            if (toEpochMillis(loadUntil) > wheel.horizonMillis()) {
+                throw new IllegalStateException("recurrent-service.wheel.horizon-hours exceeds the timing wheel range");
+            }
+            if (!loadUntil.isAfter(loadedUntil)) {
+                return;
+            }
+
+            int loaded = load(loadedUntil, loadUntil);
+            loadedUntil = loadUntil;
+            log.info("Renewal wheel loaded {} services due before {} ({} scheduled)", loaded, loadUntil, wheel.size());
+        } catch (Exception e) {
+            log.error("Error while refilling the renewal wheel", e);
+        }
+    }
+
+    /**
+     * Fires services whose renewal time has come and hands them to the renewal worker, which renews them
+     * in chunks in firing order.
+     */
+    @Scheduled(fixedDelayString = "${recurrent-service.wheel.tick-ms:1000}")
+    public void tick() {
+        List<DueRenewal> fired = new ArrayList<>();
+        synchronized (this) {
+            if (!enabled || wheel == null) {
+                return;
+            }
+            wheel.advance(toEpochMillis(now()), fired::add);
+        }
+        if (fired.isEmpty() || !running) {
+            return;
+        }
+        try {
+            renewer.execute(() -> {
+                if (!jobShutdownCoordinator.enter()) {
+                    return;
+                }
+                try {
+                    renew(fired);
+                } finally {
+                    jobShutdownCoordinator.exit();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.info("Renewal wheel stopped, {} fired services left to the next run", fired.size());
+        }
+    }
+
+    private int load(LocalDateTime from, LocalDateTime until) {
+        LocalDateTime expiryAfter = now();
+        long leadMillis = leadSeconds * 1000;
+        int loaded = 0;
+        long lastId = 0L;
+        List<DueServiceKey> keys;
+        do {
+            keys = serviceInstanceRepository.findDueRecurringServiceKeysAfterId(
+                    from, until, expiryAfter, lastId, PageRequest.of(0, fetchSize));
+            for (DueServiceKey key : keys) {
+                LocalDateTime nextCycleStartDate = key.getNextCycleStartDate().truncatedTo(ChronoUnit.SECONDS);
+                wheel.add(new DueRenewal(key.getId(), nextCycleStartDate),
+                        toEpochMillis(nextCycleStartDate) - leadMillis);
+                loaded++;
+            }
+            if (!keys.isEmpty()) {
+                lastId = keys.get(keys.size() - 1).getId();
+            }
+        } while (keys.size() == fetchSize);
+        return loaded;
+    }
+
+    private void renew(List<DueRenewal> fired) {
+        String batchId = UUID.randomUUID().toString();
+        int renewed = 0;
+        int from = 0;
+        while (from < fired.size() && !jobShutdownCoordinator.isStopRequested()) {
+            int to = Math.min(from + jobTunables.getInt(JobTunables.RECURRENT_CHUNK_SIZE), fired.size());
+            Map<Long, LocalDateTime> chunk = new LinkedHashMap<>();
+            for (DueRenewal renewal : fired.subList(from, to)) {
+                chunk.put(renewal.serviceId(), renewal.nextCycleStartDate());
+            }
+            from = to;
+            try {
+                renewed += recurrentServiceService.reactivateScheduledServices(chunk, batchId);
+            } catch (Exception e) {
+                log.error("Error renewing {} scheduled services (batch ID: {})", chunk.size(), batchId, e);
+            }
+        }
+        if (from < fired.size()) {
+            log.info("Shutdown requested, {} fired services left to the next run (batch ID: {})",
+                    fired.size() - from, batchId);
+        }
+        log.info("Renewal wheel fired {} services, {} renewed (batch ID: {})", fired.size(), renewed, batchId);
+    }
+
+    /**
+     * Without job-lease every replica is its own leader. With it, the replica holding partition 0 of
+     * the day's wheel run renews it on every refill; a replica that loses the lease drops its wheel.
+     */
+    private boolean holdLeadership() {
+        if (!jobPartitionLeaseService.isEnabled()) {
+            return true;
+        }
+        String runKey = now().toLocalDate().toString();
+        if (runKey.equals(leaseRunKey) && jobPartitionLeaseService.renew(JOB_NAME, runKey, 0)) {
+            return true;
+        }
+        if (leaseRunKey != null && !runKey.equals(leaseRunKey)) {
+            jobPartitionLeaseService.complete(JOB_NAME, leaseRunKey, 0);
+        }
+
+        jobPartitionLeaseService.ensurePartitions(JOB_NAME, runKey, 1);
+        if (jobPartitionLeaseService.claimNext(JOB_NAME, runKey) != null) {
+            if (leaseRunKey == null) {
+                log.info("Renewal wheel leadership acquired for {}", runKey);
+            }
+            leaseRunKey = runKey;
+            return true;
+        }
+
+        if (leaseRunKey != null || wheel != null) {
+            log.warn("Renewal wheel leadership lost, dropping {} scheduled services", wheel != null ? wheel.size() : 0);
+        }
+        leaseRunKey = null;
+        wheel = null;
+        return false;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        renewer.shutdown();
+        awaitRenewer();
+    }
+
+    /**
+     * Drains the renewal worker off the shutdown thread, so it waits alongside {@link JobShutdownCoordinator},
+     * whose stop request ends the renewal in progress at its next chunk.
+     */
+    @Override
+    public void stop(Runnable callback) {
+        running = false;
+        renewer.shutdown();
+        Thread.ofVirtual().name("renewal-wheel-drain").start(() -> {
+            awaitRenewer();
+            callback.run();
+        });
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops in the phase of {@link JobShutdownCoordinator}.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE;
+    }
+
+    private void awaitRenewer() {
+        try {
+            if (!renewer.awaitTermination(drainSeconds, TimeUnit.SECONDS)) {
+                log.warn("Renewal wheel still renewing after {} s, interrupting it", drainSeconds);
+                renewer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            renewer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        log.info("Renewal wheel stopped");
+    }
+
+    private static LocalDateTime now() {
+        return LocalDateTime.now(ZoneId.of(Constants.SL_TIME_ZONE));
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.of(Constants.SL_TIME_ZONE)).toInstant().toEpochMilli();
+    }
+
+    private record DueRenewal(Long serviceId, LocalDateTime nextCycleStartDate) {
+    }
+}
@@ -5,38 +5,45 @@ import com.axonect.aee.template.baseapp.application.repository.BucketRepository;
 import com.axonect.aee.template.baseapp.application.repository.PlanRepository;
 import com.axonect.aee.template.baseapp.application.repository.PlanToBucketRepository;
 import com.axonect.aee.template.baseapp.application.repository.QOSProfileRepository;
+import com.axonect.aee.template.baseapp.application.repository.RenewalPlanRepository;
 import com.axonect.aee.template.baseapp.application.repository.ServiceInstanceRepository;
-import com.axonect.aee.template.baseapp.application.repository.ServiceProcessingFailureRepository;
 import com.axonect.aee.template.baseapp.application.repository.UserRepository;
 import com.axonect.aee.template.baseapp.domain.entities.repo.Bucket;
 import com.axonect.aee.template.baseapp.domain.entities.repo.BucketInstance;
 import com.axonect.aee.template.baseapp.domain.entities.repo.Plan;
 import com.axonect.aee.template.baseapp.domain.entities.repo.PlanToBucket;
 import com.axonect.aee.template.baseapp.domain.entities.repo.QOSProfile;
+import com.axonect.aee.template.baseapp.domain.entities.repo.RenewalPlan;
 import com.axonect.aee.template.baseapp.domain.entities.repo.ServiceInstance;
 import com.axonect.aee.template.baseapp.domain.entities.repo.ServiceProcessingFailure;
 import com.axonect.aee.template.baseapp.domain.entities.repo.UserEntity;
 import com.axonect.aee.template.baseapp.domain.entities.dto.Balance;
+import com.axonect.aee.template.baseapp.domain.entities.dto.DueServiceKey;
+import com.axonect.aee.template.baseapp.domain.entities.dto.ReactivationSummary;
 import com.axonect.aee.template.baseapp.domain.entities.dto.UserSessionData;
 import com.axonect.aee.template.baseapp.domain.exception.AAAException;
+import com.axonect.aee.template.baseapp.domain.exception.ReferenceDataException;
 import com.axonect.aee.template.baseapp.domain.util.Constants;
 import com.axonect.aee.template.baseapp.domain.util.LogMessages;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -45,10 +52,24 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -57,6 +78,31 @@ import java.util.stream.Collectors;
 @SuppressWarnings("java:S6813")
 public class RecurrentServiceService {
 
+    public static final String JOB_NAME = "RECURRENT_SERVICE_REACTIVATION";
+    public static final String CATCH_UP_JOB_NAME = "RECURRENT_SERVICE_CATCH_UP";
+
+    /**
+     * ERROR_TYPE of a failure record whose provisioning was committed but whose cache update failed.
+     */
+    public static final String CACHE_UPDATE_FAILED = "CacheUpdateFailed";
+
+    private static final int USERNAME_WINDOW = 1000;
+    private static final int PLAN_WINDOW = 1000;
+    private static final int LOCK_WINDOW = 1000;
+
+    // How often a paced run shared through job-lease re-reads the due count and the lease owners
+    private static final Duration PACING_SAMPLE_INTERVAL = Duration.ofSeconds(30);
+
+    private static final String STATUS_PLANNED = "PLANNED";
+    private static final String STATUS_APPLIED = "APPLIED";
+    private static final String STATUS_STALE = "STALE";
+
+    // Raised for every service of a plan without quota, so preallocated and without a stack trace
+    private static final AAAException NO_QUOTA_DETAILS_FOR_SERVICE = new ReferenceDataException(
+            LogMessages.ERROR_NOT_FOUND, "NO_QUOTA_DETAILS_FOUND_FOR_SERVICE", HttpStatus.NOT_FOUND);
+    private static final AAAException NO_QUOTA_DETAILS_FOR_PLAN = new ReferenceDataException(
+            LogMessages.ERROR_NOT_FOUND, "NO_QUOTA_DETAILS_FOUND", HttpStatus.NOT_FOUND);
+
     private final UserRepository userRepository;
     private final ServiceInstanceRepository serviceInstanceRepository;
     private final PlanRepository planRepository;
@@ -65,138 +111,1620 @@ public class RecurrentServiceService {
     private final QOSProfileRepository qosProfileRepository;
     private final BucketInstanceRepository bucketInstanceRepository;
     private final UserCacheService userCacheService;
-    private final ServiceProcessingFailureRepository serviceProcessingFailureRepository;
+    private final JobPartitionLeaseService jobPartitionLeaseService;
+    private final JobCheckpointService jobCheckpointService;
+    private final JobShutdownCoordinator jobShutdownCoordinator;
+
+    private final RenewalPlanRepository renewalPlanRepository;
+    private final AdaptiveChunkSizing adaptiveChunkSizing;
+    private final DbLoadGovernor dbLoadGovernor;
+    private final JobTunables jobTunables;
+    private final TunableCronScheduler tunableCronScheduler;
+    private final JobExecutionRegistry jobExecutionRegistry;
+    private final ServiceFailureSink serviceFailureSink;
 
     @Autowired
     @Lazy
     private RecurrentServiceService self;
 
-    @Value("${recurrent-service.chunk-size}")
-    private int chunkSize;
+    private final ProvisioningWrites repositoryWrites = new RepositoryWrites();
+    private final ProvisioningTemplateCache provisioningTemplates = new ProvisioningTemplateCache();
+
+    // Renewal runs in progress on this replica, whichever way they were started
+    private final AtomicInteger activeRenewals = new AtomicInteger();
+
+    // Batch IDs of the nightly and resumed runs in progress on this replica
+    private final Set<String> runningBatches = ConcurrentHashMap.newKeySet();
+
+    // Batches whose failures are handed back to the caller instead of recorded, keyed by batch ID
+    private final Map<String, Map<Long, Exception>> capturedFailures = new ConcurrentHashMap<>();
+
+    // In-run retries of transient failures, keyed by the batch ID of the run
+    private final Map<String, TransientRetryQueue<TransientRetry>> transientRetries = new ConcurrentHashMap<>();
+
+    // Broken plans found by the pre-flight check of a run, keyed by the batch ID of the run
+    private final Map<String, PlanIntegrity> planIntegrity = new ConcurrentHashMap<>();
+
+    // Leads of the shared group plans of a run, keyed by the batch ID of the run
+    private final Map<String, GroupShares> groupShares = new ConcurrentHashMap<>();
+
+    @Value("${recurrent-service.parallel.enabled:false}")
+    private boolean parallelEnabled;
+
+    @Value("${recurrent-service.parallel.partitions:32}")
+    private int partitionCount;
+
+    @Value("${recurrent-service.chunk-transactions.enabled:false}")
+    private boolean chunkTransactionsEnabled;
+
+    @Value("${recurrent-service.pipeline.enabled:false}")
+    private boolean pipelineEnabled;
+
+    @Value("${recurrent-service.pipeline.reader-workers:1}")
+    private int pipelineReaderWorkers;
+
+    @Value("${recurrent-service.pipeline.reference-workers:2}")
+    private int pipelineReferenceWorkers;
+
+    @Value("${recurrent-service.pipeline.writer-workers:4}")
+    private int pipelineWriterWorkers;
+
+    @Value("${recurrent-service.pipeline.cache-workers:8}")
+    private int pipelineCacheWorkers;
+
+    @Value("${recurrent-service.pipeline.queue-capacity:4}")
+    private int pipelineQueueCapacity;
+
+    @Value("${recurrent-service.pipeline.report-interval-seconds:30}")
+    private long pipelineReportIntervalSeconds;
+
+    @Value("${recurrent-service.catch-up.before-nightly-run:false}")
+    private boolean catchUpBeforeNightlyRun;
+
+    @Value("${recurrent-service.pacing.enabled:false}")
+    private boolean pacingEnabled;
+
+    @Value("${recurrent-service.lanes.enabled:false}")
+    private boolean lanesEnabled;
+
+    @Value("${recurrent-service.lanes.definitions:group:group:2,default:*:4}")
+    private String laneDefinitions;
+
+    @Value("${recurrent-service.lanes.lock-stripes:256}")
+    private int laneLockStripes;
+
+    @Value("${recurrent-service.plan-apply.enabled:false}")
+    private boolean planApplyEnabled;
+
+    @Value("${recurrent-service.plan-apply.days-ahead:2}")
+    private long planDaysAhead;
+
+    @Value("${recurrent-service.plan-apply.retention-days:7}")
+    private long planRetentionDays;
+
+    @Value("${recurrent-service.spool.enabled:false}")
+    private boolean spoolEnabled;
+
+    @Value("${recurrent-service.spool.directory:${java.io.tmpdir}/recurrent-service-spool}")
+    private String spoolDirectory;
+
+    @Value("${recurrent-service.spool.fetch-size:5000}")
+    private int spoolFetchSize;
+
+    @Value("${recurrent-service.spool.progress-interval-seconds:30}")
+    private long spoolProgressIntervalSeconds;
+
+    @Value("${recurrent-service.targeted.workers:4}")
+    private int targetedWorkers;
+
+    @Value("${recurrent-service.plan-check.enabled:true}")
+    private boolean planCheckEnabled;
+
+    @Value("${recurrent-service.transient-retry.enabled:true}")
+    private boolean transientRetryEnabled;
+
+    @Value("${recurrent-service.transient-retry.max-attempts:3}")
+    private int transientRetryMaxAttempts;
+
+    @Value("${recurrent-service.transient-retry.backoff-ms:500}")
+    private long transientRetryBackoffMillis;
+
+    @Value("${recurrent-service.group-provisioning.enabled:false}")
+    private boolean groupProvisioningEnabled;
+
+    @PostConstruct
+    void schedulePlanning() {
+        tunableCronScheduler.schedule(JobTunables.RECURRENT_PLAN_SCHEDULE, this::planUpcomingRenewals);
+    }
 
     //todo need to set scheduling proccess 12.30AM time
     public void reactivateExpiredRecurrentServices() {
-        // Generate unique batch ID for this processing run
+        LocalDate dueDate = LocalDate.now(ZoneId.of(Constants.SL_TIME_ZONE)).plusDays(1);
+        if (catchUpBeforeNightlyRun) {
+            catchUpOverdueServices(dueDate, jobExecutionRegistry.current(JOB_NAME));
+        }
+        reactivateServicesDueOn(dueDate);
+    }
+
+    /**
+     * Catch-up mode: renews every recurring service whose next cycle should already have started,
+     * e.g. after the scheduler was down for several days. Each service is rolled forward through all
+     * missed cycles in one pass, so the whole backlog is cleared by a single run.
+     */
+    public void catchUpOverdueRecurrentServices() {
+        catchUpOverdueServices(LocalDate.now(ZoneId.of(Constants.SL_TIME_ZONE)).plusDays(1),
+                jobExecutionRegistry.current(CATCH_UP_JOB_NAME));
+    }
+
+    private void catchUpOverdueServices(LocalDate nextDueDate, JobExecution execution) {
+        if (!jobShutdownCoordinator.enter()) {
+            log.warn("Shutdown in progress, catch-up of overdue services not started");
+            return;
+        }
+        activeRenewals.incrementAndGet();
+        try {
+            runCatchUp(nextDueDate, execution);
+        } finally {
+            activeRenewals.decrementAndGet();
+            serviceFailureSink.flush();
+            jobShutdownCoordinator.exit();
+        }
+    }
+
+    private void runCatchUp(LocalDate nextDueDate, JobExecution execution) {
+        String batchId = UUID.randomUUID().toString();
+        LocalDateTime dueBefore = nextDueDate.atStartOfDay();
+        LocalDateTime now = LocalDateTime.now(ZoneId.of(Constants.SL_TIME_ZONE));
+        log.info("Catch-up of recurrent services due before {} started with batch ID: {}", dueBefore, batchId);
+
+        ProcessingResults results = new ProcessingResults();
+        execution.track(-1, () -> (long) results.getSuccessCount() + results.getFailureCount(),
+                results::getFailureCount);
+        long lastId = 0L;
+        List<ServiceInstance> services;
+        int requested;
+        do {
+            requested = chunkSize();
+            services = serviceInstanceRepository.findOverdueRecurringServicesAfterId(dueBefore, now, lastId, requested);
+            if (services.isEmpty()) {
+                break;
+            }
+            log.info("Catching up {} overdue services (after ID {})", services.size(), lastId);
+            lastId = services.get(services.size() - 1).getId();
+
+            BatchData batchData = loadBatchData(services);
+            for (ServiceInstance serviceInstance : services) {
+                UserEntity user = batchData.userMap.get(serviceInstance.getUsername());
+                Plan plan = batchData.planMap.get(serviceInstance.getPlanId());
+
+                if (!validateServiceData(serviceInstance, user, plan, batchId)) {
+                    results.incrementFailure();
+                    continue;
+                }
+                catchUpServiceInstance(serviceInstance, user, plan, batchData, dueBefore, batchId, results);
+            }
+        } while (services.size() == requested && !jobShutdownCoordinator.isStopRequested()
+                && !execution.isCancelRequested());
+
+        log.info("Catch-up of overdue recurrent services Completed. Success: {}, Failures: {}",
+                results.getSuccessCount(), results.getFailureCount());
+    }
+
+    @SuppressWarnings("java:S107")
+    private void catchUpServiceInstance(ServiceInstance serviceInstance, UserEntity user, Plan plan,
+                                        BatchData batchData, LocalDateTime dueBefore, String batchId,
+                                        ProcessingResults results) {
+        ProvisionedService caughtUp;
+        try {
+            caughtUp = self.catchUpServiceInstanceInTransaction(
+                    serviceInstance, user, plan,
+                    batchData.bucketInstanceMap.get(serviceInstance.getId()),
+                    batchData.planToBucketMap.get(plan.getPlanId()),
+                    batchData.bucketMap,
+                    batchData.qosProfileMap,
+                    dueBefore
+            );
+        } catch (Exception ex) {
+            results.incrementFailure();
+            log.error("Failed to catch up service ID: {} for user: {}. Error: {}",
+                    serviceInstance.getId(), user.getUserName(), ex.getMessage(), ex);
+            recordFailure(serviceInstance, plan, user.getUserName(), ex, batchId);
+            return;
+        }
+        if (caughtUp == null) {
+            log.info("Service ID: {} was renewed elsewhere meanwhile, not caught up", serviceInstance.getId());
+            return;
+        }
+        // Only committed buckets reach the cache
+        applyCacheUpdate(new ProvisionedUser(caughtUp.cacheUsername(), List.of(caughtUp)), batchId, results);
+    }
+
+    /**
+     * Continues a lease-coordinated run started by this or another replica.
+     *
+     * @param runKey the run key (ISO due date) from JOB_PARTITION_LEASE
+     */
+    public void resumeLeasedRun(String runKey) {
+        reactivateServicesDueOn(LocalDate.parse(runKey));
+    }
+
+    /**
+     * Targeted reactivation: renews the services of the given users that are due on the given date,
+     * through the same provisioning path as the nightly run, so a few subscribers can be fixed without
+     * re-running the whole day. Usernames are read in IN-list windows of {@value #USERNAME_WINDOW},
+     * processed by recurrent-service.targeted.workers virtual threads; a user's services stay in one window.
+     */
+    public ReactivationSummary reactivateServicesForUsers(Collection<String> usernames, LocalDate dueDate) {
+        List<String> distinctUsernames = usernames.stream()
+                .filter(username -> username != null && !username.isBlank())
+                .map(String::trim)
+                .distinct()
+                .toList();
         String batchId = UUID.randomUUID().toString();
+        ProcessingResults results = new ProcessingResults();
+        AtomicInteger servicesFound = new AtomicInteger();
+
+        if (!jobShutdownCoordinator.enter()) {
+            throw new AAAException(LogMessages.ERROR_INTERNAL_ERROR,
+                    "Shutdown in progress, targeted reactivation not started", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        activeRenewals.incrementAndGet();
+        try {
+            log.info("Targeted reactivation of {} users for {} started with batch ID: {}",
+                    distinctUsernames.size(), dueDate, batchId);
+            LocalDateTime dayStart = dueDate.atStartOfDay();
+            AtomicInteger nextWindow = new AtomicInteger();
+            int windows = (distinctUsernames.size() + USERNAME_WINDOW - 1) / USERNAME_WINDOW;
+            int workers = Math.max(1, Math.min(targetedWorkers, windows));
+
+            startTransientRetries(batchId);
+            startGroupShares(batchId);
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int worker = 0; worker < workers; worker++) {
+                    executor.submit(() -> {
+                        int window;
+                        while ((window = nextWindow.getAndIncrement()) < windows) {
+                            List<String> windowUsernames = distinctUsernames.subList(window * USERNAME_WINDOW,
+                                    Math.min((window + 1) * USERNAME_WINDOW, distinctUsernames.size()));
+                            servicesFound.addAndGet(reactivateUsernameWindow(windowUsernames, dayStart, batchId,
+                                    results));
+                        }
+                    });
+                }
+            }
+            finishTransientRetries(batchId);
+            finishGroupShares(batchId);
+        } finally {
+            activeRenewals.decrementAndGet();
+            serviceFailureSink.flush();
+            jobShutdownCoordinator.exit();
+        }
+
+        log.info("Targeted reactivation Completed. Services: {}, Success: {}, Failures: {} (batch ID: {})",
+                servicesFound.get(), results.getSuccessCount(), results.getFailureCount(), batchId);
+        return ReactivationSummary.builder()
+                .batchId(batchId)
+                .users(distinctUsernames.size())
+                .servicesFound(servicesFound.get())
+                .successCount(results.getSuccessCount())
+                .failureCount(results.getFailureCount())
+                .build();
+    }
+
+    private int reactivateUsernameWindow(List<String> usernames, LocalDateTime dayStart, String batchId,
+                                         ProcessingResults results) {
+        List<ServiceInstance> services;
+        try (DbLoadGovernor.Permit permit = dbLoadGovernor.acquire()) {
+            services = serviceInstanceRepository.findDueRecurringServicesByUsernameIn(
+                    usernames, dayStart, dayStart.plusDays(1), dayStart);
+        }
+        // Ordered by username, so chunks processed one after another keep each user's services in order
+        int from = 0;
+        while (from < services.size()) {
+            int to = Math.min(from + chunkSize(), services.size());
+            List<ServiceInstance> chunk = services.subList(from, to);
+            try {
+                processServicesInBatch(chunk, loadBatchData(chunk), batchId, results);
+            } catch (Exception ex) {
+                // Per-service failures are handled inside; this only covers reference data errors
+                log.error("Targeted reactivation of {} services failed. Error: {}", chunk.size(), ex.getMessage(), ex);
+                for (ServiceInstance service : chunk) {
+                    results.incrementFailure();
+                    recordFailure(service, null, service.getUsername(), ex, batchId);
+                }
+            }
+            from = to;
+        }
+        return services.size();
+    }
+
+    private void reactivateServicesDueOn(LocalDate dueDate) {
+        if (!jobShutdownCoordinator.enter()) {
+            log.warn("Shutdown in progress, reactivation for {} not started", dueDate);
+            return;
+        }
+        activeRenewals.incrementAndGet();
+        try {
+            runReactivation(dueDate);
+        } finally {
+            activeRenewals.decrementAndGet();
+            serviceFailureSink.flush();
+            jobShutdownCoordinator.exit();
+        }
+    }
+
+    private void runReactivation(LocalDate dueDate) {
+        // Reuse the batch ID of an interrupted run for the same due date, otherwise generate a new one
+        String runKey = dueDate.toString();
+        String batchId = jobCheckpointService.resolveBatchId(JOB_NAME, runKey);
+        // The in-run state (transient retries, plan check, group leads) is kept per batch ID
+        if (!runningBatches.add(batchId)) {
+            log.warn("Reactivation for {} with batch ID: {} already running on this replica, not started again",
+                    dueDate, batchId);
+            return;
+        }
+        try {
+            runReactivation(dueDate, runKey, batchId);
+        } finally {
+            runningBatches.remove(batchId);
+        }
+    }
+
+    private void runReactivation(LocalDate dueDate, String runKey, String batchId) {
         log.info("Reactivate expired recurrent services started with batch ID: {}", batchId);
+        startTransientRetries(batchId);
+        startGroupShares(batchId);
+
+        LocalDateTime dayStart = dueDate.atStartOfDay();
+        LocalDateTime dayEnd = dayStart.plusDays(1);
+        if (planCheckEnabled) {
+            checkPlans(serviceInstanceRepository.findDistinctDuePlanIds(dayStart, dayEnd, dayStart), batchId);
+        }
+
+        ProcessingResults results = new ProcessingResults();
+        JobExecution execution = jobExecutionRegistry.current(JOB_NAME);
+        if (execution.isTracked()) {
+            // With job-lease the due set is shared with other replicas, so the total is not this replica's
+            long total = jobPartitionLeaseService.isEnabled()
+                    ? -1 : serviceInstanceRepository.countDueRecurringServices(dayStart, dayEnd, dayStart);
+            execution.track(total, () -> (long) results.getSuccessCount() + results.getFailureCount(),
+                    results::getFailureCount);
+        }
+
+        PartitionSource partitionSource;
+        if (jobPartitionLeaseService.isEnabled()) {
+            // Share the run with the other replicas: partitions are claimed through JOB_PARTITION_LEASE
+            partitionSource = PartitionSource.leased(jobPartitionLeaseService, JOB_NAME, runKey, partitionCount);
+        } else if (parallelEnabled) {
+            partitionSource = PartitionSource.local(partitionCount);
+        } else {
+            partitionSource = PartitionSource.local(1);
+        }
+        partitionSource = PartitionSource.checkpointed(partitionSource, jobCheckpointService, jobShutdownCoordinator,
+                execution, JOB_NAME, runKey, batchId);
+        // The failures of a chunk are on record before progress past them is
+        partitionSource = PartitionSource.flushingFailures(partitionSource, serviceFailureSink);
+        if (pacingEnabled) {
+            partitionSource = pacedToWindow(partitionSource, dayStart, dayEnd, runKey, results);
+        }
+
+        if (spoolEnabled && !jobPartitionLeaseService.isEnabled()) {
+            processSpooled(dueDate, partitionSource, batchId, results);
+        } else if (lanesEnabled && !jobPartitionLeaseService.isEnabled()) {
+            processLaned(dayStart, dayEnd, partitionSource, batchId, results);
+        } else if (pipelineEnabled) {
+            processPipelined(dayStart, dayEnd, partitionSource, batchId, results);
+        } else if (jobPartitionLeaseService.isEnabled() || parallelEnabled) {
+            processPartitions(dayStart, dayEnd, partitionSource, batchId, results);
+        } else {
+            Integer partition = partitionSource.next();
+            if (partition != null) {
+                processPartition(dayStart, dayEnd, partition, partitionSource, batchId, results);
+                partitionSource.complete(partition);
+            }
+        }
+        finishTransientRetries(batchId);
+        finishGroupShares(batchId);
+        logSkippedPlans(batchId);
+
+        log.info("Reactivate expired recurrent services Completed. Success: {}, Failures: {}",
+                results.getSuccessCount(), results.getFailureCount());
+    }
+
+    /**
+     * Spreads the run evenly until recurrent-service.pacing.window-end (the next occurrence of that time)
+     * instead of running as fast as the database allows. Pacing applies at every chunk boundary,
+     * and so does a window end changed through {@link JobTunables} while the run is going.
+     * With job-lease enabled the replicas pace on the count still due for the whole run, each taking its
+     * share of the rate by the number of replicas holding a lease on the run.
+     */
+    private PartitionSource pacedToWindow(PartitionSource partitionSource, LocalDateTime dayStart,
+                                          LocalDateTime dayEnd, String runKey, ProcessingResults results) {
+        LocalDateTime runStart = LocalDateTime.now(ZoneId.of(Constants.SL_TIME_ZONE));
+        Supplier<Duration> remainingWindow =
+                () -> Duration.between(LocalDateTime.now(ZoneId.of(Constants.SL_TIME_ZONE)), pacingWindowEnd(runStart));
+        LongSupplier processed = () -> (long) results.getSuccessCount() + results.getFailureCount();
+
+        long dueCount = serviceInstanceRepository.countDueRecurringServices(dayStart, dayEnd, dayStart);
+        log.info("Pacing {} due services to finish by {}", dueCount, pacingWindowEnd(runStart));
+        if (!jobPartitionLeaseService.isEnabled()) {
+            return PartitionSource.paced(partitionSource, new WindowPacer(dueCount, remainingWindow, processed));
+        }
+        // Shared run: pace on what is still due for all replicas, splitting the rate between the lease owners
+        LongSupplier stillDue = WindowPacer.sampledEvery(PACING_SAMPLE_INTERVAL,
+                () -> serviceInstanceRepository.countDueRecurringServices(dayStart, dayEnd, dayStart));
+        LongSupplier owners = WindowPacer.sampledEvery(PACING_SAMPLE_INTERVAL,
+                () -> jobPartitionLeaseService.countActiveOwners(JOB_NAME, runKey));
+        return PartitionSource.paced(partitionSource,
+                new WindowPacer(remainingWindow, stillDue, processed, () -> (int) owners.getAsLong()));
+    }
+
+    private LocalDateTime pacingWindowEnd(LocalDateTime runStart) {
+        LocalDateTime windowEnd = runStart.toLocalDate()
+                .atTime(jobTunables.getTime(JobTunables.RECURRENT_PACING_WINDOW_END));
+        return windowEnd.isAfter(runStart) ? windowEnd : windowEnd.plusDays(1);
+    }
+
+    /**
+     * Drains the partitions of the due set on a bounded set of virtual-thread workers.
+     * Each worker pulls the next partition from the source until none are left, loading its own
+     * {@link BatchData} and using its own per-service transactions.
+     * All services of a user share a partition, so per-user ordering is preserved.
+     * The worker count is read when the run starts.
+     */
+    private void processPartitions(LocalDateTime dayStart, LocalDateTime dayEnd, PartitionSource partitionSource,
+                                   String batchId, ProcessingResults results) {
+        int partitions = partitionSource.partitionCount();
+        int workers = Math.max(1, Math.min(parallelEnabled ? workerCount() : 1, partitions));
+        log.info("Processing due services in {} partitions with {} virtual-thread workers", partitions, workers);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int worker = 0; worker < workers; worker++) {
+                executor.submit(() -> {
+                    Integer partition;
+                    while ((partition = partitionSource.next()) != null) {
+                        processPartitionSafely(dayStart, dayEnd, partition, partitionSource, batchId, results);
+                    }
+                });
+            }
+        }
+    }
+
+    private void processPartitionSafely(LocalDateTime dayStart, LocalDateTime dayEnd, int partition,
+                                        PartitionSource partitionSource, String batchId, ProcessingResults results) {
+        try {
+            processPartition(dayStart, dayEnd, partition, partitionSource, batchId, results);
+            partitionSource.complete(partition);
+        } catch (Exception ex) {
+            // Per-service failures are handled inside; this only covers reader/reference data errors.
+            // The partition is not completed, so its lease expires and it is picked up again.
+            log.error("Partition {}/{} aborted. Error: {}",
+                    partition, partitionSource.partitionCount(), ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Snapshots the due set into a {@link DueServiceSpool} and processes it from the spool.
+     * The spool is the work list of this replica only, so it is not used when work is shared through leases.
+     * Workers take the records whose username hash maps to them, which keeps each user on one worker.
+     * The whole run is tracked as a single checkpoint partition; a stopped run reuses the spool on restart.
+     */
+    private void processSpooled(LocalDate dueDate, PartitionSource partitionSource, String batchId,
+                                ProcessingResults results) {
+        Integer partition = partitionSource.next();
+        if (partition == null) {
+            return;
+        }
+
+        Path spoolPath = Path.of(spoolDirectory, "reactivation-" + dueDate + ".spool");
+        DueServiceSpool spool = DueServiceSpool.openIfComplete(spoolPath, dueDate);
+        if (spool != null) {
+            log.info("Reusing spool {} with {} services", spoolPath, spool.size());
+        } else {
+            spool = writeSpool(spoolPath, dueDate);
+        }
+
+        int workers = Math.max(1, parallelEnabled ? workerCount() : 1);
+        DueServiceSpool.Progress progress = new DueServiceSpool.Progress(spool.size());
+        AtomicBoolean stopped = new AtomicBoolean();
+        AtomicBoolean aborted = new AtomicBoolean();
+        log.info("Processing {} spooled services with {} virtual-thread workers", spool.size(), workers);
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name("reactivation-spool-progress").factory());
+        if (spoolProgressIntervalSeconds > 0) {
+            reporter.scheduleAtFixedRate(() -> log.info("Reactivation progress: {}", progress.describe()),
+                    spoolProgressIntervalSeconds, spoolProgressIntervalSeconds, TimeUnit.SECONDS);
+        }
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            DueServiceSpool workList = spool;
+            for (int worker = 0; worker < workers; worker++) {
+                int slice = worker;
+                executor.submit(() -> {
+                    try {
+                        processSpoolSlice(workList, slice, workers, partition, partitionSource, progress, stopped,
+                                batchId, results);
+                    } catch (Exception ex) {
+                        // Per-service failures are handled inside; stop so the spool is kept for the next run
+                        aborted.set(true);
+                        stopped.set(true);
+                        log.error("Spool worker {}/{} aborted. Error: {}", slice, workers, ex.getMessage(), ex);
+                    }
+                });
+            }
+        } finally {
+            reporter.shutdownNow();
+        }
+        log.info("Reactivation progress: {}", progress.describe());
+
+        if (!aborted.get()) {
+            // Records COMPLETED, or STOPPED when shutdown interrupted the run
+            partitionSource.complete(partition);
+        }
+        if (stopped.get()) {
+            spool.close();
+        } else {
+            spool.delete();
+        }
+    }
+
+    /**
+     * Processes the due set in priority lanes (recurrent-service.lanes.definitions).
+     * Each lane is ordered by cycle start and has its own workers, so high-priority renewals finish
+     * first and a slow tail only delays the lanes below. A worker whose lane is drained helps the
+     * lanes below it. Services of one user can sit in different lanes, so chunks hold striped
+     * username locks while they are provisioned.
+     */
+    private void processLaned(LocalDateTime dayStart, LocalDateTime dayEnd, PartitionSource partitionSource,
+                              String batchId, ProcessingResults results) {
+        Integer partition = partitionSource.next();
+        if (partition == null) {
+            return;
+        }
+
+        RenewalLanes lanes = RenewalLanes.parse(laneDefinitions);
+        List<List<DueServiceKey>> laneServices = readLanes(dayStart, dayEnd, lanes);
+        StripedUsernameLocks locks = new StripedUsernameLocks(laneLockStripes);
+        AtomicInteger[] cursors = new AtomicInteger[lanes.size()];
+        AtomicInteger[] done = new AtomicInteger[lanes.size()];
+        for (int lane = 0; lane < lanes.size(); lane++) {
+            cursors[lane] = new AtomicInteger();
+            done[lane] = new AtomicInteger();
+            log.info("Lane {}: {} services, {} workers", lanes.get(lane).name(), laneServices.get(lane).size(),
+                    lanes.get(lane).workers());
+        }
+
+        long startNanos = System.nanoTime();
+        AtomicBoolean stopped = new AtomicBoolean();
+        AtomicBoolean aborted = new AtomicBoolean();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int lane = 0; lane < lanes.size(); lane++) {
+                for (int worker = 0; worker < lanes.get(lane).workers(); worker++) {
+                    int homeLane = lane;
+                    executor.submit(() -> {
+                        try {
+                            for (int current = homeLane; current < lanes.size() && !stopped.get(); current++) {
+                                processLane(laneServices.get(current), cursors[current], done[current],
+                                        lanes.get(current).name(), startNanos, locks, partition, partitionSource,
+                                        stopped, batchId, results);
+                            }
+                        } catch (Exception ex) {
+                            aborted.set(true);
+                            stopped.set(true);
+                            log.error("Lane worker of {} aborted. Error: {}", lanes.get(homeLane).name(),
+                                    ex.getMessage(), ex);
+                        }
+                    });
+                }
+            }
+        }
+
+        if (!aborted.get()) {
+            // Records COMPLETED, or STOPPED when shutdown interrupted the run
+            partitionSource.complete(partition);
+        }
+    }
+
+    private List<List<DueServiceKey>> readLanes(LocalDateTime dayStart, LocalDateTime dayEnd, RenewalLanes lanes) {
+        List<DueServiceKey> keys = new ArrayList<>();
+        long lastId = 0L;
+        List<DueServiceKey> page;
+        do {
+            page = serviceInstanceRepository.findDueRecurringServiceKeysAfterId(
+                    dayStart, dayEnd, dayStart, lastId, PageRequest.of(0, spoolFetchSize));
+            keys.addAll(page);
+            if (!page.isEmpty()) {
+                lastId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == spoolFetchSize);
+
+        Set<String> planIds = keys.stream().map(DueServiceKey::getPlanId).collect(Collectors.toSet());
+        Map<String, String> planTypes = planRepository.findByPlanIdIn(planIds).stream()
+                .collect(Collectors.toMap(Plan::getPlanId, Plan::getPlanType, (p1, p2) -> p1));
+
+        List<List<DueServiceKey>> laneServices = new ArrayList<>();
+        for (int lane = 0; lane < lanes.size(); lane++) {
+            laneServices.add(new ArrayList<>());
+        }
+        for (DueServiceKey key : keys) {
+            laneServices.get(lanes.classify(key, planTypes.get(key.getPlanId()))).add(key);
+        }
+        Comparator<DueServiceKey> earliestFirst = Comparator.comparing(DueServiceKey::getNextCycleStartDate)
+                .thenComparing(DueServiceKey::getId);
+        laneServices.forEach(services -> services.sort(earliestFirst));
+        return laneServices;
+    }
+
+    @SuppressWarnings("java:S107")
+    private void processLane(List<DueServiceKey> services, AtomicInteger cursor, AtomicInteger done, String laneName,
+                             long startNanos, StripedUsernameLocks locks, int partition,
+                             PartitionSource partitionSource, AtomicBoolean stopped, String batchId,
+                             ProcessingResults results) {
+        while (!stopped.get()) {
+            int size = chunkSize();
+            int from = cursor.getAndAdd(size);
+            if (from >= services.size()) {
+                break;
+            }
+            List<DueServiceKey> chunk = services.subList(from, Math.min(from + size, services.size()));
+            Map<Long, LocalDateTime> expectedDates = new HashMap<>();
+            for (DueServiceKey key : chunk) {
+                expectedDates.put(key.getId(), key.getNextCycleStartDate().truncatedTo(ChronoUnit.SECONDS));
+            }
+
+            try (StripedUsernameLocks.Held held = locks.lockAll(
+                    chunk.stream().map(DueServiceKey::getUsername).toList())) {
+                processServicesStillDue(expectedDates, batchId, results);
+            }
+
+            if (done.addAndGet(chunk.size()) == services.size()) {
+                log.info("Lane {} finished {} services in {} s", laneName, services.size(),
+                        TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos));
+            }
+            if (!partitionSource.renew(partition)) {
+                stopped.set(true);
+            }
+        }
+    }
+
+    /**
+     * Plan phase of plan-then-apply: computes the renewals of services due in days-ahead days
+     * (cycle dates, new quota and carry-forward buckets) and stores them as change sets in RENEWAL_PLAN.
+     * Nothing is written to the service and bucket tables, so this can run during the day; the nightly
+     * run then only verifies and writes the planned rows.
+     */
+    public int planUpcomingRenewals() {
+        if (!planApplyEnabled) {
+            log.info("Renewal planning skipped, recurrent-service.plan-apply.enabled is false");
+            return 0;
+        }
+        return planRenewalsDueOn(LocalDate.now(ZoneId.of(Constants.SL_TIME_ZONE)).plusDays(planDaysAhead));
+    }
+
+    public int planRenewalsDueOn(LocalDate dueDate) {
+        if (!jobShutdownCoordinator.enter()) {
+            log.warn("Shutdown in progress, renewal planning for {} not started", dueDate);
+            return 0;
+        }
+        try {
+            int purged = self.purgeRenewalPlans(dueDate.minusDays(planRetentionDays));
+            if (purged > 0) {
+                log.info("Purged {} renewal plans older than {} days", purged, planRetentionDays);
+            }
+
+            LocalDateTime dayStart = dueDate.atStartOfDay();
+            AtomicInteger planned = new AtomicInteger();
+            log.info("Planning renewals of services due on {}", dueDate);
+            readPartition(dayStart, dayStart.plusDays(1), 0, PartitionSource.local(1), 0L, null,
+                    services -> planned.addAndGet(planChunk(services, dueDate)));
+            log.info("Planned {} renewals of services due on {}", planned.get(), dueDate);
+            return planned.get();
+        } finally {
+            jobShutdownCoordinator.exit();
+        }
+    }
+
+    private int planChunk(List<ServiceInstance> services, LocalDate dueDate) {
+        BatchData batchData = loadBatchData(services);
+        List<RenewalPlan> plans = new ArrayList<>();
+
+        for (ServiceInstance serviceInstance : services) {
+            UserEntity user = batchData.userMap.get(serviceInstance.getUsername());
+            Plan plan = batchData.planMap.get(serviceInstance.getPlanId());
+            if (user == null || plan == null) {
+                // Left to the nightly run, which records the failure
+                continue;
+            }
+
+            try {
+                List<BucketInstance> bucketInstances = batchData.bucketInstanceMap.get(serviceInstance.getId());
+                LocalDateTime expectedCycleStart = serviceInstance.getNextCycleStartDate();
+                String fingerprint = renewalFingerprint(serviceInstance, user, plan, bucketInstances);
+
+                // Runs the regular provisioning code on detached copies, capturing the writes
+                RecordingWrites recording = new RecordingWrites();
+                provisionServiceInstance(serviceInstance, user, plan, bucketInstances,
+                        batchData.planToBucketMap.get(plan.getPlanId()), batchData.bucketMap,
+                        batchData.qosProfileMap, recording);
+
+                plans.add(RenewalPlan.builder()
+                        .serviceId(serviceInstance.getId())
+                        .dueDate(dueDate)
+                        .username(serviceInstance.getUsername())
+                        .expectedCycleStart(expectedCycleStart)
+                        .fingerprint(fingerprint)
+                        .changeSet(recording.toChangeSet(serviceInstance).toJson())
+                        .status(STATUS_PLANNED)
+                        .build());
+            } catch (Exception ex) {
+                log.debug("Renewal of service ID: {} not planned, left to the nightly run: {}",
+                        serviceInstance.getId(), ex.getMessage());
+            }
+        }
+
+        if (!plans.isEmpty()) {
+            self.saveRenewalPlans(dueDate, plans);
+        }
+        return plans.size();
+    }
+
+    /**
+     * Replaces earlier plans of the same services and due date.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void saveRenewalPlans(LocalDate dueDate, List<RenewalPlan> plans) {
+        Map<Long, RenewalPlan> existing = renewalPlanRepository.findByDueDateAndServiceIdIn(dueDate,
+                        plans.stream().map(RenewalPlan::getServiceId).toList()).stream()
+                .collect(Collectors.toMap(RenewalPlan::getServiceId, p -> p));
+        for (RenewalPlan plan : plans) {
+            RenewalPlan previous = existing.get(plan.getServiceId());
+            if (previous != null) {
+                plan.setId(previous.getId());
+                plan.setCreatedAt(previous.getCreatedAt());
+            }
+        }
+        renewalPlanRepository.saveAll(plans);
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int purgeRenewalPlans(LocalDate dueBefore) {
+        return renewalPlanRepository.deleteByDueDateBefore(dueBefore);
+    }
+
+    /**
+     * Apply phase of plan-then-apply. Services with a plan whose preconditions still hold are renewed by
+     * writing the planned rows; the others are returned for regular provisioning and their plans marked STALE.
+     * Applied services are added to {@code committed}; their cache entries are updated with the rest of
+     * the chunk after commit.
+     *
+     * @return Services still to be provisioned
+     */
+    private List<ServiceInstance> applyRenewalPlans(List<ServiceInstance> services, BatchData batchData,
+                                                    String batchId, List<ProvisionedService> committed) {
+        Map<Long, RenewalPlan> plans = renewalPlanRepository.findByServiceIdInAndStatus(
+                        services.stream().map(ServiceInstance::getId).toList(), STATUS_PLANNED).stream()
+                .collect(Collectors.toMap(RenewalPlan::getServiceId, p -> p, (p1, p2) -> p1));
+        if (plans.isEmpty()) {
+            return services;
+        }
+
+        List<ServiceInstance> remaining = new ArrayList<>();
+        List<Long> stalePlanIds = new ArrayList<>();
+        for (ServiceInstance serviceInstance : services) {
+            RenewalPlan renewalPlan = plans.get(serviceInstance.getId());
+            if (renewalPlan == null) {
+                remaining.add(serviceInstance);
+                continue;
+            }
+
+            UserEntity user = batchData.userMap.get(serviceInstance.getUsername());
+            Plan plan = batchData.planMap.get(serviceInstance.getPlanId());
+            boolean preconditionsHold = user != null && plan != null
+                    && renewalPlan.getExpectedCycleStart().equals(serviceInstance.getNextCycleStartDate())
+                    && renewalPlan.getFingerprint().equals(renewalFingerprint(serviceInstance, user, plan,
+                            batchData.bucketInstanceMap.get(serviceInstance.getId())));
+            if (!preconditionsHold) {
+                stalePlanIds.add(renewalPlan.getId());
+                remaining.add(serviceInstance);
+                continue;
+            }
+
+            try {
+                committed.add(self.applyRenewalPlanInTransaction(renewalPlan, plan));
+            } catch (Exception ex) {
+                log.warn("Planned renewal of service ID: {} could not be applied, provisioning normally: {}",
+                        serviceInstance.getId(), ex.getMessage());
+                stalePlanIds.add(renewalPlan.getId());
+                remaining.add(serviceInstance);
+            }
+        }
+
+        if (!stalePlanIds.isEmpty()) {
+            log.info("{} renewal plans stale in batch {}, provisioning those services normally",
+                    stalePlanIds.size(), batchId);
+            self.markRenewalPlans(stalePlanIds, STATUS_STALE);
+        }
+        return remaining;
+    }
+
+    /**
+     * Writes a planned renewal: new cycle dates, planned bucket inserts and carry-forward updates.
+     * The service is locked first and must still start the planned cycle, so a service renewed elsewhere
+     * meanwhile fails here and is provisioned (and skipped) by the regular path.
+     *
+     * @return The renewed service with its new buckets, for the cache update after commit
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW,
+            timeoutString = "${recurrent-service.transaction-timeout.service-seconds:60}")
+    public ProvisionedService applyRenewalPlanInTransaction(RenewalPlan renewalPlan, Plan plan) {
+        Long serviceId = renewalPlan.getServiceId();
+        RenewalChangeSet changeSet = RenewalChangeSet.fromJson(renewalPlan.getChangeSet());
+        ServiceInstance serviceInstance = serviceInstanceRepository.lockAllById(List.of(serviceId)).stream()
+                .findFirst()
+                .orElseThrow(() -> new AAAException(LogMessages.ERROR_NOT_FOUND, "SERVICE_NOT_FOUND",
+                        HttpStatus.NOT_FOUND));
+        if (!renewalPlan.getExpectedCycleStart().equals(serviceInstance.getNextCycleStartDate())) {
+            throw new IllegalStateException("Service was renewed since it was planned");
+        }
+        serviceInstance.setServiceStartDate(changeSet.serviceStartDate());
+        serviceInstance.setServiceCycleStartDate(changeSet.serviceCycleStartDate());
+        serviceInstance.setServiceCycleEndDate(changeSet.serviceCycleEndDate());
+        serviceInstance.setNextCycleStartDate(changeSet.nextCycleStartDate());
+        serviceInstanceRepository.save(serviceInstance);
+
+        bucketInstanceRepository.saveAll(changeSet.updatedBuckets());
+        List<BucketInstance> newBuckets = bucketInstanceRepository.saveAll(changeSet.insertedBuckets());
+        renewalPlanRepository.updateStatus(List.of(renewalPlan.getId()), STATUS_APPLIED);
+
+        log.debug("Applied planned renewal of service instance ID: {}", serviceId);
+        return new ProvisionedService(serviceInstance, plan, newBuckets, serviceInstance.getUsername());
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void markRenewalPlans(List<Long> renewalPlanIds, String status) {
+        renewalPlanRepository.updateStatus(renewalPlanIds, status);
+    }
+
+    /**
+     * Hash of everything a planned renewal depends on: the service's cycle and expiry, the user's billing,
+     * the plan definition and the state of the service's buckets. Any change between planning and
+     * applying (usage, top-up, plan edit) makes the plan stale.
+     */
+    private String renewalFingerprint(ServiceInstance serviceInstance, UserEntity user, Plan plan,
+                                      List<BucketInstance> bucketInstances) {
+        StringBuilder state = new StringBuilder()
+                .append(serviceInstance.getNextCycleStartDate()).append('|')
+                .append(serviceInstance.getExpiryDate()).append('|')
+                .append(user.getBilling()).append('|')
+                .append(plan.getPlanId()).append('|')
+                .append(plan.getUpdatedAt());
+        if (bucketInstances != null) {
+            bucketInstances.stream()
+                    .sorted(Comparator.comparing(BucketInstance::getId))
+                    .forEach(bucket -> state.append('|').append(bucket.getId())
+                            .append(':').append(bucket.getCurrentBalance())
+                            .append(':').append(bucket.getUsage())
+                            .append(':').append(bucket.getTotalCarryForward())
+                            .append(':').append(bucket.getExpiration()));
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(state.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private DueServiceSpool writeSpool(Path spoolPath, LocalDate dueDate) {
+        LocalDateTime dayStart = dueDate.atStartOfDay();
+        LocalDateTime dayEnd = dayStart.plusDays(1);
+        long lastId = 0L;
+
+        try (DueServiceSpool.Writer writer = DueServiceSpool.create(spoolPath, dueDate)) {
+            List<DueServiceKey> keys;
+            do {
+                keys = serviceInstanceRepository.findDueRecurringServiceKeysAfterId(
+                        dayStart, dayEnd, dayStart, lastId, PageRequest.of(0, spoolFetchSize));
+                for (DueServiceKey key : keys) {
+                    writer.append(key.getId(), key.getNextCycleStartDate(), key.getUsername(),
+                            Boolean.TRUE.equals(key.getIsGroup()) ? DueServiceSpool.FLAG_GROUP : 0);
+                }
+                if (!keys.isEmpty()) {
+                    lastId = keys.get(keys.size() - 1).getId();
+                }
+            } while (keys.size() == spoolFetchSize);
+
+            DueServiceSpool spool = writer.finish();
+            log.info("Spooled {} services due on {} to {}", spool.size(), dueDate, spoolPath);
+            return spool;
+        }
+    }
+
+    @SuppressWarnings("java:S107")
+    private void processSpoolSlice(DueServiceSpool spool, int slice, int slices, int partition,
+                                   PartitionSource partitionSource, DueServiceSpool.Progress progress,
+                                   AtomicBoolean stopped, String batchId, ProcessingResults results) {
+        List<Integer> chunk = new ArrayList<>();
+        for (int index = 0; index < spool.size() && !stopped.get(); index++) {
+            if (Math.floorMod(spool.usernameHash(index), slices) != slice) {
+                continue;
+            }
+            chunk.add(index);
+            if (chunk.size() >= chunkSize()) {
+                processSpooledChunk(spool, chunk, progress, batchId, results);
+                chunk.clear();
+                if (!partitionSource.renew(partition)) {
+                    stopped.set(true);
+                }
+            }
+        }
+        if (!chunk.isEmpty() && !stopped.get()) {
+            processSpooledChunk(spool, chunk, progress, batchId, results);
+        }
+    }
+
+    /**
+     * Loads a chunk of spooled services and processes those still due as spooled.
+     * A service whose NEXT_CYCLE_START_DATE changed since the snapshot was already processed
+     * (by an earlier attempt) or modified, and is skipped.
+     */
+    private void processSpooledChunk(DueServiceSpool spool, List<Integer> chunk, DueServiceSpool.Progress progress,
+                                     String batchId, ProcessingResults results) {
+        Map<Long, LocalDateTime> spooledDates = new HashMap<>();
+        for (int index : chunk) {
+            spooledDates.put(spool.serviceId(index), spool.nextCycleStartDate(index));
+        }
+
+        processServicesStillDue(spooledDates, batchId, results);
+        progress.advance(chunk.size());
+    }
+
+    /**
+     * Renews services scheduled individually by the renewal wheel.
+     *
+     * @param dueServices Service ID to the NEXT_CYCLE_START_DATE it was scheduled for
+     * @return Number of services renewed successfully
+     */
+    public int reactivateScheduledServices(Map<Long, LocalDateTime> dueServices, String batchId) {
+        ProcessingResults results = new ProcessingResults();
+        activeRenewals.incrementAndGet();
+        try {
+            processServicesStillDue(dueServices, batchId, results);
+        } finally {
+            activeRenewals.decrementAndGet();
+        }
+        if (results.getFailureCount() > 0) {
+            log.warn("Scheduled renewal of {} services had {} failures",
+                    dueServices.size(), results.getFailureCount());
+        }
+        return results.getSuccessCount();
+    }
+
+    /**
+     * Whether a renewal run (nightly, resumed, catch-up, targeted or renewal wheel) is in progress on this
+     * replica, however it was started.
+     */
+    public boolean isRenewalRunning() {
+        return activeRenewals.get() > 0;
+    }
+
+    /**
+     * Pushes the buckets of services whose provisioning was committed but whose cache update failed.
+     * Only buckets that have not expired and are missing from the cache entry are added; buckets already
+     * in the entry are left alone, as the cache holds their live balance.
+     *
+     * @param services Services recorded with a {@value #CACHE_UPDATE_FAILED} failure
+     * @return Service ID to the exception of every service whose cache entry could not be updated
+     */
+    public Map<Long, Exception> refreshCache(List<ServiceInstance> services) {
+        Set<String> usernames = services.stream().map(ServiceInstance::getUsername).collect(Collectors.toSet());
+        Set<Long> serviceIds = services.stream().map(ServiceInstance::getId).collect(Collectors.toSet());
+        Map<String, UserEntity> userMap = userRepository.findByUserNameIn(usernames).stream()
+                .collect(Collectors.toMap(UserEntity::getUserName, u -> u));
+        Map<Long, List<BucketInstance>> bucketInstanceMap = bucketInstanceRepository.findByServiceIdIn(serviceIds)
+                .stream()
+                .collect(Collectors.groupingBy(BucketInstance::getServiceId));
+        LocalDateTime now = LocalDateTime.now(ZoneId.of(Constants.SL_TIME_ZONE));
+
+        List<ProvisionedService> current = new ArrayList<>(services.size());
+        for (ServiceInstance service : services) {
+            UserEntity user = userMap.get(service.getUsername());
+            String groupId = groupProvisioningEnabled && user != null ? GroupShares.sharedGroupId(service, user) : null;
+            List<BucketInstance> liveBuckets = bucketInstanceMap.getOrDefault(service.getId(), List.of()).stream()
+                    .filter(bucket -> bucket.getExpiration() == null || bucket.getExpiration().isAfter(now))
+                    .toList();
+            current.add(new ProvisionedService(service, null, liveBuckets,
+                    groupId != null ? groupId : service.getUsername()));
+        }
+
+        Map<Long, Exception> failures = new HashMap<>();
+        for (ProvisionedUser entry : byUser(current)) {
+            try {
+                updateUserCacheWithBuckets(entry.username(), entry.services());
+            } catch (Exception ex) {
+                log.warn("Cache refresh of {} failed. Error: {}", entry.username(), ex.getMessage());
+                entry.services().forEach(provisioned -> failures.put(provisioned.serviceInstance().getId(), ex));
+            }
+        }
+        return failures;
+    }
 
-        LocalDateTime tomorrowStart = LocalDate.now(ZoneId.of(Constants.SL_TIME_ZONE))
-                .plusDays(1)
-                .atStartOfDay();
-        LocalDateTime tomorrowEnd = tomorrowStart.plusDays(1);
+    /**
+     * Re-runs provisioning for services whose earlier processing failed, in chunks with batched
+     * reference loading. Failures are not recorded in SERVICE_PROCESSING_FAILURE; they are returned,
+     * so the caller can update the failure rows it is retrying.
+     *
+     * @param services Services to provision, already checked to be still due
+     * @return Service ID to the exception of every service that failed again
+     */
+    public Map<Long, Exception> retryServices(List<ServiceInstance> services, String batchId) {
+        Map<Long, Exception> failures = new ConcurrentHashMap<>();
+        capturedFailures.put(batchId, failures);
+        try {
+            ProcessingResults results = new ProcessingResults();
+            int from = 0;
+            while (from < services.size()) {
+                int to = Math.min(from + chunkSize(), services.size());
+                List<ServiceInstance> chunk = services.subList(from, to);
+                try {
+                    processServicesInBatch(chunk, loadBatchData(chunk), batchId, results);
+                } catch (Exception ex) {
+                    log.error("Retry of {} services failed. Error: {}", chunk.size(), ex.getMessage(), ex);
+                    chunk.forEach(service -> failures.putIfAbsent(service.getId(), ex));
+                }
+                from = to;
+            }
+        } finally {
+            capturedFailures.remove(batchId);
+        }
+        return failures;
+    }
+
+    /**
+     * Re-reads services captured earlier and processes those still due as captured. Services renewed
+     * in the meantime (their NEXT_CYCLE_START_DATE moved) or no longer recurring are skipped.
+     */
+    private void processServicesStillDue(Map<Long, LocalDateTime> expectedDates, String batchId,
+                                         ProcessingResults results) {
+        List<ServiceInstance> services = serviceInstanceRepository.findAllById(expectedDates.keySet()).stream()
+                .filter(service -> Boolean.TRUE.equals(service.getRecurringFlag())
+                        && service.getNextCycleStartDate() != null
+                        && expectedDates.get(service.getId())
+                                .equals(service.getNextCycleStartDate().truncatedTo(ChronoUnit.SECONDS)))
+                .sorted(Comparator.comparing(ServiceInstance::getId))
+                .collect(Collectors.toCollection(ArrayList::new));
+
+        int skipped = expectedDates.size() - services.size();
+        if (skipped > 0) {
+            log.debug("Skipped {} services no longer due as captured", skipped);
+        }
+        if (!services.isEmpty()) {
+            processServicesInBatch(services, loadBatchData(services), batchId, results);
+        }
+    }
+
+    /**
+     * Runs the due set through a {@link StagedChunkPipeline}: chunks are read, enriched with reference data,
+     * provisioned and pushed to the cache by separate stages, so database and Redis work overlap.
+     * Cache updates are sharded by username, so one user's session is never updated concurrently,
+     * and a chunk's services of the same user reach the cache as one write.
+     */
+    private void processPipelined(LocalDateTime dayStart, LocalDateTime dayEnd, PartitionSource partitionSource,
+                                  String batchId, ProcessingResults results) {
+        new StagedChunkPipeline<ServiceInstance, PreparedChunk, ProvisionedUser>(
+                JOB_NAME,
+                partitionSource,
+                // Chunks commit out of order across writers, so only partition completion is checkpointed
+                (partition, chunkSink) -> readPartition(dayStart, dayEnd, partition, partitionSource, 0L, null, chunkSink),
+                services -> {
+                    try (DbLoadGovernor.Permit permit = dbLoadGovernor.acquire()) {
+                        return new PreparedChunk(services, loadBatchData(services));
+                    }
+                },
+                prepared -> byUser(provisionPreparedChunk(prepared, batchId, results)),
+                provisioned -> applyCacheUpdate(provisioned, batchId, results),
+                ProvisionedUser::username,
+                (services, ex) -> services.forEach(service -> {
+                    results.incrementFailure();
+                    recordFailure(service, null, service.getUsername(), ex, batchId);
+                }),
+                new StagedChunkPipeline.Settings(pipelineReaderWorkers, pipelineReferenceWorkers,
+                        pipelineWriterWorkers, pipelineCacheWorkers, pipelineQueueCapacity,
+                        pipelineReportIntervalSeconds)
+        ).run();
+    }
+
+    /**
+     * Writer stage of the pipeline: provisions a chunk in the database without touching the cache.
+     */
+    private List<ProvisionedService> provisionPreparedChunk(PreparedChunk prepared, String batchId,
+                                                            ProcessingResults results) {
+        List<ProvisionedService> committed = new ArrayList<>();
+        List<ServiceWork> work = toServiceWork(prepared.services(), prepared.batchData(), batchId, results);
+        try (DbLoadGovernor.Permit permit = dbLoadGovernor.acquire()) {
+            if (chunkTransactionsEnabled) {
+                if (!work.isEmpty()) {
+                    provisionChunk(work, batchId, results, committed);
+                }
+            } else {
+                for (ServiceWork item : work) {
+                    provisionChunk(List.of(item), batchId, results, committed);
+                }
+            }
+        }
+        return committed;
+    }
+
+    /**
+     * Processes one partition chunk by chunk, checkpointing after each committed chunk.
+     * A partition with a checkpoint resumes after its last service ID.
+     */
+    private void processPartition(LocalDateTime dayStart, LocalDateTime dayEnd, int partition,
+                                  PartitionSource partitionSource, String batchId, ProcessingResults results) {
+        String resumeKey = partitionSource.resumeAfter(partition);
+        long startAfterId = resumeKey != null ? Long.parseLong(resumeKey) : 0L;
+        ProcessingResults partitionResults = results.child();
+
+        readPartition(dayStart, dayEnd, partition, partitionSource, startAfterId, partitionResults, services -> {
+            processServicesInBatch(services, loadBatchData(services), batchId, partitionResults);
+            partitionSource.checkpoint(partition, String.valueOf(services.get(services.size() - 1).getId()),
+                    (long) partitionResults.getSuccessCount() + partitionResults.getFailureCount(),
+                    partitionResults.getFailureCount());
+        });
+    }
+
+    /**
+     * Reads one partition of the due set with keyset pagination and hands it over chunk by chunk.
+     * Each chunk starts after the last ID seen, so processed rows that leave the due set
+     * (NEXT_CYCLE_START_DATE moves forward) cannot shift later chunks.
+     * Stops early if the partition lease is lost to another replica.
+     *
+     * @param chunkResults counters of the handler, used to feed per-chunk failures to the adaptive
+     *                     chunk sizer; null when the handler does not process synchronously
+     */
+    @SuppressWarnings("java:S107")
+    private void readPartition(LocalDateTime dayStart, LocalDateTime dayEnd, int partition,
+                               PartitionSource partitionSource, long startAfterId,
+                               ProcessingResults chunkResults, Consumer<List<ServiceInstance>> chunkHandler) {
+        int partitions = partitionSource.partitionCount();
+        long lastId = startAfterId;
+        int chunkNumber = 0;
+
+        List<ServiceInstance> services;
+        int requested;
+        do {
+            AdaptiveChunkSizer chunkSizer = adaptiveChunkSizing.sizer(JOB_NAME, chunkSize());
+            requested = chunkSizer.current();
+            long startNanos = System.nanoTime();
+            int failuresBefore = chunkResults != null ? chunkResults.getFailureCount() : 0;
+            try (DbLoadGovernor.Permit permit = dbLoadGovernor.acquire()) {
+                services = serviceInstanceRepository.findDueRecurringServicesAfterId(
+                        dayStart, dayEnd, dayStart, partition, partitions, lastId, requested);
+            }
+
+            if (services.isEmpty()) {
+                log.info("No services to process in batch (partition {}, chunk {}, after ID {})",
+                        partition, chunkNumber, lastId);
+                break;
+            }
+
+            log.info("Processing {} services in batch (partition {}, chunk {}, after ID {})",
+                    services.size(), partition, chunkNumber, lastId);
+            lastId = services.get(services.size() - 1).getId();
+
+            try {
+                chunkHandler.accept(services);
+            } catch (RuntimeException ex) {
+                chunkSizer.recordFailure(services.size(), System.nanoTime() - startNanos);
+                throw ex;
+            }
+            chunkSizer.record(services.size(), System.nanoTime() - startNanos,
+                    chunkResults != null ? chunkResults.getFailureCount() - failuresBefore : 0);
+
+            chunkNumber++;
+        } while (services.size() == requested && partitionSource.renew(partition));
+    }
+
+    /**
+     * Chunk size for the next chunk; a {@link JobTunables} value, so it can change during a run.
+     */
+    private int chunkSize() {
+        return jobTunables.getInt(JobTunables.RECURRENT_CHUNK_SIZE);
+    }
+
+    private int workerCount() {
+        return jobTunables.getInt(JobTunables.RECURRENT_WORKERS);
+    }
+
+    private BatchData loadBatchData(List<ServiceInstance> services) {
+        Set<String> usernames = services.stream().map(ServiceInstance::getUsername).collect(Collectors.toSet());
+        Set<String> planIds = services.stream().map(ServiceInstance::getPlanId).collect(Collectors.toSet());
+        Set<Long> serviceIds = services.stream().map(ServiceInstance::getId).collect(Collectors.toSet());
+
+        Map<String, UserEntity> userMap = userRepository.findByUserNameIn(usernames).stream()
+                .collect(Collectors.toMap(UserEntity::getUserName, u -> u));
+        Map<String, Plan> planMap = planRepository.findByPlanIdIn(planIds).stream()
+                .collect(Collectors.toMap(Plan::getPlanId, p -> p));
+        Map<Long, List<BucketInstance>> bucketInstanceMap = bucketInstanceRepository.findByServiceIdIn(serviceIds).stream()
+                .collect(Collectors.groupingBy(BucketInstance::getServiceId));
+        Map<String, List<PlanToBucket>> planToBucketMap = planToBucketRepository.findByPlanIdIn(planIds).stream()
+                .collect(Collectors.groupingBy(PlanToBucket::getPlanId));
+
+        Set<String> bucketIds = planToBucketMap.values().stream()
+                .flatMap(Collection::stream)
+                .map(PlanToBucket::getBucketId)
+                .collect(Collectors.toSet());
+
+        Map<String, Bucket> bucketMap = bucketRepository.findByBucketIdIn(bucketIds).stream()
+                .collect(Collectors.toMap(Bucket::getBucketId, b -> b));
+
+        Set<Long> qosIds = bucketMap.values().stream()
+                .map(Bucket::getQosId)
+                .collect(Collectors.toSet());
+
+        Map<Long, QOSProfile> qosProfileMap = qosProfileRepository.findByIdIn(qosIds).stream()
+                .collect(Collectors.toMap(QOSProfile::getId, q -> q));
+
+        return new BatchData(userMap, planMap, bucketInstanceMap, planToBucketMap, bucketMap, qosProfileMap);
+    }
+
+    private void processServicesInBatch(List<ServiceInstance> services, BatchData batchData,
+                                        String batchId, ProcessingResults results) {
+        try (DbLoadGovernor.Permit permit = dbLoadGovernor.acquire()) {
+            provisionServices(services, batchData, batchId, results);
+        }
+        retryDueTransientFailures(batchId);
+    }
+
+    private void provisionServices(List<ServiceInstance> services, BatchData batchData,
+                                   String batchId, ProcessingResults results) {
+        List<ProvisionedService> committed = new ArrayList<>();
+        if (planApplyEnabled) {
+            services = applyRenewalPlans(services, batchData, batchId, committed);
+        }
+
+        List<ServiceWork> work = toServiceWork(services, batchData, batchId, results);
+        if (chunkTransactionsEnabled) {
+            if (!work.isEmpty()) {
+                provisionChunk(work, batchId, results, committed);
+            }
+        } else {
+            for (ServiceWork item : work) {
+                provisionChunk(List.of(item), batchId, results, committed);
+            }
+        }
+        byUser(committed).forEach(provisioned -> applyCacheUpdate(provisioned, batchId, results));
+    }
+
+    private List<ServiceWork> toServiceWork(List<ServiceInstance> services, BatchData batchData,
+                                            String batchId, ProcessingResults results) {
+        List<ServiceWork> work = new ArrayList<>(services.size());
+        for (ServiceInstance serviceInstance : services) {
+            UserEntity user = batchData.userMap.get(serviceInstance.getUsername());
+            Plan plan = batchData.planMap.get(serviceInstance.getPlanId());
+
+            if (!validateServiceData(serviceInstance, user, plan, batchId)) {
+                results.incrementFailure();
+                continue;
+            }
+
+            String groupId = groupProvisioningEnabled ? GroupShares.sharedGroupId(serviceInstance, user) : null;
+            GroupShares shares = groupId != null ? groupShares.get(batchId) : null;
+            work.add(new ServiceWork(serviceInstance, user, plan,
+                    batchData.bucketInstanceMap.get(serviceInstance.getId()),
+                    batchData.planToBucketMap.get(plan.getPlanId()),
+                    batchData.bucketMap, batchData.qosProfileMap,
+                    groupId != null ? groupId : serviceInstance.getUsername(),
+                    shares != null && shares.isMember(groupId, serviceInstance),
+                    serviceInstance.getNextCycleStartDate()));
+        }
+        return work;
+    }
+
+    private void startGroupShares(String batchId) {
+        if (groupProvisioningEnabled) {
+            groupShares.put(batchId, new GroupShares());
+        }
+    }
+
+    private void finishGroupShares(String batchId) {
+        GroupShares shares = groupShares.remove(batchId);
+        if (shares != null && shares.groups() > 0) {
+            log.info("Provisioned {} shared group plans once for their {} further member services",
+                    shares.groups(), shares.members());
+        }
+    }
+
+    /**
+     * Provisions a chunk of services in a single transaction, so the happy path pays one commit per chunk.
+     * If the chunk fails it is rolled back, reloaded and split in half until the failing services
+     * are isolated; only a single failing service is recorded in SERVICE_PROCESSING_FAILURE.
+     * Committed services are added to {@code committed}; the caller applies their cache updates,
+     * so a rolled back chunk never reaches Redis.
+     */
+    private void provisionChunk(List<ServiceWork> work, String batchId, ProcessingResults results,
+                                List<ProvisionedService> committed) {
+        ChunkBisection.run(work,
+                chunk -> committed.addAll(self.processServiceChunkInTransaction(chunk)),
+                (chunk, ex) -> reloadChunk(chunk, ex, batchId, results),
+                (offender, ex) -> recordChunkFailure(offender, ex, batchId, results));
+    }
+
+    private List<ServiceWork> reloadChunk(List<ServiceWork> work, Exception ex, String batchId,
+                                          ProcessingResults results) {
+        log.warn("Chunk of {} services rolled back ({}). Bisecting to isolate the failing services",
+                work.size(), ex.getMessage());
+        // The rolled back attempt mutated the entities in memory, so retry from the committed state
+        Map<Long, LocalDateTime> cycleStarts = new HashMap<>();
+        work.forEach(w -> cycleStarts.put(w.serviceInstance().getId(), w.cycleStart()));
+        List<ServiceInstance> services = reloadUnrenewed(cycleStarts);
+        return toServiceWork(services, loadBatchData(services), batchId, results);
+    }
+
+    private void recordChunkFailure(ServiceWork offender, Exception ex, String batchId, ProcessingResults results) {
+        if (deferTransientFailure(new TransientRetry(offender.serviceInstance(), offender.plan(),
+                offender.user().getUserName(), offender.cycleStart(), null, results, ex), batchId)) {
+            return;
+        }
+        results.incrementFailure();
+        log.error("Failed to process service ID: {} for user: {}. Error: {}",
+                offender.serviceInstance().getId(), offender.user().getUserName(), ex.getMessage(), ex);
+        recordFailure(offender.serviceInstance(), offender.plan(), offender.user().getUserName(), ex, batchId);
+    }
+
+    /**
+     * Re-reads services from the committed state in ID order, dropping those whose NEXT_CYCLE_START_DATE
+     * is no longer the cycle they were to be renewed for: another run or replica renewed them meanwhile.
+     */
+    private List<ServiceInstance> reloadUnrenewed(Map<Long, LocalDateTime> cycleStarts) {
+        List<ServiceInstance> services = new ArrayList<>(serviceInstanceRepository.findAllById(cycleStarts.keySet()));
+        services.removeIf(service -> {
+            boolean renewed = !Objects.equals(service.getNextCycleStartDate(), cycleStarts.get(service.getId()));
+            if (renewed) {
+                log.info("Service ID: {} was renewed elsewhere, not retrying it", service.getId());
+            }
+            return renewed;
+        });
+        services.sort(Comparator.comparing(ServiceInstance::getId));
+        return services;
+    }
+
+    /**
+     * Groups committed services by the cache entry they update (the subscriber, or the group of a shared
+     * group plan), keeping the commit order within each entry.
+     */
+    private static List<ProvisionedUser> byUser(List<ProvisionedService> committed) {
+        Map<String, List<ProvisionedService>> byUsername = new LinkedHashMap<>();
+        for (ProvisionedService provisioned : committed) {
+            byUsername.computeIfAbsent(provisioned.cacheUsername(), u -> new ArrayList<>()).add(provisioned);
+        }
+        List<ProvisionedUser> users = new ArrayList<>(byUsername.size());
+        byUsername.forEach((username, services) -> users.add(new ProvisionedUser(username, services)));
+        return users;
+    }
+
+    /**
+     * Pushes the new buckets of all committed services of one subscriber to the cache in a single
+     * read-modify-write. If the write fails, every service of the subscriber is retried or recorded.
+     */
+    private void applyCacheUpdate(ProvisionedUser provisionedUser, String batchId, ProcessingResults results) {
+        String username = provisionedUser.username();
+        try {
+            updateUserCacheWithBuckets(username, provisionedUser.services());
+            for (ProvisionedService provisioned : provisionedUser.services()) {
+                results.incrementSuccess();
+                log.info("Successfully processed service {} for user {}",
+                        provisioned.serviceInstance().getPlanId(), username);
+            }
+        } catch (Exception ex) {
+            // The database changes are committed; only the cache is behind
+            for (ProvisionedService provisioned : provisionedUser.services()) {
+                ServiceInstance serviceInstance = provisioned.serviceInstance();
+                if (deferTransientFailure(new TransientRetry(serviceInstance, provisioned.plan(),
+                        serviceInstance.getUsername(), null, provisioned, results, ex), batchId)) {
+                    continue;
+                }
+                results.incrementFailure();
+                log.error("Service ID: {} provisioned but cache update failed for user: {}. Error: {}",
+                        serviceInstance.getId(), username, ex.getMessage(), ex);
+                recordCacheFailure(provisioned, ex, batchId);
+            }
+        }
+    }
 
-        ProcessingResults results = new ProcessingResults();
-        int pageNumber = 0;
+    private boolean validateServiceData(ServiceInstance serviceInstance, UserEntity user, Plan plan, String batchId) {
+        PlanIntegrity integrity = planIntegrity.get(batchId);
+        ReferenceDataException brokenPlan = integrity != null
+                ? integrity.skipIfBroken(serviceInstance.getPlanId()) : null;
+        if (brokenPlan != null) {
+            log.debug("Skipping service ID: {} on broken plan {}",
+                    serviceInstance.getId(), serviceInstance.getPlanId());
+            recordFailure(serviceInstance, plan, serviceInstance.getUsername(), brokenPlan, batchId);
+            return false;
+        }
 
-        Page<ServiceInstance> servicePage;
-        do {
-            Pageable pageable = PageRequest.of(pageNumber, chunkSize);
-            servicePage = serviceInstanceRepository.findByRecurringFlagTrueAndNextCycleStartDateAndExpiryDateAfter(
-                    tomorrowStart, tomorrowEnd, tomorrowStart, pageable);
+        if (user == null) {
+            log.warn("User not found for service ID: {}, username: {}",
+                    serviceInstance.getId(), serviceInstance.getUsername());
+            recordFailure(serviceInstance, null, serviceInstance.getUsername(),
+                    new IllegalStateException("User not found: " + serviceInstance.getUsername()), batchId);
+            return false;
+        }
 
-            List<ServiceInstance> services = servicePage.getContent();
-            if (services.isEmpty()) {
-                log.info("No services to process in batch (page {})", pageNumber);
-                break;
-            }
+        if (plan == null) {
+            log.error("Plan not found: {}", serviceInstance.getPlanId());
+            recordFailure(serviceInstance, null, user.getUserName(),
+                    new IllegalStateException("Plan not found: " + serviceInstance.getPlanId()), batchId);
+            return false;
+        }
 
-            log.info("Processing {} services in batch (page {})", services.size(), pageNumber);
-            BatchData batchData = loadBatchData(services);
-            processServicesInBatch(services, batchData, batchId, results);
+        return true;
+    }
 
-            pageNumber++;
-        } while (!servicePage.isLast());
+    /**
+     * Pre-flight check of a run: validates the plan, bucket and QoS profile graph of every plan in the
+     * work set once, so that services of a broken plan are skipped instead of each paying a failed
+     * provisioning attempt and a stack trace; their failure records share one stackless exception.
+     */
+    private void checkPlans(List<String> planIds, String batchId) {
+        Map<String, String> brokenPlans = new HashMap<>();
+        for (int from = 0; from < planIds.size(); from += PLAN_WINDOW) {
+            Set<String> window = new HashSet<>(planIds.subList(from, Math.min(from + PLAN_WINDOW, planIds.size())));
+            window.remove(null);
+            brokenPlans.putAll(findBrokenPlans(window));
+        }
 
-        log.info("Reactivate expired recurrent services Completed. Success: {}, Failures: {}",
-                results.getSuccessCount(), results.getFailureCount());
+        if (!brokenPlans.isEmpty()) {
+            brokenPlans.forEach((planId, reason) -> log.error("Plan {} cannot be provisioned: {}. " +
+                    "Its services are skipped in batch {}", planId, reason, batchId));
+            planIntegrity.put(batchId, new PlanIntegrity(brokenPlans));
+        }
+        log.info("Checked {} plans of the run, {} broken", planIds.size(), brokenPlans.size());
     }
 
-    private BatchData loadBatchData(List<ServiceInstance> services) {
-        Set<String> usernames = services.stream().map(ServiceInstance::getUsername).collect(Collectors.toSet());
-        Set<String> planIds = services.stream().map(ServiceInstance::getPlanId).collect(Collectors.toSet());
-        Set<Long> serviceIds = services.stream().map(ServiceInstance::getId).collect(Collectors.toSet());
-
-        Map<String, UserEntity> userMap = userRepository.findByUserNameIn(usernames).stream()
-                .collect(Collectors.toMap(UserEntity::getUserName, u -> u));
-        Map<String, Plan> planMap = planRepository.findByPlanIdIn(planIds).stream()
-                .collect(Collectors.toMap(Plan::getPlanId, p -> p));
-        Map<Long, List<BucketInstance>> bucketInstanceMap = bucketInstanceRepository.findByServiceIdIn(serviceIds).stream()
-                .collect(Collectors.groupingBy(BucketInstance::getServiceId));
+    private Map<String, String> findBrokenPlans(Set<String> planIds) {
+        Set<String> existingPlans = planRepository.findByPlanIdIn(planIds).stream()
+                .map(Plan::getPlanId)
+                .collect(Collectors.toSet());
         Map<String, List<PlanToBucket>> planToBucketMap = planToBucketRepository.findByPlanIdIn(planIds).stream()
                 .collect(Collectors.groupingBy(PlanToBucket::getPlanId));
-
         Set<String> bucketIds = planToBucketMap.values().stream()
                 .flatMap(Collection::stream)
                 .map(PlanToBucket::getBucketId)
                 .collect(Collectors.toSet());
-
         Map<String, Bucket> bucketMap = bucketRepository.findByBucketIdIn(bucketIds).stream()
                 .collect(Collectors.toMap(Bucket::getBucketId, b -> b));
-
         Set<Long> qosIds = bucketMap.values().stream()
                 .map(Bucket::getQosId)
                 .collect(Collectors.toSet());
-
         Map<Long, QOSProfile> qosProfileMap = qosProfileRepository.findByIdIn(qosIds).stream()
                 .collect(Collectors.toMap(QOSProfile::getId, q -> q));
 
-        return new BatchData(userMap, planMap, bucketInstanceMap, planToBucketMap, bucketMap, qosProfileMap);
-    }
-
-    private void processServicesInBatch(List<ServiceInstance> services, BatchData batchData,
-                                        String batchId, ProcessingResults results) {
-        for (ServiceInstance serviceInstance : services) {
-            UserEntity user = batchData.userMap.get(serviceInstance.getUsername());
-            Plan plan = batchData.planMap.get(serviceInstance.getPlanId());
-
-            if (!validateServiceData(serviceInstance, user, plan, batchId)) {
-                results.incrementFailure();
-                continue;
+        Map<String, String> brokenPlans = new HashMap<>();
+        for (String planId : planIds) {
+            List<PlanToBucket> quotaDetails = planToBucketMap.get(planId);
+            if (!existingPlans.contains(planId)) {
+                brokenPlans.put(planId, "Plan not found: " + planId);
+            } else if (quotaDetails == null || quotaDetails.isEmpty()) {
+                brokenPlans.put(planId, "NO_QUOTA_DETAILS_FOUND");
+            } else {
+                try {
+                    ProvisioningTemplate.compile(planId, quotaDetails, bucketMap, qosProfileMap);
+                } catch (AAAException ex) {
+                    brokenPlans.put(planId, ex.getMessage());
+                }
             }
+        }
+        return brokenPlans;
+    }
 
-            processServiceInstance(serviceInstance, user, plan, batchData, batchId, results);
+    /**
+     * Logs the number of services skipped per broken plan that had services in the run. Each skipped service
+     * has a failure record of its own and keeps its NEXT_CYCLE_START_DATE, so the failure retry or the
+     * catch-up renews it once the plan is fixed.
+     */
+    private void logSkippedPlans(String batchId) {
+        PlanIntegrity integrity = planIntegrity.remove(batchId);
+        if (integrity == null) {
+            return;
         }
+        integrity.skippedServices().forEach((planId, skipped) ->
+                log.error("Skipped {} services of broken plan {}: {}", skipped, planId, integrity.reason(planId)));
     }
 
-    private boolean validateServiceData(ServiceInstance serviceInstance, UserEntity user, Plan plan, String batchId) {
-        if (user == null) {
-            log.warn("User not found for service ID: {}, username: {}",
-                    serviceInstance.getId(), serviceInstance.getUsername());
-            self.saveServiceProcessingFailure(serviceInstance, null, serviceInstance.getUsername(),
-                    new IllegalStateException("User not found: " + serviceInstance.getUsername()), batchId);
-            return false;
+    private void startTransientRetries(String batchId) {
+        if (transientRetryEnabled) {
+            transientRetries.put(batchId,
+                    new TransientRetryQueue<>(transientRetryMaxAttempts, transientRetryBackoffMillis));
         }
+    }
 
-        if (plan == null) {
-            log.error("Plan not found: {}", serviceInstance.getPlanId());
-            self.saveServiceProcessingFailure(serviceInstance, null, user.getUserName(),
-                    new IllegalStateException("Plan not found: " + serviceInstance.getPlanId()), batchId);
+    /**
+     * Queues a transient failure for another attempt later in the run instead of recording it; only a
+     * failure that is permanent or out of retries is recorded in SERVICE_PROCESSING_FAILURE.
+     *
+     * @return false if the failure is permanent, the service has no retries left or the run does not retry
+     */
+    private boolean deferTransientFailure(TransientRetry retry, String batchId) {
+        TransientRetryQueue<TransientRetry> queue = transientRetries.get(batchId);
+        if (queue == null || !TransientFailures.isTransient(retry.failure())
+                || !queue.offer(retry.serviceInstance().getId(), retry)) {
             return false;
         }
-
+        log.warn("Transient failure of service ID: {} for user: {}, retrying later in the run. Error: {}",
+                retry.serviceInstance().getId(), retry.username(), retry.failure().getMessage());
         return true;
     }
 
-    private void processServiceInstance(ServiceInstance serviceInstance, UserEntity user, Plan plan,
-                                        BatchData batchData, String batchId, ProcessingResults results) {
+    /**
+     * Retries the queued transient failures whose backoff has elapsed; called at every chunk boundary.
+     */
+    private void retryDueTransientFailures(String batchId) {
+        TransientRetryQueue<TransientRetry> queue = transientRetries.get(batchId);
+        if (queue != null) {
+            List<TransientRetry> due = queue.pollDue();
+            if (!due.isEmpty()) {
+                retryTransientFailures(due, batchId);
+            }
+        }
+    }
+
+    /**
+     * Drains the retry queue at the end of the run, waiting out the backoff of the retries still queued.
+     * Retries not attempted because of a shutdown are recorded in SERVICE_PROCESSING_FAILURE like any
+     * other failure, so the failure retry renews them.
+     */
+    private void finishTransientRetries(String batchId) {
+        TransientRetryQueue<TransientRetry> queue = transientRetries.get(batchId);
+        if (queue == null) {
+            return;
+        }
         try {
-            self.processServiceInstanceInTransaction(
-                    serviceInstance, user, plan,
-                    batchData.bucketInstanceMap.get(serviceInstance.getId()),
-                    batchData.planToBucketMap.get(plan.getPlanId()),
-                    batchData.bucketMap,
-                    batchData.qosProfileMap
-            );
-            results.incrementSuccess();
-            log.info("Successfully processed service {} for user {}", serviceInstance.getPlanId(), user.getUserName());
-        } catch (Exception ex) {
-            results.incrementFailure();
-            log.error("Failed to process service ID: {} for user: {}. Error: {}",
-                    serviceInstance.getId(), user.getUserName(), ex.getMessage(), ex);
-            self.saveServiceProcessingFailure(serviceInstance, plan, user.getUserName(), ex, batchId);
+            queue.drain(due -> retryTransientFailures(due, batchId), jobShutdownCoordinator::isStopRequested,
+                    retry -> recordAbandonedRetry(retry, batchId));
+        } finally {
+            transientRetries.remove(batchId);
+        }
+    }
+
+    private void recordAbandonedRetry(TransientRetry retry, String batchId) {
+        retry.results().incrementFailure();
+        if (retry.provisioned() != null) {
+            recordCacheFailure(retry.provisioned(), retry.failure(), batchId);
+        } else {
+            recordFailure(retry.serviceInstance(), retry.plan(), retry.username(), retry.failure(), batchId);
         }
     }
 
+    private void retryTransientFailures(List<TransientRetry> retries, String batchId) {
+        log.info("Retrying {} services after transient failures", retries.size());
+        Map<ProcessingResults, List<ProvisionedService>> cacheRetries = new HashMap<>();
+        Map<ProcessingResults, Map<Long, LocalDateTime>> provisioningRetries = new HashMap<>();
+        for (TransientRetry retry : retries) {
+            if (retry.provisioned() != null) {
+                // Provisioning is committed; only the cache update is retried
+                cacheRetries.computeIfAbsent(retry.results(), r -> new ArrayList<>()).add(retry.provisioned());
+            } else {
+                provisioningRetries.computeIfAbsent(retry.results(), r -> new HashMap<>())
+                        .put(retry.serviceInstance().getId(), retry.cycleStart());
+            }
+        }
+        cacheRetries.forEach((results, provisioned) ->
+                byUser(provisioned).forEach(user -> applyCacheUpdate(user, batchId, results)));
+
+        provisioningRetries.forEach((results, cycleStarts) -> {
+            // The failed attempt was rolled back but mutated the entities in memory, so retry from the committed state
+            List<ServiceInstance> services = reloadUnrenewed(cycleStarts);
+            if (services.isEmpty()) {
+                return;
+            }
+            try (DbLoadGovernor.Permit permit = dbLoadGovernor.acquire()) {
+                provisionServices(services, loadBatchData(services), batchId, results);
+            }
+        });
+    }
+
     private static class BatchData {
         final Map<String, UserEntity> userMap;
         final Map<String, Plan> planMap;
@@ -217,62 +1745,318 @@ public class RecurrentServiceService {
         }
     }
 
+    /**
+     * A validated service together with the batch data needed to provision it. {@code cacheUsername} is the
+     * cache entry its buckets go to; a {@code groupMember} shares the buckets of its group's lead service.
+     * {@code cycleStart} is the NEXT_CYCLE_START_DATE the service was read with, i.e. the cycle to renew.
+     */
+    record ServiceWork(ServiceInstance serviceInstance, UserEntity user, Plan plan,
+                       List<BucketInstance> bucketInstances, List<PlanToBucket> quotaDetails,
+                       Map<String, Bucket> bucketMap, Map<Long, QOSProfile> qosProfileMap,
+                       String cacheUsername, boolean groupMember, LocalDateTime cycleStart) {
+    }
+
+    /**
+     * A chunk read from the database together with its reference data.
+     */
+    private record PreparedChunk(List<ServiceInstance> services, BatchData batchData) {
+    }
+
+    /**
+     * A service provisioned in a committed chunk, with the buckets still to be pushed to the cache entry
+     * of {@code cacheUsername}.
+     */
+    record ProvisionedService(ServiceInstance serviceInstance, Plan plan, List<BucketInstance> newBuckets,
+                              String cacheUsername) {
+    }
+
+    /**
+     * The services of one cache entry provisioned in a chunk, pushed to the cache together.
+     */
+    record ProvisionedUser(String username, List<ProvisionedService> services) {
+    }
+
+    /**
+     * A service that failed with a transient error, queued for another attempt. With {@code provisioned}
+     * set only its cache update failed and is retried; otherwise the whole provisioning is, for the cycle
+     * starting at {@code cycleStart}.
+     */
+    private record TransientRetry(ServiceInstance serviceInstance, Plan plan, String username,
+                                  LocalDateTime cycleStart, ProvisionedService provisioned,
+                                  ProcessingResults results, Exception failure) {
+    }
+
+    /**
+     * Run-wide counters; shared by all partition workers, hence atomic.
+     * A child counts one partition and also increments its parent.
+     */
     private static class ProcessingResults {
-        private int successCount = 0;
-        private int failureCount = 0;
+        private final ProcessingResults parent;
+        private final AtomicInteger successCount = new AtomicInteger();
+        private final AtomicInteger failureCount = new AtomicInteger();
+
+        ProcessingResults() {
+            this(null);
+        }
+
+        private ProcessingResults(ProcessingResults parent) {
+            this.parent = parent;
+        }
+
+        ProcessingResults child() {
+            return new ProcessingResults(this);
+        }
 
         void incrementSuccess() {
-            successCount++;
+            successCount.incrementAndGet();
+            if (parent != null) {
+                parent.incrementSuccess();
+            }
         }
 
         void incrementFailure() {
-            failureCount++;
+            failureCount.incrementAndGet();
+            if (parent != null) {
+                parent.incrementFailure();
+            }
         }
 
         int getSuccessCount() {
-            return successCount;
+            return successCount.get();
         }
 
         int getFailureCount() {
-            return failureCount;
+            return failureCount.get();
+        }
+    }
+
+    /**
+     * Processes a chunk of service instances in one transaction.
+     * Any failure rolls back the whole chunk; the caller bisects to find the failing services.
+     * The services are locked first; a service whose NEXT_CYCLE_START_DATE moved on since it was read
+     * was renewed by another run or replica and is skipped. A group lead elected by this run only gets the
+     * shared buckets if no other replica or earlier run already provisioned them for the group plan and cycle.
+     *
+     * @param work Validated services of the chunk with their batch data
+     * @return The provisioned services with their new buckets, for cache updates after commit
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW,
+            timeoutString = "${recurrent-service.transaction-timeout.chunk-seconds:300}")
+    public List<ProvisionedService> processServiceChunkInTransaction(List<ServiceWork> work) {
+
+        log.debug("Processing chunk of {} service instances in new transaction", work.size());
+
+        Map<Long, LocalDateTime> lockedCycleStarts = lockCycleStarts(work);
+        List<ProvisionedService> provisioned = new ArrayList<>(work.size());
+        for (ServiceWork item : work) {
+            if (!Objects.equals(lockedCycleStarts.get(item.serviceInstance().getId()), item.cycleStart())) {
+                log.info("Service ID: {} was renewed elsewhere since it was read, skipping it",
+                        item.serviceInstance().getId());
+                continue;
+            }
+            List<BucketInstance> newBuckets = item.groupMember() || isSharedElsewhere(item)
+                    ? advanceGroupMember(item.serviceInstance(), item.user(), item.plan())
+                    : provisionServiceInstance(item.serviceInstance(), item.user(), item.plan(),
+                            item.bucketInstances(), item.quotaDetails(), item.bucketMap(), item.qosProfileMap());
+            provisioned.add(new ProvisionedService(item.serviceInstance(), item.plan(), newBuckets,
+                    item.cacheUsername()));
+        }
+        return provisioned;
+    }
+
+    /**
+     * Whether the shared buckets of the group plan and cycle of a group service this run elected lead were
+     * already provisioned for another service of the group, by another replica or by an earlier attempt of
+     * the run before a restart. The group's services on the plan are locked, so concurrent leads of the group
+     * take turns and the later one sees the buckets of the first once it has committed. The buckets of a
+     * renewed lead expire with the cycle it was renewed into.
+     */
+    private boolean isSharedElsewhere(ServiceWork item) {
+        ServiceInstance serviceInstance = item.serviceInstance();
+        String groupId = groupProvisioningEnabled ? GroupShares.sharedGroupId(serviceInstance, item.user()) : null;
+        if (groupId == null) {
+            return false;
+        }
+        Map<Long, LocalDateTime> renewedCycleEnds = new HashMap<>();
+        for (ServiceInstance groupService : serviceInstanceRepository.lockGroupServices(groupId,
+                serviceInstance.getPlanId())) {
+            if (!groupService.getId().equals(serviceInstance.getId())
+                    && Objects.equals(groupService.getServiceCycleStartDate(), item.cycleStart())) {
+                renewedCycleEnds.put(groupService.getId(), groupService.getServiceCycleEndDate());
+            }
+        }
+        List<Long> renewedIds = new ArrayList<>(renewedCycleEnds.keySet());
+        for (int from = 0; from < renewedIds.size(); from += LOCK_WINDOW) {
+            Set<Long> window = new HashSet<>(renewedIds.subList(from, Math.min(from + LOCK_WINDOW, renewedIds.size())));
+            for (BucketInstance bucket : bucketInstanceRepository.findByServiceIdIn(window)) {
+                if (Objects.equals(bucket.getExpiration(), renewedCycleEnds.get(bucket.getServiceId()))) {
+                    log.info("Shared buckets of group {} plan {} for the cycle starting {} are already held by " +
+                                    "service ID: {}, service ID: {} only moves to the new cycle", groupId,
+                            serviceInstance.getPlanId(), item.cycleStart(), bucket.getServiceId(),
+                            serviceInstance.getId());
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private Map<Long, LocalDateTime> lockCycleStarts(List<ServiceWork> work) {
+        List<Long> ids = work.stream().map(w -> w.serviceInstance().getId()).toList();
+        Map<Long, LocalDateTime> cycleStarts = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += LOCK_WINDOW) {
+            List<Long> window = ids.subList(from, Math.min(from + LOCK_WINDOW, ids.size()));
+            for (ServiceInstance locked : serviceInstanceRepository.lockAllById(window)) {
+                cycleStarts.put(locked.getId(), locked.getNextCycleStartDate());
+            }
         }
+        return cycleStarts;
     }
 
     /**
-     * Processes a single service instance in its own transaction.
-     * Each service gets an independent transaction that can commit or rollback without affecting others.
+     * Rolls an overdue service instance forward through every missed cycle in its own transaction.
+     * All cycle dates are computed in memory; only the final cycle, the one still running, is provisioned,
+     * because the buckets of the earlier cycles would already have expired.
+     * Carry-forward buckets that would already have expired are not created.
+     * The service is locked first and must still start the cycle it was read with, so a service renewed
+     * meanwhile by another replica, the nightly run or a second catch-up is left alone.
      *
-     * @param serviceInstance The service instance to process
-     * @param user The user entity
-     * @param plan The plan entity
-     * @param bucketInstanceList List of bucket instances for this service
-     * @param quotaDetails Quota details from plan
-     * @param bucketMap Map of bucket IDs to bucket entities
-     * @param qosProfileMap Map of QoS profile IDs to QoS profiles
-     */
-    @Transactional(propagation = Propagation.REQUIRES_NEW, timeout = 3600)
-    public void processServiceInstanceInTransaction(
+     * @param dueBefore Start of the next regular run's due day; rolling stops once the next cycle starts on or after it
+     * @return The service with its new buckets, for the cache update after commit; null if it was renewed meanwhile
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW,
+            timeoutString = "${recurrent-service.transaction-timeout.service-seconds:60}")
+    @SuppressWarnings("java:S107")
+    public ProvisionedService catchUpServiceInstanceInTransaction(
             ServiceInstance serviceInstance,
             UserEntity user,
             Plan plan,
             List<BucketInstance> bucketInstanceList,
             List<PlanToBucket> quotaDetails,
             Map<String, Bucket> bucketMap,
-            Map<Long, QOSProfile> qosProfileMap) {
+            Map<Long, QOSProfile> qosProfileMap,
+            LocalDateTime dueBefore) {
+
+        ServiceInstance locked = serviceInstanceRepository.lockAllById(List.of(serviceInstance.getId())).stream()
+                .findFirst()
+                .orElseThrow(() -> new AAAException(LogMessages.ERROR_NOT_FOUND, "SERVICE_NOT_FOUND",
+                        HttpStatus.NOT_FOUND));
+        if (!Objects.equals(locked.getNextCycleStartDate(), serviceInstance.getNextCycleStartDate())) {
+            return null;
+        }
+
+        LocalDate today = LocalDate.now(ZoneId.of(Constants.SL_TIME_ZONE));
+        int cycles = 0;
+        do {
+            updateCycleManagementProperties(serviceInstance, plan, user);
+            cycles++;
+        } while (serviceInstance.getNextCycleStartDate() != null
+                && serviceInstance.getNextCycleStartDate().isBefore(dueBefore));
+
+        serviceInstanceRepository.save(serviceInstance);
+        log.info("Rolled service instance ID: {} of user {} forward {} missed cycles to {} - {}",
+                serviceInstance.getId(), user.getUserName(), cycles,
+                serviceInstance.getServiceCycleStartDate(), serviceInstance.getServiceCycleEndDate());
+
+        if (serviceInstance.getServiceCycleEndDate().toLocalDate().isBefore(today)) {
+            // The last cycle before expiry ended during the outage: nothing is valid any more
+            log.info("Service instance ID: {} has no running cycle after catch-up, nothing to provision",
+                    serviceInstance.getId());
+            return new ProvisionedService(serviceInstance, plan, List.of(), serviceInstance.getUsername());
+        }
 
-        log.debug("Processing service instance ID: {} in new transaction", serviceInstance.getId());
+        List<BucketInstance> newBuckets = provisionQuotaOptimized(
+                serviceInstance, bucketInstanceList, quotaDetails, bucketMap, qosProfileMap, today, repositoryWrites);
+        return new ProvisionedService(serviceInstance, plan, newBuckets, serviceInstance.getUsername());
+    }
+
+    @SuppressWarnings("java:S107")
+    private List<BucketInstance> provisionServiceInstance(ServiceInstance serviceInstance, UserEntity user, Plan plan,
+                                                          List<BucketInstance> bucketInstanceList,
+                                                          List<PlanToBucket> quotaDetails,
+                                                          Map<String, Bucket> bucketMap,
+                                                          Map<Long, QOSProfile> qosProfileMap) {
+        return provisionServiceInstance(serviceInstance, user, plan, bucketInstanceList, quotaDetails, bucketMap,
+                qosProfileMap, repositoryWrites);
+    }
 
+    @SuppressWarnings("java:S107")
+    private List<BucketInstance> provisionServiceInstance(ServiceInstance serviceInstance, UserEntity user, Plan plan,
+                                                          List<BucketInstance> bucketInstanceList,
+                                                          List<PlanToBucket> quotaDetails,
+                                                          Map<String, Bucket> bucketMap,
+                                                          Map<Long, QOSProfile> qosProfileMap,
+                                                          ProvisioningWrites writes) {
         // Update cycle management properties
         updateCycleManagementProperties(serviceInstance, plan, user);
 
         // Save the updated service instance
-        serviceInstanceRepository.save(serviceInstance);
+        writes.saveService(serviceInstance);
         log.debug("Saved service instance ID: {}", serviceInstance.getId());
 
         // Provision quotas
-        provisionQuotaOptimized(serviceInstance, bucketInstanceList, quotaDetails, bucketMap, qosProfileMap);
+        return provisionQuotaOptimized(serviceInstance, bucketInstanceList, quotaDetails, bucketMap, qosProfileMap,
+                null, writes);
+    }
+
+    /**
+     * Moves a member of a shared group plan to its new cycle. Its quota is the group's, provisioned once
+     * by the lead service of the group, so no buckets are created for the member.
+     */
+    private List<BucketInstance> advanceGroupMember(ServiceInstance serviceInstance, UserEntity user, Plan plan) {
+        updateCycleManagementProperties(serviceInstance, plan, user);
+        repositoryWrites.saveService(serviceInstance);
+        log.debug("Advanced group member service instance ID: {} of group {}",
+                serviceInstance.getId(), user.getGroupId());
+        return List.of();
+    }
+
+    /**
+     * Destination of the rows written by provisioning: the database, or a change set when planning ahead.
+     */
+    private interface ProvisioningWrites {
+        void saveService(ServiceInstance serviceInstance);
+
+        void saveBuckets(List<BucketInstance> bucketInstances);
+    }
+
+    private class RepositoryWrites implements ProvisioningWrites {
+        @Override
+        public void saveService(ServiceInstance serviceInstance) {
+            serviceInstanceRepository.save(serviceInstance);
+        }
+
+        @Override
+        public void saveBuckets(List<BucketInstance> bucketInstances) {
+            bucketInstanceRepository.saveAll(bucketInstances);
+        }
+    }
+
+    /**
+     * Captures provisioning writes instead of executing them. Buckets without an ID are new,
+     * buckets with one are existing rows adjusted by carry forward.
+     */
+    private static class RecordingWrites implements ProvisioningWrites {
+        private final List<BucketInstance> insertedBuckets = new ArrayList<>();
+        private final List<BucketInstance> updatedBuckets = new ArrayList<>();
+
+        @Override
+        public void saveService(ServiceInstance serviceInstance) {
+            // Cycle dates are taken from the service instance once planning is done
+        }
+
+        @Override
+        public void saveBuckets(List<BucketInstance> bucketInstances) {
+            for (BucketInstance bucketInstance : bucketInstances) {
+                (bucketInstance.getId() == null ? insertedBuckets : updatedBuckets).add(bucketInstance);
+            }
+        }
 
-        log.debug("Completed processing service instance ID: {} in transaction", serviceInstance.getId());
+        RenewalChangeSet toChangeSet(ServiceInstance serviceInstance) {
+            return new RenewalChangeSet(serviceInstance.getServiceStartDate(),
+                    serviceInstance.getServiceCycleStartDate(), serviceInstance.getServiceCycleEndDate(),
+                    serviceInstance.getNextCycleStartDate(), insertedBuckets, updatedBuckets);
+        }
     }
 
     private void updateCycleManagementProperties(ServiceInstance serviceInstance, Plan plan, UserEntity user){
@@ -356,39 +2140,41 @@ public class RecurrentServiceService {
 
 
 
-    private void provisionQuotaOptimized(ServiceInstance serviceInstance, List<BucketInstance> bucketInstanceList,
-                                         List<PlanToBucket> quotaDetails, Map<String, Bucket> bucketMap,
-                                         Map<Long, QOSProfile> qosProfileMap) {
+    private List<BucketInstance> provisionQuotaOptimized(ServiceInstance serviceInstance,
+                                                         List<BucketInstance> bucketInstanceList,
+                                                         List<PlanToBucket> quotaDetails, Map<String, Bucket> bucketMap,
+                                                         Map<Long, QOSProfile> qosProfileMap, LocalDate validFrom,
+                                                         ProvisioningWrites writes) {
         log.debug("Starting optimized quota provisioning for Service Instance ID: {}", serviceInstance.getId());
 
         try {
             if (bucketInstanceList == null || bucketInstanceList.isEmpty()) {
                 log.error("No quota details found for Service ID: {}", serviceInstance.getId());
-                throw new AAAException(LogMessages.ERROR_NOT_FOUND, "NO_QUOTA_DETAILS_FOUND_FOR_SERVICE", HttpStatus.NOT_FOUND);
+                throw NO_QUOTA_DETAILS_FOR_SERVICE;
             }
 
             if (quotaDetails == null || quotaDetails.isEmpty()) {
                 log.error("No quota details found for Plan ID: {}", serviceInstance.getPlanId());
-                throw new AAAException(LogMessages.ERROR_NOT_FOUND, "NO_QUOTA_DETAILS_FOUND", HttpStatus.NOT_FOUND);
+                throw NO_QUOTA_DETAILS_FOR_PLAN;
             }
             log.debug("Found {} quota details for Plan ID: {}", quotaDetails.size(), serviceInstance.getPlanId());
 
+            ProvisioningTemplate template = provisioningTemplates.get(serviceInstance.getPlanId(), quotaDetails,
+                    bucketMap, qosProfileMap);
+
             // Collect all bucket instances from both new and carry-forward provisioning
             List<BucketInstance> allNewBuckets = new ArrayList<>();
 
             log.debug("Performing new quota provision for Service Instance ID: {}", serviceInstance.getId());
-            List<BucketInstance> newBuckets = newQuotaProvisionOptimized(quotaDetails, serviceInstance, bucketMap, qosProfileMap);
+            List<BucketInstance> newBuckets = newQuotaProvisionOptimized(template, serviceInstance, writes);
             allNewBuckets.addAll(newBuckets);
 
             log.debug("Performing carry forward provision for Service Instance ID: {}", serviceInstance.getId());
-            List<BucketInstance> carryForwardBuckets = createCarryForwardBucketsOptimized(bucketInstanceList, quotaDetails, serviceInstance, bucketMap, qosProfileMap);
+            List<BucketInstance> carryForwardBuckets = createCarryForwardBucketsOptimized(bucketInstanceList, template,
+                    serviceInstance, validFrom, writes);
             allNewBuckets.addAll(carryForwardBuckets);
 
-            // Update user cache once with all newly created bucket instances
-            if (!allNewBuckets.isEmpty()) {
-                updateUserCacheWithBuckets(serviceInstance.getUsername(), allNewBuckets, serviceInstance);
-            }
-
+            return allNewBuckets;
         } catch (AAAException ex) {
             throw ex;
         } catch (Exception ex) {
@@ -398,20 +2184,18 @@ public class RecurrentServiceService {
     }
 
 
-    private List<BucketInstance> newQuotaProvisionOptimized(List<PlanToBucket> quotaDetails, ServiceInstance serviceInstance,
-                                            Map<String, Bucket> bucketMap, Map<Long, QOSProfile> qosProfileMap) {
+    private List<BucketInstance> newQuotaProvisionOptimized(ProvisioningTemplate template,
+                                                            ServiceInstance serviceInstance,
+                                                            ProvisioningWrites writes) {
         log.debug("Starting optimized new quota provision for Service Instance ID: {}, Quota count: {}",
-                serviceInstance.getId(), quotaDetails.size());
+                serviceInstance.getId(), template.prototypes().size());
 
         try {
-            List<BucketInstance> bucketInstanceList = new ArrayList<>();
-            for (PlanToBucket planToBucket : quotaDetails) {
-                BucketInstance bucketInstance = new BucketInstance();
-                setBucketDetailsOptimized(planToBucket.getBucketId(), bucketInstance, serviceInstance, planToBucket,
-                        Boolean.FALSE, null, bucketMap, qosProfileMap);
-                bucketInstanceList.add(bucketInstance);
-            }
-            bucketInstanceRepository.saveAll(bucketInstanceList);
+            List<BucketInstance> bucketInstanceList = new ArrayList<>(template.prototypes().size());
+            for (ProvisioningTemplate.BucketPrototype prototype : template.prototypes()) {
+                bucketInstanceList.add(prototype.newBucket(serviceInstance));
+            }
+            writes.saveBuckets(bucketInstanceList);
             log.info("Saved {} bucket instances for Service Instance ID: {}",
                     bucketInstanceList.size(), serviceInstance.getId());
 
@@ -425,81 +2209,6 @@ public class RecurrentServiceService {
         }
     }
 
-
-
-    @SuppressWarnings("java:S107")
-    private void setBucketDetailsOptimized(String bucketId, BucketInstance bucketInstance, ServiceInstance serviceInstance,
-                                           PlanToBucket planToBucket, boolean isCFBucket, Long currentBalance,
-                                           Map<String, Bucket> bucketMap, Map<Long, QOSProfile> qosProfileMap) {
-        try {
-            Bucket bucket = getBucketOrThrow(bucketId, bucketMap);
-            QOSProfile qosProfile = getQosProfileOrThrow(bucket, qosProfileMap);
-
-            setBasicBucketDetails(bucketInstance, bucket, serviceInstance, planToBucket, qosProfile);
-
-            if (isCFBucket && currentBalance != null) {
-                applyCarryForwardDetails(bucketInstance, serviceInstance, planToBucket, currentBalance);
-            }
-        } catch (AAAException ex) {
-            throw ex;
-        } catch (Exception ex) {
-            log.error("Error setting optimized bucket details for Bucket ID: {}", bucketId, ex);
-            throw new AAAException(LogMessages.ERROR_INTERNAL_ERROR, ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
-        }
-    }
-
-    private Bucket getBucketOrThrow(String bucketId, Map<String, Bucket> bucketMap) {
-        Bucket bucket = bucketMap.get(bucketId);
-        if (bucket == null) {
-            log.error("Bucket not found: {}", bucketId);
-            throw new AAAException(LogMessages.ERROR_POLICY_CONFLICT, "BUCKET_NOT_FOUND " + bucketId, HttpStatus.NOT_FOUND);
-        }
-        return bucket;
-    }
-
-    private QOSProfile getQosProfileOrThrow(Bucket bucket, Map<Long, QOSProfile> qosProfileMap) {
-        QOSProfile qosProfile = qosProfileMap.get(bucket.getQosId());
-        if (qosProfile == null) {
-            log.error("QoS profile not found: {}", bucket.getQosId());
-            throw new AAAException(LogMessages.ERROR_POLICY_CONFLICT, "QOS_PROFILE_NOT_FOUND " + bucket.getQosId(), HttpStatus.NOT_FOUND);
-        }
-        return qosProfile;
-    }
-
-    private void setBasicBucketDetails(BucketInstance bucketInstance, Bucket bucket, ServiceInstance serviceInstance,
-                                      PlanToBucket planToBucket, QOSProfile qosProfile) {
-        bucketInstance.setBucketId(bucket.getBucketId());
-        bucketInstance.setBucketType(bucket.getBucketType());
-        bucketInstance.setPriority(bucket.getPriority());
-        bucketInstance.setTimeWindow(bucket.getTimeWindow());
-        bucketInstance.setRule(qosProfile.getBngCode());
-        bucketInstance.setServiceId(serviceInstance.getId());
-        bucketInstance.setCarryForward(planToBucket.getCarryForward());
-        bucketInstance.setMaxCarryForward(planToBucket.getMaxCarryForward());
-        bucketInstance.setTotalCarryForward(planToBucket.getTotalCarryForward());
-        bucketInstance.setConsumptionLimit(planToBucket.getConsumptionLimit());
-        bucketInstance.setConsumptionLimitWindow(planToBucket.getConsumptionLimitWindow());
-        bucketInstance.setCurrentBalance(planToBucket.getInitialQuota());
-        bucketInstance.setCarryForwardValidity(planToBucket.getCarryForwardValidity());
-        bucketInstance.setInitialBalance(planToBucket.getInitialQuota());
-        bucketInstance.setExpiration(serviceInstance.getServiceCycleEndDate());
-        bucketInstance.setIsUnlimited(planToBucket.getIsUnlimited());
-        bucketInstance.setUsage(0L);
-    }
-
-    private void applyCarryForwardDetails(BucketInstance bucketInstance, ServiceInstance serviceInstance,
-                                         PlanToBucket planToBucket, Long currentBalance) {
-        bucketInstance.setBucketType(Constants.CARRY_FORWARD_BUCKET);
-        bucketInstance.setCarryForward(Boolean.FALSE);
-
-        Long adjustedBalance = Math.min(currentBalance, planToBucket.getMaxCarryForward());
-        bucketInstance.setCurrentBalance(adjustedBalance);
-        bucketInstance.setInitialBalance(adjustedBalance);
-        bucketInstance.setExpiration(serviceInstance.getServiceStartDate()
-                .plusDays(planToBucket.getCarryForwardValidity()));
-    }
-
-
     /**
      * Builds a map of existing carry forward buckets grouped by bucket ID
      * @param currentBucketInstanceList List of current bucket instances
@@ -589,21 +2298,15 @@ public class RecurrentServiceService {
      */
     private static class CarryForwardContext {
         final ServiceInstance serviceInstance;
-        final Map<String, Bucket> bucketMap;
-        final Map<Long, QOSProfile> qosProfileMap;
         final Map<String, List<BucketInstance>> existingCFBucketsByIdMap;
         final List<BucketInstance> newCarryForwardBucketList;
         final List<BucketInstance> updatesToSave;
 
         CarryForwardContext(ServiceInstance serviceInstance,
-                           Map<String, Bucket> bucketMap,
-                           Map<Long, QOSProfile> qosProfileMap,
                            Map<String, List<BucketInstance>> existingCFBucketsByIdMap,
                            List<BucketInstance> newCarryForwardBucketList,
                            List<BucketInstance> updatesToSave) {
             this.serviceInstance = serviceInstance;
-            this.bucketMap = bucketMap;
-            this.qosProfileMap = qosProfileMap;
             this.existingCFBucketsByIdMap = existingCFBucketsByIdMap;
             this.newCarryForwardBucketList = newCarryForwardBucketList;
             this.updatesToSave = updatesToSave;
@@ -613,14 +2316,13 @@ public class RecurrentServiceService {
     /**
      * Processes a single carry forward bucket creation
      */
-    private void processCarryForwardBucket(PlanToBucket planToBucket,
+    private void processCarryForwardBucket(ProvisioningTemplate.BucketPrototype prototype,
                                           BucketInstance carryForwardBucket,
                                           CarryForwardContext context) {
-        BucketInstance bucketInstance = new BucketInstance();
-        setBucketDetailsOptimized(planToBucket.getBucketId(), bucketInstance, context.serviceInstance, planToBucket,
-                Boolean.TRUE, carryForwardBucket.getCurrentBalance(), context.bucketMap, context.qosProfileMap);
+        BucketInstance bucketInstance = prototype.newCarryForwardBucket(context.serviceInstance,
+                carryForwardBucket.getCurrentBalance());
 
-        List<BucketInstance> existingCFBuckets = context.existingCFBucketsByIdMap.get(planToBucket.getBucketId());
+        List<BucketInstance> existingCFBuckets = context.existingCFBucketsByIdMap.get(prototype.bucketId());
         Long totalCFAmount = calculateTotalCFAmount(bucketInstance, existingCFBuckets);
 
         if (existingCFBuckets != null) {
@@ -631,6 +2333,17 @@ public class RecurrentServiceService {
         context.newCarryForwardBucketList.add(bucketInstance);
     }
 
+    /**
+     * Checks if a carry forward bucket created now would already be expired on the given date
+     */
+    private boolean isCarryForwardExpired(ProvisioningTemplate.BucketPrototype prototype,
+                                          ServiceInstance serviceInstance, LocalDate validFrom) {
+        return validFrom != null
+                && prototype.carryForwardValidity() != null
+                && serviceInstance.getServiceStartDate().plusDays(prototype.carryForwardValidity())
+                        .toLocalDate().isBefore(validFrom);
+    }
+
     /**
      * Checks if carry forward bucket has a valid balance
      */
@@ -640,46 +2353,54 @@ public class RecurrentServiceService {
             && bucket.getCurrentBalance() != 0L;
     }
 
+    /**
+     * @param validFrom Carry-forward buckets expiring before this date are not created; null creates all
+     */
     private List<BucketInstance> createCarryForwardBucketsOptimized(List<BucketInstance> currentBucketInstanceList,
-                                                    List<PlanToBucket> quotaDetails,
+                                                    ProvisioningTemplate template,
                                                     ServiceInstance serviceInstance,
-                                                    Map<String, Bucket> bucketMap,
-                                                    Map<Long, QOSProfile> qosProfileMap) {
+                                                    LocalDate validFrom,
+                                                    ProvisioningWrites writes) {
         Long serviceId = serviceInstance.getId();
         log.debug("Starting optimized create carry forward buckets for Service Instance ID: {}, Quota count: {}",
-                serviceId, quotaDetails.size());
+                serviceId, template.prototypes().size());
 
         try {
             List<BucketInstance> newCarryForwardBucketList = new ArrayList<>();
             List<BucketInstance> updatesToSave = new ArrayList<>();
-            LocalDate tomorrow = LocalDate.now(ZoneId.of(Constants.SL_TIME_ZONE)).plusDays(1);
+            // Day the new cycle starts: tomorrow for the nightly run, later for renewals planned ahead
+            LocalDate tomorrow = serviceInstance.getServiceCycleStartDate().toLocalDate();
 
             Map<String, List<BucketInstance>> existingCFBucketsByIdMap =
                 buildExistingCFBucketsMap(currentBucketInstanceList, tomorrow);
 
             CarryForwardContext context = new CarryForwardContext(
-                serviceInstance, bucketMap, qosProfileMap, existingCFBucketsByIdMap,
-                newCarryForwardBucketList, updatesToSave);
+                serviceInstance, existingCFBucketsByIdMap, newCarryForwardBucketList, updatesToSave);
 
             Map<String, BucketInstance> currentBucketMap = currentBucketInstanceList.stream()
                     .collect(Collectors.toMap(BucketInstance::getBucketId, b -> b, (b1, b2) -> b1));
 
-            for (PlanToBucket planToBucket : quotaDetails) {
-                if (Boolean.TRUE.equals(planToBucket.getCarryForward())) {
-                    BucketInstance carryForwardBucket = currentBucketMap.get(planToBucket.getBucketId());
+            for (ProvisioningTemplate.BucketPrototype prototype : template.prototypes()) {
+                if (Boolean.TRUE.equals(prototype.carryForward())) {
+                    if (isCarryForwardExpired(prototype, serviceInstance, validFrom)) {
+                        log.debug("Skipping expired carry forward of Bucket Id: {} for Service Id: {}",
+                                prototype.bucketId(), serviceId);
+                        continue;
+                    }
+                    BucketInstance carryForwardBucket = currentBucketMap.get(prototype.bucketId());
 
                     if (hasValidBalance(carryForwardBucket)) {
-                        processCarryForwardBucket(planToBucket, carryForwardBucket, context);
+                        processCarryForwardBucket(prototype, carryForwardBucket, context);
                     } else if (carryForwardBucket == null) {
                         log.error("Bucket Id: {} Bucket is not in current bucket list. Service Id: {}",
-                                planToBucket.getBucketId(), serviceId);
+                                prototype.bucketId(), serviceId);
                     }
                 }
             }
 
             // BATCH SAVE: Save all updates and new buckets together
-            bucketInstanceRepository.saveAll(updatesToSave);
-            bucketInstanceRepository.saveAll(newCarryForwardBucketList);
+            writes.saveBuckets(updatesToSave);
+            writes.saveBuckets(newCarryForwardBucketList);
             log.info("Saved {} carryforward bucket instances for Service Instance ID: {}",
                     newCarryForwardBucketList.size(), serviceId);
 
@@ -695,17 +2416,19 @@ public class RecurrentServiceService {
 
 
     /**
-     * Updates user cache with newly created bucket instances
-     * Converts BucketInstances to Balance objects and updates Redis cache via UserCacheService
+     * Updates user cache with the new bucket instances of several services of the same user.
+     * The session is read and written once, however many services were provisioned.
      *
      * @param username Username to update cache for
-     * @param newBucketInstances List of newly created bucket instances to add to cache
-     * @param serviceInstance ServiceInstance for getting service details
+     * @param provisionedServices Services of the user with their newly created bucket instances
      */
-    private void updateUserCacheWithBuckets(String username, List<BucketInstance> newBucketInstances,
-                                            ServiceInstance serviceInstance) {
-        log.debug("Updating user cache with {} new bucket instances for username: {}",
-                newBucketInstances.size(), username);
+    private void updateUserCacheWithBuckets(String username, List<ProvisionedService> provisionedServices) {
+        int newBucketCount = provisionedServices.stream().mapToInt(p -> p.newBuckets().size()).sum();
+        if (newBucketCount == 0) {
+            return;
+        }
+        log.debug("Updating user cache with {} new bucket instances of {} services for username: {}",
+                newBucketCount, provisionedServices.size(), username);
 
         try {
             // Get user entity to retrieve userId
@@ -724,13 +2447,26 @@ public class RecurrentServiceService {
                 return;
             }
 
-            // Convert BucketInstances to Balance objects
-            List<Balance> newBalances = convertBucketInstancesToBalances(newBucketInstances, serviceInstance);
+            // Convert BucketInstances to Balance objects, each with the details of its own service
+            List<Balance> newBalances = new ArrayList<>(newBucketCount);
+            for (ProvisionedService provisioned : provisionedServices) {
+                newBalances.addAll(convertBucketInstancesToBalances(provisioned.newBuckets(),
+                        provisioned.serviceInstance()));
+            }
 
-            // Add new balances to existing balance list
+            // Add new balances to existing balance list, skipping buckets already there from an earlier
+            // attempt (e.g. a write that timed out after it was applied), so an update can be retried
             if (userSessionData.getBalance() == null) {
                 userSessionData.setBalance(new ArrayList<>());
             }
+            Set<String> cachedBucketIds = userSessionData.getBalance().stream()
+                    .map(Balance::getBucketId)
+                    .collect(Collectors.toSet());
+            newBalances.removeIf(balance -> cachedBucketIds.contains(balance.getBucketId()));
+            if (newBalances.isEmpty()) {
+                log.debug("All {} bucket instances already in cache for username: {}", newBucketCount, username);
+                return;
+            }
             userSessionData.getBalance().addAll(newBalances);
 
             log.debug("Added {} balance entries to user session data for username: {}",
@@ -740,14 +2476,14 @@ public class RecurrentServiceService {
             userCacheService.updateUserAndRelatedCaches(username, userSessionData, username);
 
             log.info("Successfully updated cache for username: {} with {} new bucket instances",
-                    username, newBucketInstances.size());
+                    username, newBucketCount);
 
         } catch (AAAException ex) {
             throw ex;
         } catch (Exception ex) {
             log.error("Error updating user cache for username: {}", username, ex);
             throw new AAAException(LogMessages.ERROR_INTERNAL_ERROR,
-                    "Failed to update user cache: " + ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+                    "Failed to update user cache: " + ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR, ex);
         }
     }
 
@@ -793,8 +2529,35 @@ public class RecurrentServiceService {
         return balances;
     }
 
+    private void recordFailure(ServiceInstance serviceInstance, Plan plan, String username, Exception exception,
+                               String batchId) {
+        GroupShares shares = groupShares.get(batchId);
+        if (shares != null) {
+            // A group lead that failed leaves the shared buckets to the next service of its group
+            shares.release(serviceInstance.getId());
+        }
+        Map<Long, Exception> captured = capturedFailures.get(batchId);
+        if (captured != null) {
+            captured.put(serviceInstance.getId(), exception);
+            return;
+        }
+        saveServiceProcessingFailure(serviceInstance, plan, username, exception, batchId);
+    }
+
+    /**
+     * Records a service whose provisioning was committed but whose cache update failed, as a
+     * {@value #CACHE_UPDATE_FAILED} failure. Written even while failures are captured for a retry: the
+     * provisioning itself succeeded, and the failure retry pushes the cache entry again for such a record
+     * instead of provisioning the service again.
+     */
+    private void recordCacheFailure(ProvisionedService provisioned, Exception exception, String batchId) {
+        ServiceInstance serviceInstance = provisioned.serviceInstance();
+        saveServiceProcessingFailure(serviceInstance, provisioned.plan(), serviceInstance.getUsername(), exception,
+                batchId, CACHE_UPDATE_FAILED);
+    }
+
     /**
-     * Saves service processing failure details to the database.
+     * Saves service processing failure details to the database through {@link ServiceFailureSink}.
      * This method persists failure information for monitoring, analysis, and potential retry attempts.
      *
      * @param serviceInstance The service instance that failed
@@ -803,14 +2566,18 @@ public class RecurrentServiceService {
      * @param exception The exception that caused the failure
      * @param batchId The batch ID of the processing run
      */
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void saveServiceProcessingFailure(ServiceInstance serviceInstance, Plan plan,
+    private void saveServiceProcessingFailure(ServiceInstance serviceInstance, Plan plan,
                                              String username, Exception exception, String batchId) {
+        saveServiceProcessingFailure(serviceInstance, plan, username, exception, batchId,
+                exception.getClass().getSimpleName());
+    }
+
+    private void saveServiceProcessingFailure(ServiceInstance serviceInstance, Plan plan, String username,
+                                              Exception exception, String batchId, String errorType) {
         try {
             // Extract stack trace
             String stackTrace = getStackTrace(exception);
             String errorMessage = exception.getMessage();
-            String errorType = exception.getClass().getSimpleName();
 
             // Build additional info
             String additionalInfo = String.format("ServiceId: %d, NextCycleStart: %s",
@@ -832,8 +2599,8 @@ public class RecurrentServiceService {
                     .additionalInfo(truncateString(additionalInfo, 1000))
                     .build();
 
-            serviceProcessingFailureRepository.save(failure);
-            log.debug("Saved failure record for service ID: {}, username: {}", serviceInstance.getId(), username);
+            serviceFailureSink.submit(failure);
+            log.debug("Queued failure record for service ID: {}, username: {}", serviceInstance.getId(), username);
 
         } catch (Exception ex) {
             // Log but don't throw - we don't want failure tracking to break the main processing
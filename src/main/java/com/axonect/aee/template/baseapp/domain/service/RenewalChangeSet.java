@@ -0,0 +1,47 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import com.axonect.aee.template.baseapp.domain.entities.repo.BucketInstance;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Writes of one planned renewal, stored as JSON in RENEWAL_PLAN.CHANGE_SET.
+ *
+ * @param insertedBuckets new bucket instances (new quota and carry forward), without IDs
+ * @param updatedBuckets existing bucket instances adjusted by carry forward, with their IDs
+ */
+record RenewalChangeSet(
+        LocalDateTime serviceStartDate,
+        LocalDateTime serviceCycleStartDate,
+        LocalDateTime serviceCycleEndDate,
+        LocalDateTime nextCycleStartDate,
+        List<BucketInstance> insertedBuckets,
+        List<BucketInstance> updatedBuckets) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    String toJson() {
+        try {
+            return MAPPER.writeValueAsString(this);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize renewal change set", e);
+        }
+    }
+
+    static RenewalChangeSet fromJson(String json) {
+        try {
+            return MAPPER.readValue(json, RenewalChangeSet.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read renewal change set", e);
+        }
+    }
+}
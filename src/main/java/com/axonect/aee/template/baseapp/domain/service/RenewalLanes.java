@@ -0,0 +1,93 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import com.axonect.aee.template.baseapp.domain.entities.dto.DueServiceKey;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Priority lanes for renewal processing, parsed from recurrent-service.lanes.definitions.
+ *
+ * Definitions are comma separated, highest priority first, each as {@code name:criterion:workers}:
+ * <pre>
+ *   planType=PREMIUM|GOLD   plan type is one of the listed types
+ *   group                   group service (SERVICE_INSTANCE.IS_GROUP)
+ *   dueBefore=06:00         cycle starts before this time of day
+ *   *                       everything else
+ * </pre>
+ * A service goes to the first lane it matches; services matching no lane go to the last lane.
+ */
+final class RenewalLanes {
+
+    private final List<Lane> lanes;
+
+    private RenewalLanes(List<Lane> lanes) {
+        this.lanes = lanes;
+    }
+
+    static RenewalLanes parse(String definitions) {
+        List<Lane> lanes = new ArrayList<>();
+        for (String definition : definitions.split(",")) {
+            String trimmed = definition.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int first = trimmed.indexOf(':');
+            int last = trimmed.lastIndexOf(':');
+            if (first <= 0 || last == first) {
+                throw new IllegalArgumentException("Invalid renewal lane definition: " + trimmed);
+            }
+            lanes.add(new Lane(trimmed.substring(0, first), trimmed.substring(first + 1, last).trim(),
+                    Math.max(1, Integer.parseInt(trimmed.substring(last + 1).trim()))));
+        }
+        if (lanes.isEmpty()) {
+            throw new IllegalArgumentException("No renewal lanes defined");
+        }
+        return new RenewalLanes(List.copyOf(lanes));
+    }
+
+    int size() {
+        return lanes.size();
+    }
+
+    Lane get(int index) {
+        return lanes.get(index);
+    }
+
+    /**
+     * @param planType type of the service's plan, null if the plan is unknown
+     * @return index of the lane the service belongs to
+     */
+    int classify(DueServiceKey key, String planType) {
+        for (int index = 0; index < lanes.size() - 1; index++) {
+            if (lanes.get(index).matches(key, planType)) {
+                return index;
+            }
+        }
+        return lanes.size() - 1;
+    }
+
+    record Lane(String name, String criterion, int workers) {
+
+        boolean matches(DueServiceKey key, String planType) {
+            if ("*".equals(criterion)) {
+                return true;
+            }
+            if ("group".equalsIgnoreCase(criterion)) {
+                return Boolean.TRUE.equals(key.getIsGroup());
+            }
+            if (criterion.startsWith("planType=")) {
+                return planType != null
+                        && Set.of(criterion.substring("planType=".length()).split("\\|")).contains(planType);
+            }
+            if (criterion.startsWith("dueBefore=")) {
+                LocalTime limit = LocalTime.parse(criterion.substring("dueBefore=".length()));
+                return key.getNextCycleStartDate() != null
+                        && key.getNextCycleStartDate().toLocalTime().isBefore(limit);
+            }
+            throw new IllegalArgumentException("Unknown renewal lane criterion: " + criterion);
+        }
+    }
+}
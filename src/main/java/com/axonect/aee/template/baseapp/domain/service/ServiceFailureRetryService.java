@@ -0,0 +1,329 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import com.axonect.aee.template.baseapp.application.repository.ServiceInstanceRepository;
+import com.axonect.aee.template.baseapp.application.repository.ServiceProcessingFailureRepository;
+import com.axonect.aee.template.baseapp.domain.entities.dto.FailureRetrySummary;
+import com.axonect.aee.template.baseapp.domain.entities.repo.ServiceInstance;
+import com.axonect.aee.template.baseapp.domain.entities.repo.ServiceProcessingFailure;
+import com.axonect.aee.template.baseapp.domain.exception.AAAException;
+import com.axonect.aee.template.baseapp.domain.util.Constants;
+import com.axonect.aee.template.baseapp.domain.util.LogMessages;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Retries services recorded in SERVICE_PROCESSING_FAILURE.
+ *
+ * The scheduled retry reads FAILED rows with fewer than failure-retry.max-retries attempts in ID order,
+ * and retries those whose backoff has elapsed: failure-retry.base-backoff-minutes after the failure,
+ * doubled after every failed retry and counted from LAST_RETRY_DATE, up to max-backoff-minutes.
+ * Rows of the same service are retried together, through the nightly provisioning path with batched
+ * reference loading. The outcome is written back with one bulk update per batch and outcome:
+ * RESOLVED with RESOLVED_DATE, or an incremented RETRY_COUNT.
+ *
+ * A service is only renewed if it is still due as it was when it failed. A run on day D renews the
+ * services due on D + 1, so a failure recorded on D was for a cycle starting before D + 2; a service whose
+ * NEXT_CYCLE_START_DATE has moved past that was renewed since, and its rows are resolved without
+ * renewing it again.
+ *
+ * Rows of type {@value RecurrentServiceService#CACHE_UPDATE_FAILED} were written after the renewal had
+ * committed, so the moved NEXT_CYCLE_START_DATE says nothing about them: for those the buckets of the
+ * service are pushed to its cache entry again, and the rows are resolved once that succeeds.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ServiceFailureRetryService {
+
+    public static final String JOB_NAME = "SERVICE_FAILURE_RETRY";
+
+    private static final String STATUS_FAILED = "FAILED";
+
+    private final ServiceProcessingFailureRepository serviceProcessingFailureRepository;
+    private final ServiceInstanceRepository serviceInstanceRepository;
+    private final RecurrentServiceService recurrentServiceService;
+    private final JobShutdownCoordinator jobShutdownCoordinator;
+    private final JobExecutionRegistry jobExecutionRegistry;
+    private final JobTunables jobTunables;
+    private final TunableCronScheduler tunableCronScheduler;
+
+    @Autowired
+    @Lazy
+    private ServiceFailureRetryService self;
+
+    @Value("${failure-retry.max-retries:5}")
+    private int maxRetries;
+
+    @Value("${failure-retry.base-backoff-minutes:15}")
+    private long baseBackoffMinutes;
+
+    @Value("${failure-retry.max-backoff-minutes:1440}")
+    private long maxBackoffMinutes;
+
+    private FailureRetryPolicy policy;
+
+    @PostConstruct
+    void scheduleRetries() {
+        policy = new FailureRetryPolicy(baseBackoffMinutes, maxBackoffMinutes);
+        tunableCronScheduler.schedule(JobTunables.FAILURE_RETRY_SCHEDULE, this::scheduleRetryFailures);
+    }
+
+    /**
+     * Scheduled retry; runs as a job execution, so it is visible and cancellable through /api/jobs.
+     */
+    public void scheduleRetryFailures() {
+        JobExecution execution = jobExecutionRegistry.submit(JOB_NAME, this::retryFailures);
+        execution.await();
+        log.info("Scheduled retry of service processing failures finished with status {}",
+                execution.status().getStatus());
+    }
+
+    /**
+     * Retries every FAILED row whose backoff has elapsed and that has retries left.
+     * Skipped while a renewal run is in progress on this replica, which may be renewing the same services.
+     */
+    public void retryFailures() {
+        if (isRenewalRunning()) {
+            log.info("Renewal run in progress, retry of service processing failures skipped");
+            return;
+        }
+        if (!jobShutdownCoordinator.enter()) {
+            log.warn("Shutdown in progress, retry of service processing failures not started");
+            return;
+        }
+        try {
+            runRetry(jobExecutionRegistry.current(JOB_NAME));
+        } finally {
+            jobShutdownCoordinator.exit();
+        }
+    }
+
+    /**
+     * Replays all FAILED rows of one processing run at once, regardless of backoff and retries left.
+     *
+     * @param batchId The batch ID of the run whose failures are replayed
+     */
+    public FailureRetrySummary replayBatch(String batchId) {
+        List<ServiceProcessingFailure> failures = serviceProcessingFailureRepository.findByBatchId(batchId).stream()
+                .filter(failure -> STATUS_FAILED.equals(failure.getProcessingStatus()))
+                .sorted(Comparator.comparing(ServiceProcessingFailure::getId))
+                .toList();
+        if (failures.isEmpty()) {
+            throw new AAAException(LogMessages.ERROR_NOT_FOUND, "No unresolved failures for batch ID: " + batchId,
+                    HttpStatus.NOT_FOUND);
+        }
+        if (isRenewalRunning()) {
+            throw new AAAException(LogMessages.ERROR_INTERNAL_ERROR,
+                    "Renewal run in progress, replay of batch " + batchId + " not started", HttpStatus.CONFLICT);
+        }
+        if (!jobShutdownCoordinator.enter()) {
+            throw new AAAException(LogMessages.ERROR_INTERNAL_ERROR,
+                    "Shutdown in progress, replay of batch " + batchId + " not started",
+                    HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        String retryBatchId = UUID.randomUUID().toString();
+        RetryCounts counts = new RetryCounts();
+        try {
+            log.info("Replay of {} failures of batch {} started with batch ID: {}", failures.size(), batchId,
+                    retryBatchId);
+            Set<Long> attempted = new HashSet<>();
+            int from = 0;
+            while (from < failures.size()) {
+                int to = Math.min(from + jobTunables.getInt(JobTunables.FAILURE_RETRY_BATCH_SIZE), failures.size());
+                retry(failures.subList(from, to), retryBatchId, attempted, counts);
+                from = to;
+            }
+        } finally {
+            jobShutdownCoordinator.exit();
+        }
+
+        log.info("Replay of batch {} Completed. Services: {}, Resolved: {}, Still failing: {}", batchId,
+                counts.services.get(), counts.resolved.get(), counts.stillFailing.get());
+        return counts.toSummary(batchId);
+    }
+
+    private void runRetry(JobExecution execution) {
+        String retryBatchId = UUID.randomUUID().toString();
+        log.info("Retry of service processing failures started with batch ID: {}", retryBatchId);
+
+        RetryCounts counts = new RetryCounts();
+        execution.track(-1, () -> (long) counts.resolved.get() + counts.stillFailing.get(),
+                counts.stillFailing::get);
+        Set<Long> attempted = new HashSet<>();
+        long lastId = 0L;
+        List<ServiceProcessingFailure> failures;
+        int requested;
+        do {
+            requested = jobTunables.getInt(JobTunables.FAILURE_RETRY_BATCH_SIZE);
+            failures = serviceProcessingFailureRepository.findByProcessingStatusAndRetryCountLessThanAfterId(
+                    STATUS_FAILED, maxRetries, lastId, PageRequest.of(0, requested));
+            if (failures.isEmpty()) {
+                break;
+            }
+            lastId = failures.get(failures.size() - 1).getId();
+
+            LocalDateTime now = now();
+            List<ServiceProcessingFailure> due = failures.stream()
+                    .filter(failure -> !policy.nextRetryAt(failure).isAfter(now))
+                    .toList();
+            if (!due.isEmpty()) {
+                retry(due, retryBatchId, attempted, counts);
+            }
+        } while (failures.size() == requested && !jobShutdownCoordinator.isStopRequested()
+                && !execution.isCancelRequested());
+
+        log.info("Retry of service processing failures Completed. Services: {}, Resolved: {}, Still failing: {}",
+                counts.services.get(), counts.resolved.get(), counts.stillFailing.get());
+    }
+
+    /**
+     * Retries the services of a batch of failure rows and records the outcome on the rows.
+     * A service already attempted earlier in the same run is not attempted again; its rows are left as they are.
+     */
+    private void retry(List<ServiceProcessingFailure> failures, String retryBatchId, Set<Long> attempted,
+                       RetryCounts counts) {
+        Map<Long, List<ServiceProcessingFailure>> failuresByService = new LinkedHashMap<>();
+        Map<Long, List<ServiceProcessingFailure>> cacheFailuresByService = new LinkedHashMap<>();
+        failures.stream()
+                .filter(failure -> failure.getServiceInstanceId() != null)
+                .filter(failure -> !attempted.contains(failure.getServiceInstanceId()))
+                .forEach(failure -> (isCacheFailure(failure) ? cacheFailuresByService : failuresByService)
+                        .computeIfAbsent(failure.getServiceInstanceId(), id -> new ArrayList<>()).add(failure));
+        attempted.addAll(failuresByService.keySet());
+        attempted.addAll(cacheFailuresByService.keySet());
+
+        Set<Long> serviceIds = new HashSet<>(failuresByService.keySet());
+        serviceIds.addAll(cacheFailuresByService.keySet());
+        Map<Long, ServiceInstance> services = serviceInstanceRepository.findAllById(serviceIds)
+                .stream()
+                .collect(Collectors.toMap(ServiceInstance::getId, service -> service));
+
+        List<ServiceInstance> due = new ArrayList<>();
+        List<Long> resolvedIds = new ArrayList<>();
+        // Rows without a service cannot be retried; counting the attempt lets them run out of retries
+        List<Long> retriedIds = failures.stream()
+                .filter(failure -> failure.getServiceInstanceId() == null)
+                .map(ServiceProcessingFailure::getId)
+                .collect(Collectors.toCollection(ArrayList::new));
+        failuresByService.forEach((serviceId, rows) -> {
+            ServiceInstance service = services.get(serviceId);
+            if (policy.isStillDue(service, rows, now())) {
+                due.add(service);
+            } else {
+                rows.forEach(row -> resolvedIds.add(row.getId()));
+            }
+        });
+
+        Map<Long, Exception> failedAgain = due.isEmpty()
+                ? Map.of()
+                : recurrentServiceService.retryServices(due, retryBatchId);
+        for (ServiceInstance service : due) {
+            List<ServiceProcessingFailure> rows = failuresByService.get(service.getId());
+            Exception failure = failedAgain.get(service.getId());
+            if (failure != null) {
+                log.warn("Retry of service ID: {} for user: {} failed again. Error: {}",
+                        service.getId(), service.getUsername(), failure.getMessage());
+                rows.forEach(row -> retriedIds.add(row.getId()));
+            } else {
+                rows.forEach(row -> resolvedIds.add(row.getId()));
+            }
+        }
+
+        // Renewal committed but the cache entry missed its buckets: push them again, whatever the cycle is now
+        List<ServiceInstance> uncached = new ArrayList<>();
+        cacheFailuresByService.forEach((serviceId, rows) -> {
+            ServiceInstance service = services.get(serviceId);
+            if (service != null) {
+                uncached.add(service);
+            } else {
+                rows.forEach(row -> resolvedIds.add(row.getId()));
+            }
+        });
+        Map<Long, Exception> cacheFailedAgain = uncached.isEmpty()
+                ? Map.of()
+                : recurrentServiceService.refreshCache(uncached);
+        for (ServiceInstance service : uncached) {
+            List<ServiceProcessingFailure> rows = cacheFailuresByService.get(service.getId());
+            if (cacheFailedAgain.containsKey(service.getId())) {
+                rows.forEach(row -> retriedIds.add(row.getId()));
+            } else {
+                rows.forEach(row -> resolvedIds.add(row.getId()));
+            }
+        }
+
+        self.recordRetryOutcome(resolvedIds, retriedIds, now());
+        counts.failures.addAndGet(failures.size());
+        counts.services.addAndGet(due.size() + uncached.size());
+        counts.resolved.addAndGet(resolvedIds.size());
+        counts.stillFailing.addAndGet(retriedIds.size());
+    }
+
+    /**
+     * Writes the outcome of a retry batch: resolved rows and rows that failed again, one bulk update each.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void recordRetryOutcome(List<Long> resolvedIds, List<Long> retriedIds, LocalDateTime retryDate) {
+        if (!resolvedIds.isEmpty()) {
+            serviceProcessingFailureRepository.markResolved(resolvedIds, retryDate);
+        }
+        if (!retriedIds.isEmpty()) {
+            serviceProcessingFailureRepository.markRetried(retriedIds, retryDate);
+        }
+    }
+
+    private static boolean isCacheFailure(ServiceProcessingFailure failure) {
+        return RecurrentServiceService.CACHE_UPDATE_FAILED.equals(failure.getErrorType());
+    }
+
+    /**
+     * Counts every renewal run of this replica, including sweeper and renewal wheel runs that are not
+     * tracked as job executions.
+     */
+    private boolean isRenewalRunning() {
+        return recurrentServiceService.isRenewalRunning();
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(ZoneId.of(Constants.SL_TIME_ZONE));
+    }
+
+    private static class RetryCounts {
+        final AtomicInteger failures = new AtomicInteger();
+        final AtomicInteger services = new AtomicInteger();
+        final AtomicInteger resolved = new AtomicInteger();
+        final AtomicInteger stillFailing = new AtomicInteger();
+
+        FailureRetrySummary toSummary(String batchId) {
+            return FailureRetrySummary.builder()
+                    .batchId(batchId)
+                    .failures(failures.get())
+                    .servicesRetried(services.get())
+                    .resolved(resolved.get())
+                    .stillFailing(stillFailing.get())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import com.axonect.aee.template.baseapp.domain.entities.repo.ServiceProcessingFailure;
+import com.axonect.aee.template.baseapp.domain.util.Constants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes SERVICE_PROCESSING_FAILURE records off the processing threads.
+ *
+ * Failures are buffered in a bounded queue and inserted in JDBC batches by a background thread, at most
+ * failure-sink.flush-interval-ms after they were recorded. When the queue is full the recording thread
+ * writes a batch itself, so a burst of failures slows processing down instead of being dropped.
+ * Jobs call {@link #flush()} when they end; on shutdown the sink stops after the jobs have drained
+ * and writes what is left.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ServiceFailureSink implements SmartLifecycle {
+
+    private static final String INSERT_FAILURE_SQL =
+            "INSERT INTO SERVICE_PROCESSING_FAILURE (ID, SERVICE_INSTANCE_ID, USERNAME, PLAN_ID, PLAN_NAME, " +
+            "ERROR_TYPE, ERROR_MESSAGE, STACK_TRACE, RETRY_COUNT, PROCESSING_STATUS, FAILURE_DATE, BATCH_ID, " +
+            "ADDITIONAL_INFO) VALUES (SERVICE_PROCESSING_FAILURE_SEQ.NEXTVAL, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    @Value("${failure-sink.enabled:true}")
+    private boolean enabled;
+
+    @Value("${failure-sink.capacity:10000}")
+    private int capacity;
+
+    @Value("${failure-sink.batch-size:500}")
+    private int batchSize;
+
+    @Value("${failure-sink.flush-interval-ms:1000}")
+    private long flushIntervalMillis;
+
+    private volatile BlockingQueue<ServiceProcessingFailure> queue;
+    private volatile Thread writer;
+    private volatile boolean running;
+
+    /**
+     * Queues a failure record, or writes it right away if the sink is disabled or stopped.
+     * Never throws: failure tracking must not break the processing that failed.
+     */
+    public void submit(ServiceProcessingFailure failure) {
+        BlockingQueue<ServiceProcessingFailure> pending = queue;
+        if (!running || pending == null) {
+            write(List.of(failure));
+            return;
+        }
+        while (!pending.offer(failure)) {
+            // Full: write a batch on this thread rather than wait for the background writer
+            flushBatch();
+        }
+        if (!running) {
+            // Stopped while queueing, after the final flush
+            flush();
+        }
+    }
+
+    /**
+     * Writes every record queued so far, waiting for a batch the background writer is writing.
+     */
+    public void flush() {
+        BlockingQueue<ServiceProcessingFailure> pending = queue;
+        if (pending == null) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            List<ServiceProcessingFailure> batch = new ArrayList<>(batchSize);
+            while (pending.drainTo(batch, batchSize) > 0) {
+                write(batch);
+                batch.clear();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void flushBatch() {
+        writeLock.lock();
+        try {
+            List<ServiceProcessingFailure> batch = new ArrayList<>(batchSize);
+            if (queue.drainTo(batch, batchSize) > 0) {
+                write(batch);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void writeLoop() {
+        while (running) {
+            try {
+                ServiceProcessingFailure first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                writeLock.lock();
+                try {
+                    List<ServiceProcessingFailure> batch = new ArrayList<>(batchSize);
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    write(batch);
+                } finally {
+                    writeLock.unlock();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void write(List<ServiceProcessingFailure> batch) {
+        try {
+            // Same zone as LAST_RETRY_DATE and the backoff of the failure retry
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now(ZoneId.of(Constants.SL_TIME_ZONE)));
+            jdbcTemplate.batchUpdate(INSERT_FAILURE_SQL, batch, batch.size(), (ps, failure) -> {
+                if (failure.getServiceInstanceId() != null) {
+                    ps.setLong(1, failure.getServiceInstanceId());
+                } else {
+                    ps.setNull(1, Types.NUMERIC);
+                }
+                ps.setString(2, failure.getUsername());
+                ps.setString(3, failure.getPlanId());
+                ps.setString(4, failure.getPlanName());
+                ps.setString(5, failure.getErrorType());
+                ps.setString(6, failure.getErrorMessage());
+                ps.setString(7, failure.getStackTrace());
+                ps.setInt(8, failure.getRetryCount() != null ? failure.getRetryCount() : 0);
+                ps.setString(9, failure.getProcessingStatus());
+                ps.setTimestamp(10, now);
+                ps.setString(11, failure.getBatchId());
+                ps.setString(12, failure.getAdditionalInfo());
+            });
+            log.debug("Saved {} failure records", batch.size());
+        } catch (Exception ex) {
+            // Log but don't throw - we don't want failure tracking to break the main processing
+            log.error("Failed to save {} processing failure records. Error: {}", batch.size(), ex.getMessage(), ex);
+            batch.forEach(failure -> log.error("Unsaved failure of service ID: {}, plan: {}, batch: {}: {}",
+                    failure.getServiceInstanceId(), failure.getPlanId(), failure.getBatchId(),
+                    failure.getErrorMessage()));
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(capacity);
+        running = true;
+        writer = Thread.ofVirtual().name("service-failure-sink").start(this::writeLoop);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread current = writer;
+        if (current != null) {
+            // Not interrupted, so a batch being inserted is not cut off; the writer ends at its next poll
+            try {
+                current.join(flushIntervalMillis + TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        log.info("Service failure sink stopped");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops after {@link JobShutdownCoordinator} (a higher phase stops first), so the failures of the
+     * drained jobs are still written.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 1;
+    }
+}
@@ -0,0 +1,351 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs a partitioned chunk job as four stages connected by bounded queues:
+ * reader -> reference data -> writer -> cache.
+ *
+ * Each stage has its own virtual-thread workers, so database reads, database writes and Redis
+ * updates overlap instead of running one after another. Queues are bounded, so a slow stage
+ * blocks the stage in front of it (backpressure) instead of buffering the whole run in memory.
+ *
+ * The cache stage is sharded by key (e.g. username): all outputs with the same key go to the same
+ * worker, so read-modify-write updates of one user's cache entry never race.
+ *
+ * A partition is completed on the {@link PartitionSource} only after every chunk read from it has
+ * passed the cache stage. If the reference data or writer stage fails for a chunk, the items of the
+ * chunk are handed to the failed-chunk handler, which records them as failures, and the partition is
+ * left uncompleted so that a leased run picks it up again.
+ *
+ * @param <I> item read from the database
+ * @param <P> chunk enriched with reference data
+ * @param <O> writer output handed to the cache stage
+ */
+@Slf4j
+final class StagedChunkPipeline<I, P, O> {
+
+    /**
+     * Reads one partition chunk by chunk and hands every chunk to the given sink.
+     */
+    @FunctionalInterface
+    interface PartitionReader<I> {
+        void read(int partition, Consumer<List<I>> chunkSink);
+    }
+
+    private final String name;
+    private final PartitionSource partitionSource;
+    private final PartitionReader<I> reader;
+    private final Function<List<I>, P> referenceStage;
+    private final Function<P, List<O>> writerStage;
+    private final Consumer<O> cacheStage;
+    private final Function<O, Object> cacheShardKey;
+    private final BiConsumer<List<I>, Exception> failedChunk;
+
+    private final int readerWorkers;
+    private final int referenceWorkers;
+    private final int writerWorkers;
+    private final int cacheWorkers;
+    private final int queueCapacity;
+    private final long reportIntervalSeconds;
+
+    private final BlockingQueue<Envelope<List<I>>> referenceQueue;
+    private final BlockingQueue<Envelope<Prepared<I, P>>> writerQueue;
+    private final List<BlockingQueue<Envelope<O>>> cacheQueues = new ArrayList<>();
+
+    private final StageStats readerStats = new StageStats("reader");
+    private final StageStats referenceStats = new StageStats("reference-data");
+    private final StageStats writerStats = new StageStats("writer");
+    private final StageStats cacheStats = new StageStats("cache");
+
+    private final Map<Integer, PartitionProgress> partitions = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("java:S107")
+    StagedChunkPipeline(String name, PartitionSource partitionSource, PartitionReader<I> reader,
+                        Function<List<I>, P> referenceStage, Function<P, List<O>> writerStage,
+                        Consumer<O> cacheStage, Function<O, Object> cacheShardKey,
+                        BiConsumer<List<I>, Exception> failedChunk, Settings settings) {
+        this.name = name;
+        this.partitionSource = partitionSource;
+        this.reader = reader;
+        this.referenceStage = referenceStage;
+        this.writerStage = writerStage;
+        this.cacheStage = cacheStage;
+        this.cacheShardKey = cacheShardKey;
+        this.failedChunk = failedChunk;
+        this.readerWorkers = Math.max(1, Math.min(settings.readerWorkers(), partitionSource.partitionCount()));
+        this.referenceWorkers = Math.max(1, settings.referenceWorkers());
+        this.writerWorkers = Math.max(1, settings.writerWorkers());
+        this.cacheWorkers = Math.max(1, settings.cacheWorkers());
+        this.queueCapacity = Math.max(1, settings.queueCapacity());
+        this.reportIntervalSeconds = settings.reportIntervalSeconds();
+
+        this.referenceQueue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writerQueue = new ArrayBlockingQueue<>(queueCapacity);
+        for (int shard = 0; shard < cacheWorkers; shard++) {
+            // Cache items are single outputs rather than chunks, so give each shard a chunk's worth of room
+            cacheQueues.add(new ArrayBlockingQueue<>(queueCapacity * 64));
+        }
+    }
+
+    /**
+     * Runs the pipeline until every partition handed out by the source has been drained.
+     * Stages are shut down front to back: each stage gets end-of-stream markers once the stage
+     * in front of it has finished.
+     */
+    void run() {
+        log.info("{} pipeline started: readers={}, reference-data={}, writers={}, cache={}, queue capacity={}",
+                name, readerWorkers, referenceWorkers, writerWorkers, cacheWorkers, queueCapacity);
+        long startNanos = System.nanoTime();
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name(name + "-pipeline-reporter").factory());
+        if (reportIntervalSeconds > 0) {
+            reporter.scheduleAtFixedRate(() -> report(startNanos),
+                    reportIntervalSeconds, reportIntervalSeconds, TimeUnit.SECONDS);
+        }
+
+        try (ExecutorService cacheExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (BlockingQueue<Envelope<O>> cacheQueue : cacheQueues) {
+                cacheExecutor.submit(() -> runCacheWorker(cacheQueue));
+            }
+
+            try (ExecutorService writerExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < writerWorkers; i++) {
+                    writerExecutor.submit(this::runWriterWorker);
+                }
+
+                try (ExecutorService referenceExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+                    for (int i = 0; i < referenceWorkers; i++) {
+                        referenceExecutor.submit(this::runReferenceWorker);
+                    }
+
+                    try (ExecutorService readerExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+                        for (int i = 0; i < readerWorkers; i++) {
+                            readerExecutor.submit(this::runReaderWorker);
+                        }
+                    }
+                    signalEnd(referenceQueue, referenceWorkers);
+                }
+                signalEnd(writerQueue, writerWorkers);
+            }
+            for (BlockingQueue<Envelope<O>> cacheQueue : cacheQueues) {
+                signalEnd(cacheQueue, 1);
+            }
+        } finally {
+            reporter.shutdownNow();
+        }
+
+        report(startNanos);
+        log.info("{} pipeline finished in {} ms", name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    private void runReaderWorker() {
+        Integer partition;
+        while ((partition = partitionSource.next()) != null) {
+            int current = partition;
+            PartitionProgress progress = new PartitionProgress();
+            partitions.put(current, progress);
+            try {
+                reader.read(current, chunk -> {
+                    readerStats.record(chunk.size());
+                    progress.add(1);
+                    put(referenceQueue, new Envelope<>(current, chunk));
+                });
+            } catch (Exception ex) {
+                progress.failed = true;
+                log.error("{} pipeline: reading partition {}/{} aborted. Error: {}",
+                        name, current, partitionSource.partitionCount(), ex.getMessage(), ex);
+            } finally {
+                // Releases the reader's own hold on the partition
+                done(current, 1);
+            }
+        }
+    }
+
+    private void runReferenceWorker() {
+        Envelope<List<I>> envelope;
+        while (!(envelope = take(referenceQueue)).isEnd()) {
+            List<I> chunk = envelope.payload();
+            try {
+                P prepared = referenceStage.apply(chunk);
+                referenceStats.record(chunk.size());
+                put(writerQueue, new Envelope<>(envelope.partition(), new Prepared<>(chunk, prepared)));
+            } catch (Exception ex) {
+                fail(envelope.partition(), "reference data", chunk, ex);
+            }
+        }
+    }
+
+    private void runWriterWorker() {
+        Envelope<Prepared<I, P>> envelope;
+        while (!(envelope = take(writerQueue)).isEnd()) {
+            int partition = envelope.partition();
+            try {
+                List<O> outputs = writerStage.apply(envelope.payload().prepared());
+                writerStats.record(outputs.size());
+                partitions.get(partition).add(outputs.size());
+                for (O output : outputs) {
+                    put(cacheQueues.get(shardOf(output)), new Envelope<>(partition, output));
+                }
+                done(partition, 1);
+            } catch (Exception ex) {
+                fail(partition, "writer", envelope.payload().chunk(), ex);
+            }
+        }
+    }
+
+    private void runCacheWorker(BlockingQueue<Envelope<O>> cacheQueue) {
+        Envelope<O> envelope;
+        while (!(envelope = take(cacheQueue)).isEnd()) {
+            try {
+                cacheStage.accept(envelope.payload());
+                cacheStats.record(1);
+            } catch (Exception ex) {
+                // The cache stage is expected to record its own failures; never lose the worker
+                log.error("{} pipeline: cache stage error. Error: {}", name, ex.getMessage(), ex);
+            } finally {
+                done(envelope.partition(), 1);
+            }
+        }
+    }
+
+    private int shardOf(O output) {
+        return Math.floorMod(cacheShardKey.apply(output).hashCode(), cacheWorkers);
+    }
+
+    private void fail(int partition, String stage, List<I> chunk, Exception ex) {
+        log.error("{} pipeline: {} stage failed for a chunk of {} items of partition {}/{}. Error: {}",
+                name, stage, chunk.size(), partition, partitionSource.partitionCount(), ex.getMessage(), ex);
+        partitions.get(partition).failed = true;
+        try {
+            failedChunk.accept(chunk, ex);
+        } catch (Exception handlerEx) {
+            log.error("{} pipeline: recording the failed chunk failed. Error: {}", name, handlerEx.getMessage(),
+                    handlerEx);
+        } finally {
+            done(partition, 1);
+        }
+    }
+
+    private void done(int partition, int units) {
+        PartitionProgress progress = partitions.get(partition);
+        if (progress.pending.addAndGet(-units) == 0) {
+            if (progress.failed) {
+                // Left uncompleted, so its lease expires and the partition is processed again
+                log.warn("{} pipeline: partition {} finished with errors and is not completed", name, partition);
+            } else {
+                partitionSource.complete(partition);
+            }
+        }
+    }
+
+    private void report(long startNanos) {
+        double elapsedSeconds = Math.max(1e-3, (System.nanoTime() - startNanos) / 1_000_000_000.0);
+        int cacheDepth = cacheQueues.stream().mapToInt(BlockingQueue::size).sum();
+        log.info("{} pipeline: {} | {} | {} | {}", name,
+                readerStats.describe(elapsedSeconds),
+                referenceStats.describe(elapsedSeconds) + ", queued=" + referenceQueue.size(),
+                writerStats.describe(elapsedSeconds) + ", queued=" + writerQueue.size(),
+                cacheStats.describe(elapsedSeconds) + ", queued=" + cacheDepth);
+    }
+
+    private static <T> void signalEnd(BlockingQueue<Envelope<T>> queue, int consumers) {
+        for (int i = 0; i < consumers; i++) {
+            put(queue, Envelope.end());
+        }
+    }
+
+    private static <T> void put(BlockingQueue<T> queue, T item) {
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while handing off to the next pipeline stage", e);
+        }
+    }
+
+    private static <T> T take(BlockingQueue<T> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the previous pipeline stage", e);
+        }
+    }
+
+    /**
+     * Worker counts and queue capacity of the stages.
+     *
+     * @param queueCapacity chunks buffered between two stages
+     * @param reportIntervalSeconds interval of the progress log; 0 logs only the final summary
+     */
+    record Settings(int readerWorkers, int referenceWorkers, int writerWorkers, int cacheWorkers,
+                    int queueCapacity, long reportIntervalSeconds) {
+    }
+
+    /**
+     * A queue element tagged with the partition it belongs to; a null payload marks end of stream.
+     */
+    private record Envelope<T>(int partition, T payload) {
+
+        static <T> Envelope<T> end() {
+            return new Envelope<>(-1, null);
+        }
+
+        boolean isEnd() {
+            return payload == null;
+        }
+    }
+
+    /**
+     * A chunk enriched by the reference data stage, with the items it was read as.
+     */
+    private record Prepared<I, P>(List<I> chunk, P prepared) {
+    }
+
+    /**
+     * Outstanding work of one partition: the reader's hold, chunks in flight and outputs not yet cached.
+     */
+    private static final class PartitionProgress {
+        final AtomicInteger pending = new AtomicInteger(1);
+        volatile boolean failed;
+
+        void add(int units) {
+            pending.addAndGet(units);
+        }
+    }
+
+    private static final class StageStats {
+        private final String stage;
+        private final AtomicLong items = new AtomicLong();
+
+        StageStats(String stage) {
+            this.stage = stage;
+        }
+
+        void record(int itemCount) {
+            items.addAndGet(itemCount);
+        }
+
+        String describe(double elapsedSeconds) {
+            return String.format("%s: %d items (%.1f/s)", stage, items.get(), items.get() / elapsedSeconds);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks shared by usernames hashing to the same stripe. Used when services of one
+ * user can be processed by different workers at the same time, so that user's bucket and cache
+ * updates never interleave.
+ */
+final class StripedUsernameLocks {
+
+    private final ReentrantLock[] stripes;
+
+    StripedUsernameLocks(int stripeCount) {
+        stripes = new ReentrantLock[Math.max(1, stripeCount)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Locks the stripes of all given usernames, always in ascending stripe order so that two
+     * workers locking overlapping sets cannot deadlock.
+     *
+     * @return handle releasing the locks
+     */
+    Held lockAll(Collection<String> usernames) {
+        int[] indexes = usernames.stream()
+                .mapToInt(username -> Math.floorMod(username != null ? username.hashCode() : 0, stripes.length))
+                .distinct()
+                .sorted()
+                .toArray();
+        for (int index : indexes) {
+            stripes[index].lock();
+        }
+        return () -> {
+            for (int i = indexes.length - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+        };
+    }
+
+    interface Held extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,51 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import com.axonect.aee.template.baseapp.domain.exception.CacheSerializationException;
+import com.axonect.aee.template.baseapp.domain.exception.CacheTimeoutException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.net.SocketTimeoutException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Tells transient failures, which are likely to succeed when retried shortly after, from permanent ones.
+ *
+ * Transient: cache timeouts and lost Redis connections, lock timeouts and deadlocks, lost or unavailable
+ * database connections and query timeouts. Everything else, including missing reference data, bad cache
+ * data and constraint violations, is permanent. The whole cause chain is inspected, so a failure wrapped
+ * in an {@code AAAException} is classified by its cause.
+ */
+final class TransientFailures {
+
+    private static final int MAX_CAUSE_DEPTH = 10;
+
+    private TransientFailures() {
+    }
+
+    static boolean isTransient(Throwable failure) {
+        Throwable current = failure;
+        for (int depth = 0; current != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            if (current instanceof CacheSerializationException) {
+                return false;
+            }
+            if (current instanceof CacheTimeoutException
+                    || current instanceof TransientDataAccessException
+                    || current instanceof RecoverableDataAccessException
+                    || current instanceof DataAccessResourceFailureException
+                    || current instanceof CannotCreateTransactionException
+                    || current instanceof SQLTransientException
+                    || current instanceof SQLRecoverableException
+                    || current instanceof SocketTimeoutException
+                    || current instanceof TimeoutException) {
+                return true;
+            }
+            current = current.getCause();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,113 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * In-memory delayed retries of items that failed with a transient error during a run.
+ *
+ * Each key gets at most maxAttempts retries; the delay starts at baseDelayMillis and doubles with every
+ * retry of the same key. An item is offered once per failure; when the key has no retries left the offer
+ * is refused and the caller records the failure as permanent. Safe for concurrent workers.
+ */
+final class TransientRetryQueue<T> {
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final DelayQueue<Retry<T>> queue = new DelayQueue<>();
+    private final Map<Long, Integer> attempts = new ConcurrentHashMap<>();
+
+    TransientRetryQueue(int maxAttempts, long baseDelayMillis) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+    }
+
+    /**
+     * Queues a retry of the item.
+     *
+     * @return false if the key has used up its retries
+     */
+    boolean offer(long key, T item) {
+        int attempt = attempts.merge(key, 1, Integer::sum);
+        if (attempt > maxAttempts) {
+            return false;
+        }
+        long delayMillis = baseDelayMillis << Math.min(attempt - 1, 20);
+        queue.add(new Retry<>(item, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis)));
+        return true;
+    }
+
+    /**
+     * Retries whose delay has elapsed, without waiting.
+     */
+    List<T> pollDue() {
+        List<Retry<T>> due = new ArrayList<>();
+        queue.drainTo(due);
+        return due.stream().map(Retry::item).toList();
+    }
+
+    /**
+     * Waits for the next retry to become due, then returns it with all others due by then;
+     * an empty list once the queue is empty.
+     */
+    List<T> awaitDue() throws InterruptedException {
+        if (queue.isEmpty()) {
+            return List.of();
+        }
+        List<T> due = new ArrayList<>();
+        due.add(queue.take().item());
+        due.addAll(pollDue());
+        return due;
+    }
+
+    /**
+     * Hands the queued retries to retry as they become due, waiting out their delays, until the queue is
+     * empty or a stop is requested. Items offered again meanwhile are retried too; whatever is still
+     * queued at the end goes to abandoned.
+     */
+    void drain(Consumer<List<T>> retry, BooleanSupplier stopRequested, Consumer<T> abandoned) {
+        try {
+            List<T> due;
+            while (!stopRequested.getAsBoolean() && !(due = awaitDue()).isEmpty()) {
+                retry.accept(due);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            clear().forEach(abandoned);
+        }
+    }
+
+    /**
+     * Removes and returns all queued retries, due or not.
+     */
+    List<T> clear() {
+        List<T> remaining = new ArrayList<>();
+        for (Iterator<Retry<T>> it = queue.iterator(); it.hasNext(); ) {
+            remaining.add(it.next().item());
+            it.remove();
+        }
+        return remaining;
+    }
+
+    private record Retry<T>(T item, long dueNanos) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueNanos, ((Retry<?>) other).dueNanos);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronTrigger;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Cron-scheduled jobs whose schedule is a {@link JobTunables} value. Unlike {@code @Scheduled(cron)},
+ * a job is rescheduled as soon as its tunable changes. A run already in progress is not interrupted.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TunableCronScheduler {
+
+    private final TaskScheduler taskScheduler;
+    private final JobTunables jobTunables;
+
+    private final Map<String, ScheduledFuture<?>> scheduled = new ConcurrentHashMap<>();
+
+    /**
+     * Runs the task on the cron expression held by the tunable; "-" disables it.
+     */
+    public void schedule(String cronKey, Runnable task) {
+        reschedule(cronKey, task);
+        jobTunables.onChange(cronKey, cron -> reschedule(cronKey, task));
+    }
+
+    private synchronized void reschedule(String cronKey, Runnable task) {
+        ScheduledFuture<?> previous = scheduled.remove(cronKey);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+
+        String cron = jobTunables.get(cronKey);
+        if (Scheduled.CRON_DISABLED.equals(cron)) {
+            log.info("{} disabled", cronKey);
+            return;
+        }
+        scheduled.put(cronKey, taskScheduler.schedule(task, new CronTrigger(cron)));
+        log.info("{} scheduled with cron '{}'", cronKey, cron);
+    }
+}
@@ -0,0 +1,155 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Spreads a run of known size evenly over a time window.
+ *
+ * The target rate is remaining items divided by remaining time, re-computed every time a worker
+ * finishes a chunk, so the run speeds up after a slow stretch and slows down after a fast one.
+ * Workers share one schedule: a worker ahead of it sleeps until the schedule catches up, a worker
+ * behind it continues at once. Time lost is never made up by a burst above the re-computed rate.
+ * The remaining window is re-read at every chunk as well, so the window end can be moved during the run.
+ *
+ * A run shared by several replicas is paced on its shared progress: the remaining items are those of
+ * the whole run, and the rate is split between the replicas working on it. Long waits are taken in
+ * slices of at most {@value #SLICE_SECONDS} s, each followed by a check that the worker may go on, so a
+ * partition lease is renewed and a stop is noticed while waiting.
+ */
+@Slf4j
+final class WindowPacer {
+
+    private static final long RATE_LOG_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final long SLICE_SECONDS = 10;
+
+    private final Supplier<Duration> remainingWindow;
+    private final LongSupplier remainingCount;
+    private final LongSupplier processedCount;
+    private final IntSupplier sharers;
+
+    private long scheduledNanos;
+    private long lastProcessed;
+    private long lastRateLogNanos;
+    private double targetRate;
+
+    /**
+     * Paces a run processed by this replica alone.
+     *
+     * @param totalCount Items due in the run
+     * @param remainingWindow Time left in which the run should finish
+     * @param processedCount Items processed so far by all workers of the run
+     */
+    WindowPacer(long totalCount, Supplier<Duration> remainingWindow, LongSupplier processedCount) {
+        this(remainingWindow, () -> totalCount - processedCount.getAsLong(), processedCount, () -> 1);
+    }
+
+    /**
+     * @param remainingWindow Time left in which the run should finish
+     * @param remainingCount Items of the run not processed yet, by any replica
+     * @param processedCount Items processed so far by the workers of this replica
+     * @param sharers Replicas working on the run, which split the rate between them
+     */
+    WindowPacer(Supplier<Duration> remainingWindow, LongSupplier remainingCount, LongSupplier processedCount,
+                IntSupplier sharers) {
+        long now = System.nanoTime();
+        Duration window = remainingWindow.get();
+        long remaining = remainingCount.getAsLong();
+        this.remainingWindow = remainingWindow;
+        this.remainingCount = remainingCount;
+        this.processedCount = processedCount;
+        this.sharers = sharers;
+        this.scheduledNanos = now;
+        this.lastProcessed = processedCount.getAsLong();
+        this.lastRateLogNanos = now;
+        this.targetRate = window.isZero() ? Double.POSITIVE_INFINITY : remaining / (window.toNanos() / 1e9);
+        log.info("Pacing {} items over {} min, target {} items/s",
+                remaining, window.toMinutes(), String.format("%.1f", targetRate));
+    }
+
+    /**
+     * Called by a worker after a chunk; blocks while the run is ahead of its schedule.
+     */
+    void pace() {
+        pace(() -> true);
+    }
+
+    /**
+     * Called by a worker after a chunk; blocks while the run is ahead of its schedule.
+     *
+     * @param mayContinue Checked after every slice of a wait; false ends the wait
+     * @return false if the worker must stop, as mayContinue returned false
+     */
+    boolean pace(BooleanSupplier mayContinue) {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long processed = processedCount.getAsLong();
+            long delta = processed - lastProcessed;
+            lastProcessed = processed;
+
+            long remainingItems = remainingCount.getAsLong();
+            long remainingNanos = remainingWindow.get().toNanos();
+            if (remainingItems <= 0 || remainingNanos <= 0) {
+                // Past the window end or more items than counted: finish unpaced
+                targetRate = Double.POSITIVE_INFINITY;
+                return true;
+            }
+            targetRate = remainingItems / (remainingNanos / 1e9) / Math.max(1, sharers.getAsInt());
+
+            scheduledNanos = Math.max(now, scheduledNanos + (long) (delta / targetRate * 1e9));
+            waitNanos = scheduledNanos - now;
+
+            if (now - lastRateLogNanos >= RATE_LOG_INTERVAL_NANOS) {
+                lastRateLogNanos = now;
+                log.info("Pacing: {} processed here, {} left, target {} items/s, {} s left in window",
+                        processed, remainingItems, String.format("%.1f", targetRate),
+                        remainingNanos / 1_000_000_000L);
+            }
+        }
+
+        long waitEnd = System.nanoTime() + waitNanos;
+        for (long left = waitNanos; left > 0; left = waitEnd - System.nanoTime()) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(Math.min(left, TimeUnit.SECONDS.toNanos(SLICE_SECONDS)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return true;
+            }
+            if (!mayContinue.getAsBoolean()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A value read from source at most once per interval; for counts too costly to read at every chunk.
+     * Not thread-safe: meant for the suppliers of a pacer, which reads them under its lock.
+     */
+    static LongSupplier sampledEvery(Duration interval, LongSupplier source) {
+        long intervalNanos = interval.toNanos();
+        return new LongSupplier() {
+            private long sampledAt;
+            private long value;
+            private boolean sampled;
+
+            @Override
+            public long getAsLong() {
+                long now = System.nanoTime();
+                if (!sampled || now - sampledAt >= intervalNanos) {
+                    value = source.getAsLong();
+                    sampledAt = now;
+                    sampled = true;
+                }
+                return value;
+            }
+        };
+    }
+}
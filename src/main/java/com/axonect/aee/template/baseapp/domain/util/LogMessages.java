@@ -10,6 +10,7 @@ public final class LogMessages {
     public static final String ERROR_NOT_FOUND = "AAA_404_NOT_FOUND";
     public static final String ERROR_INTERNAL_ERROR = "AAA_500_INTERNAL_ERROR";
     public static final String ERROR_POLICY_CONFLICT = "AAA_POLICY_CONFLICT";
+    public static final String ERROR_INVALID_VALUE = "AAA_400_INVALID_VALUE";
 
     public static final String PLAN_DOES_NOT_EXIST = "\"PLAN_DOES_NOT_EXIST\"";
 }
@@ -0,0 +1,50 @@
+-- =====================================================================
+-- Table: JOB_CHECKPOINT
+-- Purpose: Resume nightly jobs after a restart instead of starting over
+-- Used by: JobCheckpointService (recurrent reactivation, expired bucket deletion,
+--          expiry notifications)
+-- =====================================================================
+
+-- Create sequence for primary key
+CREATE SEQUENCE JOB_CHECKPOINT_SEQ
+    START WITH 1
+    INCREMENT BY 1
+    NOCACHE
+    NOCYCLE;
+
+-- One row per partition of a job run, updated after each committed chunk
+CREATE TABLE JOB_CHECKPOINT
+(
+    ID                      NUMBER(19)                  NOT NULL,
+    JOB_NAME                VARCHAR2(64)                NOT NULL,
+    RUN_KEY                 VARCHAR2(64)                NOT NULL,
+    PARTITION_NO            NUMBER(10)                  NOT NULL,
+    PARTITION_COUNT         NUMBER(10)                  NOT NULL,
+    BATCH_ID                VARCHAR2(100),
+    LAST_KEY                VARCHAR2(200),
+    PROCESSED_COUNT         NUMBER(19)      DEFAULT 0,
+    FAILED_COUNT            NUMBER(19)      DEFAULT 0,
+    STATUS                  VARCHAR2(20)                NOT NULL,
+    CREATED_AT              TIMESTAMP       DEFAULT SYSTIMESTAMP,
+    UPDATED_AT              TIMESTAMP       DEFAULT SYSTIMESTAMP,
+    CONSTRAINT PK_JOB_CHECKPOINT PRIMARY KEY (ID),
+    CONSTRAINT UK_JOB_CHECKPOINT_RUN UNIQUE (JOB_NAME, RUN_KEY, PARTITION_NO)
+);
+
+CREATE INDEX IDX_JC_UPDATED_AT ON JOB_CHECKPOINT(UPDATED_AT);
+
+-- Add comments for documentation
+COMMENT ON TABLE JOB_CHECKPOINT IS 'Per-partition progress of nightly job runs for crash-safe resume';
+COMMENT ON COLUMN JOB_CHECKPOINT.JOB_NAME IS 'Job identifier, e.g. RECURRENT_SERVICE_REACTIVATION';
+COMMENT ON COLUMN JOB_CHECKPOINT.RUN_KEY IS 'Business date of the run';
+COMMENT ON COLUMN JOB_CHECKPOINT.PARTITION_NO IS 'Partition number, 0 for unpartitioned jobs';
+COMMENT ON COLUMN JOB_CHECKPOINT.PARTITION_COUNT IS 'Partition count of the run; checkpoints of a different count are ignored';
+COMMENT ON COLUMN JOB_CHECKPOINT.BATCH_ID IS 'Batch ID of the run, reused when the run is resumed';
+COMMENT ON COLUMN JOB_CHECKPOINT.LAST_KEY IS 'Last key of the last committed chunk; the job resumes after it';
+COMMENT ON COLUMN JOB_CHECKPOINT.PROCESSED_COUNT IS 'Items processed in the partition so far';
+COMMENT ON COLUMN JOB_CHECKPOINT.FAILED_COUNT IS 'Items failed in the partition so far';
+COMMENT ON COLUMN JOB_CHECKPOINT.STATUS IS 'Status: RUNNING, STOPPED (shutdown), COMPLETED';
+
+-- Grant permissions (adjust as needed for your environment)
+-- GRANT SELECT, INSERT, UPDATE, DELETE ON JOB_CHECKPOINT TO <your_app_user>;
+-- GRANT SELECT ON JOB_CHECKPOINT_SEQ TO <your_app_user>;
@@ -0,0 +1,40 @@
+-- =====================================================================
+-- Table: JOB_PARTITION_LEASE
+-- Purpose: Share partitioned batch job work across service replicas
+-- Used by: JobPartitionLeaseService (recurrent reactivation, expired bucket deletion)
+-- =====================================================================
+
+-- One row per partition of a job run. A replica owns a partition while its lease is valid;
+-- expired leases (dead replica) are taken over by the next replica that asks for work.
+CREATE TABLE JOB_PARTITION_LEASE
+(
+    JOB_NAME                VARCHAR2(64)                NOT NULL,
+    RUN_KEY                 VARCHAR2(64)                NOT NULL,
+    PARTITION_NO            NUMBER(10)                  NOT NULL,
+    PARTITION_COUNT         NUMBER(10)                  NOT NULL,
+    STATUS                  VARCHAR2(20)                NOT NULL,
+    OWNER_ID                VARCHAR2(128),
+    LEASE_EXPIRES_AT        TIMESTAMP,
+    CREATED_AT              TIMESTAMP       DEFAULT SYSTIMESTAMP NOT NULL,
+    UPDATED_AT              TIMESTAMP       DEFAULT SYSTIMESTAMP NOT NULL,
+    CONSTRAINT PK_JOB_PARTITION_LEASE PRIMARY KEY (JOB_NAME, RUN_KEY, PARTITION_NO)
+);
+
+-- Index for the sweeper looking for runs with claimable work
+CREATE INDEX IDX_JPL_STATUS_EXPIRES ON JOB_PARTITION_LEASE(STATUS, LEASE_EXPIRES_AT);
+CREATE INDEX IDX_JPL_CREATED_AT ON JOB_PARTITION_LEASE(CREATED_AT);
+
+-- Add comments for documentation
+COMMENT ON TABLE JOB_PARTITION_LEASE IS 'Partition leases for batch jobs shared across service replicas';
+COMMENT ON COLUMN JOB_PARTITION_LEASE.JOB_NAME IS 'Job identifier, e.g. RECURRENT_SERVICE_REACTIVATION';
+COMMENT ON COLUMN JOB_PARTITION_LEASE.RUN_KEY IS 'Run identifier within the job, e.g. the business date';
+COMMENT ON COLUMN JOB_PARTITION_LEASE.PARTITION_NO IS 'Partition number, 0 to PARTITION_COUNT - 1';
+COMMENT ON COLUMN JOB_PARTITION_LEASE.PARTITION_COUNT IS 'Number of partitions the run was created with';
+COMMENT ON COLUMN JOB_PARTITION_LEASE.STATUS IS 'Status: PENDING, CLAIMED, DONE';
+COMMENT ON COLUMN JOB_PARTITION_LEASE.OWNER_ID IS 'Replica currently (or last) owning the partition';
+COMMENT ON COLUMN JOB_PARTITION_LEASE.LEASE_EXPIRES_AT IS 'Lease expiry; an expired CLAIMED partition can be taken over';
+COMMENT ON COLUMN JOB_PARTITION_LEASE.CREATED_AT IS 'Timestamp when the run was created';
+COMMENT ON COLUMN JOB_PARTITION_LEASE.UPDATED_AT IS 'Timestamp of the last claim, renewal or completion';
+
+-- Grant permissions (adjust as needed for your environment)
+-- GRANT SELECT, INSERT, UPDATE, DELETE ON JOB_PARTITION_LEASE TO <your_app_user>;
@@ -0,0 +1,44 @@
+-- =====================================================================
+-- Table: RENEWAL_PLAN
+-- Purpose: Renewals computed during the day and applied by the nightly run
+-- Used by: RecurrentServiceService (recurrent-service.plan-apply)
+-- =====================================================================
+
+-- Create sequence for primary key (allocation size 50 matches the entity)
+CREATE SEQUENCE RENEWAL_PLAN_SEQ
+    START WITH 1
+    INCREMENT BY 50
+    NOCACHE
+    NOCYCLE;
+
+-- One row per service instance and due date
+CREATE TABLE RENEWAL_PLAN
+(
+    ID                      NUMBER(19)                  NOT NULL,
+    SERVICE_ID              NUMBER(19)                  NOT NULL,
+    DUE_DATE                DATE                        NOT NULL,
+    USERNAME                VARCHAR2(64),
+    EXPECTED_CYCLE_START    TIMESTAMP                   NOT NULL,
+    FINGERPRINT             VARCHAR2(64)                NOT NULL,
+    CHANGE_SET              CLOB                        NOT NULL,
+    STATUS                  VARCHAR2(20)                NOT NULL,
+    CREATED_AT              TIMESTAMP       DEFAULT SYSTIMESTAMP,
+    UPDATED_AT              TIMESTAMP       DEFAULT SYSTIMESTAMP,
+    CONSTRAINT PK_RENEWAL_PLAN PRIMARY KEY (ID),
+    CONSTRAINT UK_RENEWAL_PLAN_SERVICE UNIQUE (SERVICE_ID, DUE_DATE)
+);
+
+CREATE INDEX IDX_RP_STATUS_SERVICE ON RENEWAL_PLAN(STATUS, SERVICE_ID);
+CREATE INDEX IDX_RP_DUE_DATE ON RENEWAL_PLAN(DUE_DATE);
+
+-- Add comments for documentation
+COMMENT ON TABLE RENEWAL_PLAN IS 'Recurring service renewals planned ahead of the nightly run';
+COMMENT ON COLUMN RENEWAL_PLAN.DUE_DATE IS 'Day the planned cycle starts';
+COMMENT ON COLUMN RENEWAL_PLAN.EXPECTED_CYCLE_START IS 'NEXT_CYCLE_START_DATE of the service when the plan was computed';
+COMMENT ON COLUMN RENEWAL_PLAN.FINGERPRINT IS 'SHA-256 over the service, user, plan and bucket balances the plan depends on';
+COMMENT ON COLUMN RENEWAL_PLAN.CHANGE_SET IS 'JSON change set: new cycle dates, bucket instances to insert and to update';
+COMMENT ON COLUMN RENEWAL_PLAN.STATUS IS 'Status: PLANNED, APPLIED, STALE (preconditions changed, provisioned normally)';
+
+-- Grant permissions (adjust as needed for your environment)
+-- GRANT SELECT, INSERT, UPDATE, DELETE ON RENEWAL_PLAN TO <your_app_user>;
+-- GRANT SELECT ON RENEWAL_PLAN_SEQ TO <your_app_user>;
@@ -10,6 +10,16 @@
 CREATE INDEX IF NOT EXISTS idx_service_recurring_next_expiry
 ON SERVICE_INSTANCE(RECURRING_FLAG, NEXT_CYCLE_START_DATE, EXPIRY_DATE);
 
+-- Keyset index for the seek-based reactivation reader (ORDER BY ID with ID > :lastId)
+-- RECURRING_FLAG is an equality predicate, so within it the index is in ID order and Oracle walks the
+-- due set in ID order without a sort; the trailing columns are filtered inside the index, so each page
+-- stays flat in cost. USERNAME is included so the partition predicate MOD(ORA_HASH(USERNAME), n) is
+-- evaluated in the index too: a partition only visits the table for its own rows.
+-- Replaces idx_service_recurring_id_next_expiry, which lacked USERNAME
+DROP INDEX IF EXISTS idx_service_recurring_id_next_expiry;
+CREATE INDEX IF NOT EXISTS idx_service_recurring_id_due_user
+ON SERVICE_INSTANCE(RECURRING_FLAG, ID, NEXT_CYCLE_START_DATE, EXPIRY_DATE, USERNAME);
+
 -- Index for username lookups (used in batch loading)
 CREATE INDEX IF NOT EXISTS idx_service_username
 ON SERVICE_INSTANCE(USERNAME);
@@ -0,0 +1,79 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the AIMD rules of {@link AdaptiveChunkSizer}: additive growth on full, fast and clean chunks,
+ * multiplicative backoff on slow or failing ones, both within the configured bounds.
+ */
+class AdaptiveChunkSizerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(2_000);
+
+    private final AdaptiveChunkSizer sizer = new AdaptiveChunkSizer("TEST_JOB", 100, 10, 130, 1_000, 10, 0.5, 0.1);
+
+    @Test
+    void testFullFastChunks_GrowByStepUpToMax() {
+        sizer.record(100, FAST, 0);
+        assertEquals(110, sizer.current());
+        sizer.record(110, FAST, 0);
+        sizer.record(120, FAST, 0);
+        assertEquals(130, sizer.current());
+
+        sizer.record(130, FAST, 0);
+        assertEquals(130, sizer.current());
+        assertEquals(100, sizer.getLastLatencyMillis());
+    }
+
+    @Test
+    void testPartialChunk_DoesNotGrow() {
+        sizer.record(40, FAST, 0);
+        assertEquals(100, sizer.current());
+    }
+
+    @Test
+    void testSlowChunks_BackOffByFactorDownToMin() {
+        sizer.record(100, SLOW, 0);
+        assertEquals(50, sizer.current());
+        sizer.record(50, SLOW, 0);
+        sizer.record(25, SLOW, 0);
+        assertEquals(12, sizer.current());
+
+        sizer.record(12, SLOW, 0);
+        assertEquals(10, sizer.current());
+        sizer.record(10, SLOW, 0);
+        assertEquals(10, sizer.current());
+    }
+
+    @Test
+    void testErrorRateAboveLimit_BacksOff() {
+        sizer.record(100, FAST, 10);
+        assertEquals(110, sizer.current());
+
+        sizer.record(110, FAST, 12);
+        assertEquals(55, sizer.current());
+
+        sizer.recordFailure(55, FAST);
+        assertEquals(27, sizer.current());
+    }
+
+    @Test
+    void testInitialSize_IsClampedToBounds() {
+        assertEquals(130, new AdaptiveChunkSizer("TEST_JOB", 500, 10, 130, 1_000, 10, 0.5, 0.1).current());
+        assertEquals(10, new AdaptiveChunkSizer("TEST_JOB", 1, 10, 130, 1_000, 10, 0.5, 0.1).current());
+    }
+
+    @Test
+    void testFixedSizer_NeverChanges() {
+        AdaptiveChunkSizer fixed = AdaptiveChunkSizer.fixed("TEST_JOB", 100);
+        fixed.record(100, SLOW, 100);
+        fixed.record(100, FAST, 0);
+        assertEquals(100, fixed.current());
+        assertEquals(100, fixed.getConfiguredSize());
+    }
+}
@@ -0,0 +1,94 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs {@link ChunkBisection} against an all-or-nothing attempt that fails while a bad item is in the chunk.
+ */
+class ChunkBisectionTest {
+
+    private final List<Integer> committed = new ArrayList<>();
+    private final List<Integer> failed = new ArrayList<>();
+    private int attempts;
+
+    @Test
+    void testCleanChunk_CommitsInOneAttempt() {
+        run(items(100), Set.of());
+
+        assertEquals(items(100), committed);
+        assertEquals(List.of(), failed);
+        assertEquals(1, attempts);
+    }
+
+    @Test
+    void testSingleBadItem_IsIsolatedAndTheRestCommitted() {
+        run(items(100), Set.of(37));
+
+        assertEquals(List.of(37), failed);
+        assertEquals(99, committed.size());
+        assertFalse(committed.contains(37));
+        // Two attempts per level of the halving, plus the first one
+        assertTrue(attempts <= 1 + 2 * 7, "attempts: " + attempts);
+    }
+
+    @Test
+    void testSeveralBadItems_AreAllIsolated() {
+        run(items(64), Set.of(0, 31, 32, 63));
+
+        assertEquals(List.of(0, 31, 32, 63), failed);
+        assertEquals(60, committed.size());
+    }
+
+    @Test
+    void testSingleItemChunk_FailsWithoutReload() {
+        ChunkBisection.<Integer>run(List.of(5), chunk -> {
+            throw new IllegalStateException("bad");
+        }, (chunk, ex) -> {
+            throw new AssertionError("A single item is not reloaded");
+        }, (item, ex) -> failed.add(item));
+
+        assertEquals(List.of(5), failed);
+    }
+
+    @Test
+    void testItemsDroppedOnReload_AreNotRetried() {
+        List<Integer> reloadedWith = new ArrayList<>();
+        ChunkBisection.run(items(10), attempt(Set.of(3)), (chunk, ex) -> {
+            reloadedWith.addAll(chunk);
+            // Everything but the bad item was processed elsewhere meanwhile
+            return chunk.stream().filter(item -> item == 3).toList();
+        }, (item, ex) -> failed.add(item));
+
+        assertEquals(items(10), reloadedWith);
+        assertEquals(List.of(3), failed);
+        assertEquals(List.of(), committed);
+    }
+
+    private void run(List<Integer> chunk, Set<Integer> bad) {
+        ChunkBisection.run(chunk, attempt(bad), (items, ex) -> List.copyOf(items), (item, ex) -> failed.add(item));
+    }
+
+    private Consumer<List<Integer>> attempt(Set<Integer> bad) {
+        return chunk -> {
+            attempts++;
+            if (chunk.stream().anyMatch(bad::contains)) {
+                throw new IllegalStateException("Chunk rolled back");
+            }
+            committed.addAll(chunk);
+        };
+    }
+
+    private static List<Integer> items(int count) {
+        return IntStream.range(0, count).boxed().toList();
+    }
+}
@@ -0,0 +1,97 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Writes {@link DueServiceSpool} files and reads them back, including spools larger than the write buffer.
+ */
+class DueServiceSpoolTest {
+
+    private static final LocalDate DUE_DATE = LocalDate.of(2026, 1, 28);
+    private static final LocalDateTime CYCLE_START = DUE_DATE.atTime(0, 30, 15);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testFinishedSpool_ReadsBackEveryRecord() {
+        Path path = directory.resolve("spool").resolve("due.spool");
+        int count = 10_000;
+        try (DueServiceSpool.Writer writer = DueServiceSpool.create(path, DUE_DATE)) {
+            for (int i = 0; i < count; i++) {
+                writer.append(1_000L + i, CYCLE_START.plusSeconds(i), "user-" + i,
+                        i % 2 == 0 ? DueServiceSpool.FLAG_GROUP : 0);
+            }
+            try (DueServiceSpool spool = writer.finish()) {
+                assertEquals(count, spool.size());
+                for (int i = 0; i < count; i++) {
+                    assertEquals(1_000L + i, spool.serviceId(i));
+                    assertEquals(CYCLE_START.plusSeconds(i), spool.nextCycleStartDate(i));
+                    assertEquals(("user-" + i).hashCode(), spool.usernameHash(i));
+                    assertEquals(i % 2 == 0 ? DueServiceSpool.FLAG_GROUP : 0, spool.flags(i));
+                }
+            }
+        }
+
+        try (DueServiceSpool reopened = DueServiceSpool.openIfComplete(path, DUE_DATE)) {
+            assertNotNull(reopened);
+            assertEquals(count, reopened.size());
+            assertEquals(1_000L + count - 1, reopened.serviceId(count - 1));
+        }
+    }
+
+    @Test
+    void testCycleStart_IsKeptToTheSecond() {
+        Path path = directory.resolve("due.spool");
+        try (DueServiceSpool.Writer writer = DueServiceSpool.create(path, DUE_DATE)) {
+            writer.append(1L, CYCLE_START.plusNanos(999_000_000), null, 0);
+            try (DueServiceSpool spool = writer.finish()) {
+                assertEquals(CYCLE_START, spool.nextCycleStartDate(0));
+                assertEquals(0, spool.usernameHash(0));
+            }
+        }
+    }
+
+    @Test
+    void testUnfinishedSpool_IsNotReused() {
+        Path path = directory.resolve("due.spool");
+        try (DueServiceSpool.Writer writer = DueServiceSpool.create(path, DUE_DATE)) {
+            writer.append(1L, CYCLE_START, "user", 0);
+        }
+
+        assertNull(DueServiceSpool.openIfComplete(path, DUE_DATE));
+    }
+
+    @Test
+    void testSpoolOfAnotherDueDate_IsNotReused() {
+        Path path = directory.resolve("due.spool");
+        try (DueServiceSpool.Writer writer = DueServiceSpool.create(path, DUE_DATE)) {
+            writer.append(1L, CYCLE_START, "user", 0);
+            writer.finish().close();
+        }
+
+        assertNull(DueServiceSpool.openIfComplete(path, DUE_DATE.plusDays(1)));
+        assertNull(DueServiceSpool.openIfComplete(directory.resolve("missing.spool"), DUE_DATE));
+    }
+
+    @Test
+    void testDelete_RemovesTheFile() {
+        Path path = directory.resolve("due.spool");
+        try (DueServiceSpool.Writer writer = DueServiceSpool.create(path, DUE_DATE)) {
+            writer.finish().delete();
+        }
+
+        assertFalse(Files.exists(path));
+    }
+}
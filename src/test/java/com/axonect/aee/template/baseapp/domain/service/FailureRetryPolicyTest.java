@@ -0,0 +1,98 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import com.axonect.aee.template.baseapp.domain.entities.repo.ServiceInstance;
+import com.axonect.aee.template.baseapp.domain.entities.repo.ServiceProcessingFailure;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the backoff of {@link FailureRetryPolicy} and when it still considers a failed service due.
+ */
+class FailureRetryPolicyTest {
+
+    private static final LocalDateTime FAILED_AT = LocalDateTime.of(2026, 3, 10, 1, 30);
+
+    private final FailureRetryPolicy policy = new FailureRetryPolicy(15, 120);
+
+    @Test
+    void testFirstRetry_IsDueBaseBackoffAfterTheFailure() {
+        assertEquals(FAILED_AT.plusMinutes(15), policy.nextRetryAt(failure(FAILED_AT, null, 0)));
+    }
+
+    @Test
+    void testBackoff_DoublesPerRetryFromTheLastRetry() {
+        LocalDateTime retriedAt = FAILED_AT.plusHours(1);
+
+        assertEquals(retriedAt.plusMinutes(30), policy.nextRetryAt(failure(FAILED_AT, retriedAt, 1)));
+        assertEquals(retriedAt.plusMinutes(60), policy.nextRetryAt(failure(FAILED_AT, retriedAt, 2)));
+    }
+
+    @Test
+    void testBackoff_IsCappedAtTheMaximum() {
+        assertEquals(FAILED_AT.plusMinutes(120), policy.nextRetryAt(failure(FAILED_AT, null, 4)));
+        assertEquals(FAILED_AT.plusMinutes(120), policy.nextRetryAt(failure(FAILED_AT, null, 63)));
+    }
+
+    @Test
+    void testRowWithoutDates_IsDueRightAway() {
+        assertEquals(LocalDateTime.MIN, policy.nextRetryAt(failure(null, null, null)));
+    }
+
+    @Test
+    void testServiceDueBeforeTheDayAfterTheRun_IsStillDue() {
+        ServiceInstance service = service(FAILED_AT.toLocalDate().plusDays(1).atStartOfDay(), true);
+
+        assertTrue(policy.isStillDue(service, List.of(failure(FAILED_AT, null, 0)), FAILED_AT));
+    }
+
+    @Test
+    void testServiceRenewedSinceItFailed_IsNotDue() {
+        ServiceInstance service = service(FAILED_AT.toLocalDate().plusDays(31).atStartOfDay(), true);
+
+        assertFalse(policy.isStillDue(service, List.of(failure(FAILED_AT, null, 0)), FAILED_AT));
+    }
+
+    @Test
+    void testLatestFailureOfTheService_Counts() {
+        ServiceInstance service = service(FAILED_AT.toLocalDate().plusDays(3).atStartOfDay(), true);
+        List<ServiceProcessingFailure> rows = List.of(failure(FAILED_AT, null, 0),
+                failure(FAILED_AT.plusDays(2), null, 0));
+
+        assertTrue(policy.isStillDue(service, rows, FAILED_AT));
+    }
+
+    @Test
+    void testServiceExpiredOrNoLongerRecurring_IsNotDue() {
+        LocalDateTime due = FAILED_AT.toLocalDate().plusDays(1).atStartOfDay();
+        ServiceInstance expired = service(due, true);
+        expired.setExpiryDate(due);
+        List<ServiceProcessingFailure> rows = List.of(failure(FAILED_AT, null, 0));
+
+        assertFalse(policy.isStillDue(expired, rows, FAILED_AT));
+        assertFalse(policy.isStillDue(service(due, false), rows, FAILED_AT));
+        assertFalse(policy.isStillDue(null, rows, FAILED_AT));
+    }
+
+    private static ServiceProcessingFailure failure(LocalDateTime failureDate, LocalDateTime lastRetryDate,
+                                                    Integer retryCount) {
+        return ServiceProcessingFailure.builder()
+                .failureDate(failureDate)
+                .lastRetryDate(lastRetryDate)
+                .retryCount(retryCount)
+                .build();
+    }
+
+    private static ServiceInstance service(LocalDateTime nextCycleStart, boolean recurring) {
+        ServiceInstance service = new ServiceInstance();
+        service.setRecurringFlag(recurring);
+        service.setNextCycleStartDate(nextCycleStart);
+        service.setExpiryDate(nextCycleStart.plusYears(1));
+        return service;
+    }
+}
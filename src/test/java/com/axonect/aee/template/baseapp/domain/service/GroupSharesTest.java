@@ -0,0 +1,73 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import com.axonect.aee.template.baseapp.domain.entities.repo.ServiceInstance;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the lead claims of {@link GroupShares}: one lead per group, plan and cycle, kept across attempts
+ * of the lead and handed on when the lead fails for good.
+ */
+class GroupSharesTest {
+
+    private static final String GROUP = "group-1";
+    private static final LocalDateTime CYCLE_START = LocalDateTime.of(2026, 1, 29, 0, 0);
+
+    private final GroupShares shares = new GroupShares();
+
+    @Test
+    void testFirstService_LeadsAndTheOthersAreMembers() {
+        assertFalse(shares.isMember(GROUP, service(1L, "PLAN-A")));
+        assertTrue(shares.isMember(GROUP, service(2L, "PLAN-A")));
+        assertTrue(shares.isMember(GROUP, service(3L, "PLAN-A")));
+
+        assertEquals(1, shares.groups());
+        assertEquals(2, shares.members());
+    }
+
+    @Test
+    void testLead_KeepsItsClaimWhenProvisionedAgain() {
+        shares.isMember(GROUP, service(1L, "PLAN-A"));
+
+        assertFalse(shares.isMember(GROUP, service(1L, "PLAN-A")));
+    }
+
+    @Test
+    void testOtherPlan_HasItsOwnLead() {
+        shares.isMember(GROUP, service(1L, "PLAN-A"));
+
+        assertFalse(shares.isMember(GROUP, service(2L, "PLAN-B")));
+        assertEquals(2, shares.groups());
+    }
+
+    @Test
+    void testReleasedLead_HandsTheClaimToTheNextService() {
+        shares.isMember(GROUP, service(1L, "PLAN-A"));
+        shares.release(1L);
+
+        assertFalse(shares.isMember(GROUP, service(2L, "PLAN-A")));
+        assertTrue(shares.isMember(GROUP, service(3L, "PLAN-A")));
+    }
+
+    @Test
+    void testReleaseOfMember_KeepsTheLead() {
+        shares.isMember(GROUP, service(1L, "PLAN-A"));
+        shares.isMember(GROUP, service(2L, "PLAN-A"));
+        shares.release(2L);
+
+        assertTrue(shares.isMember(GROUP, service(3L, "PLAN-A")));
+    }
+
+    private static ServiceInstance service(long id, String planId) {
+        ServiceInstance service = new ServiceInstance();
+        service.setId(id);
+        service.setPlanId(planId);
+        service.setNextCycleStartDate(CYCLE_START);
+        return service;
+    }
+}
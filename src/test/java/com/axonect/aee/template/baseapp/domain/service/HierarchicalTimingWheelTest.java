@@ -0,0 +1,135 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that items placed on any level of {@link HierarchicalTimingWheel} fire exactly once, on their tick.
+ * The wheels here have 4 slots and 3 levels, so 64 ticks of range with cascades every 4 and 16 ticks.
+ */
+class HierarchicalTimingWheelTest {
+
+    private static final long ORIGIN = 1_000_000L;
+    private static final long TICK = 10L;
+    private static final int WHEEL_SIZE = 4;
+    private static final int LEVELS = 3;
+    private static final int CAPACITY_TICKS = 64;
+
+    private final HierarchicalTimingWheel<String> wheel =
+            new HierarchicalTimingWheel<>(ORIGIN, TICK, WHEEL_SIZE, LEVELS);
+
+    @Test
+    void testItemsOnLowestLevel_FireOnTheirTick() {
+        assertTrue(wheel.add("now", at(0)));
+        assertTrue(wheel.add("tick-3", at(3) + TICK - 1));
+
+        assertEquals(List.of("now"), advanceTo(2));
+        assertEquals(List.of("tick-3"), advanceTo(3));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testItemsOnHigherLevels_CascadeAndFireOnTheirTick() {
+        Map<String, Long> dueTicks = Map.of("level-0", 2L, "level-1", 5L, "level-1-last", 15L,
+                "level-2", 17L, "level-2-far", 50L, "last", 63L);
+        dueTicks.forEach((item, tick) -> assertTrue(wheel.add(item, at(tick))));
+        assertEquals(dueTicks.size(), wheel.size());
+
+        Map<String, Long> firedTicks = new HashMap<>();
+        for (long tick = 0; tick < CAPACITY_TICKS; tick++) {
+            advanceRecording(tick, firedTicks);
+        }
+
+        assertEquals(dueTicks, firedTicks);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testAdvanceOverManyTicks_FiresEverythingDueInOrder() {
+        wheel.add("tick-40", at(40));
+        wheel.add("tick-6", at(6));
+        wheel.add("tick-21", at(21));
+        wheel.add("tick-50", at(50));
+
+        assertEquals(List.of("tick-6", "tick-21", "tick-40"), advanceTo(45));
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("tick-50"), advanceTo(50));
+    }
+
+    @Test
+    void testPastDueItem_FiresOnNextTick() {
+        advanceTo(20);
+        assertTrue(wheel.add("late", at(3)));
+
+        assertEquals(List.of(), advanceTo(20));
+        assertEquals(List.of("late"), advanceTo(21));
+    }
+
+    @Test
+    void testItemBeyondHorizon_IsRefusedUntilInRange() {
+        assertEquals(at(CAPACITY_TICKS), wheel.horizonMillis());
+        assertTrue(wheel.add("last", at(CAPACITY_TICKS - 1)));
+        assertFalse(wheel.add("too-far", at(CAPACITY_TICKS)));
+        assertEquals(1, wheel.size());
+
+        advanceTo(10);
+        assertEquals(at(CAPACITY_TICKS + 11), wheel.horizonMillis());
+        assertTrue(wheel.add("too-far", at(CAPACITY_TICKS)));
+
+        assertEquals(List.of("last"), advanceTo(CAPACITY_TICKS - 1));
+        assertEquals(List.of("too-far"), advanceTo(CAPACITY_TICKS));
+    }
+
+    @Test
+    void testRandomItemsAddedWhileAdvancing_FireExactlyOnceOnTheirTick() {
+        Random random = new Random(42);
+        Map<String, Long> expectedTicks = new HashMap<>();
+        Map<String, Long> firedTicks = new HashMap<>();
+        long tick = 0;
+        advanceTo(tick);
+        for (int i = 0; i < 5_000; i++) {
+            if (random.nextInt(4) == 0) {
+                advanceRecording(++tick, firedTicks);
+            }
+            long dueTick = tick + random.nextInt(CAPACITY_TICKS + 8) - 4;
+            String item = "item-" + i;
+            boolean added = wheel.add(item, at(dueTick) + random.nextInt((int) TICK));
+            // The wheel has already fired the current tick, so its range starts at the next one
+            assertEquals(dueTick - (tick + 1) < CAPACITY_TICKS, added, item);
+            if (added) {
+                // Past-due items fire on the next tick
+                expectedTicks.put(item, Math.max(dueTick, tick + 1));
+            }
+        }
+        for (long end = tick + CAPACITY_TICKS; tick <= end; ) {
+            advanceRecording(++tick, firedTicks);
+        }
+
+        assertEquals(expectedTicks, firedTicks);
+        assertEquals(0, wheel.size());
+    }
+
+    private void advanceRecording(long tick, Map<String, Long> firedTicks) {
+        wheel.advance(at(tick), item -> assertNull(firedTicks.put(item, tick), item + " fired twice"));
+    }
+
+    private List<String> advanceTo(long tick) {
+        List<String> fired = new ArrayList<>();
+        wheel.advance(at(tick), fired::add);
+        return fired;
+    }
+
+    private static long at(long tick) {
+        return ORIGIN + tick * TICK;
+    }
+}
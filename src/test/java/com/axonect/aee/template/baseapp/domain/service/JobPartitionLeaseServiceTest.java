@@ -0,0 +1,210 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs several in-process "replicas" of {@link JobPartitionLeaseService} against one H2 database
+ * and checks that partitions are split between them without overlap.
+ */
+class JobPartitionLeaseServiceTest {
+
+    private static final String JOB_NAME = "TEST_JOB";
+    private static final String RUN_KEY = "2026-01-28";
+    private static final int PARTITIONS = 32;
+    private static final long LEASE_SECONDS = 300;
+    private static final Instant START = Instant.parse("2026-01-28T00:30:00Z");
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE JOB_PARTITION_LEASE (" +
+                "JOB_NAME VARCHAR(64) NOT NULL, " +
+                "RUN_KEY VARCHAR(64) NOT NULL, " +
+                "PARTITION_NO INT NOT NULL, " +
+                "PARTITION_COUNT INT NOT NULL, " +
+                "STATUS VARCHAR(20) NOT NULL, " +
+                "OWNER_ID VARCHAR(128), " +
+                "LEASE_EXPIRES_AT TIMESTAMP, " +
+                "CREATED_AT TIMESTAMP NOT NULL, " +
+                "UPDATED_AT TIMESTAMP NOT NULL, " +
+                "PRIMARY KEY (JOB_NAME, RUN_KEY, PARTITION_NO))");
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void testConcurrentNodes_ClaimDisjointPartitions() throws Exception {
+        List<JobPartitionLeaseService> nodes = List.of(node("node-a"), node("node-b"), node("node-c"), node("node-d"));
+        Map<Integer, String> owners = new ConcurrentHashMap<>();
+        List<Integer> duplicates = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(nodes.size());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (JobPartitionLeaseService node : nodes) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    node.ensurePartitions(JOB_NAME, RUN_KEY, PARTITIONS);
+                    Integer partition;
+                    while ((partition = node.claimNext(JOB_NAME, RUN_KEY)) != null) {
+                        if (owners.putIfAbsent(partition, node.getOwnerId()) != null) {
+                            duplicates.add(partition);
+                        }
+                        node.complete(JOB_NAME, RUN_KEY, partition);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(duplicates.isEmpty(), "Partitions claimed twice: " + duplicates);
+        assertEquals(PARTITIONS, owners.size());
+        assertEquals(PARTITIONS, countByStatus("DONE"));
+    }
+
+    @Test
+    void testRoundRobinNodes_SplitWorkEvenly() {
+        List<JobPartitionLeaseService> nodes = List.of(node("node-a"), node("node-b"), node("node-c"));
+        nodes.forEach(node -> node.ensurePartitions(JOB_NAME, RUN_KEY, PARTITIONS));
+
+        Map<String, Set<Integer>> claimedByNode = new ConcurrentHashMap<>();
+        Set<Integer> allClaimed = new HashSet<>();
+        boolean workLeft = true;
+        while (workLeft) {
+            workLeft = false;
+            for (JobPartitionLeaseService node : nodes) {
+                Integer partition = node.claimNext(JOB_NAME, RUN_KEY);
+                if (partition != null) {
+                    workLeft = true;
+                    assertTrue(allClaimed.add(partition), "Partition claimed twice: " + partition);
+                    claimedByNode.computeIfAbsent(node.getOwnerId(), k -> new HashSet<>()).add(partition);
+                    node.complete(JOB_NAME, RUN_KEY, partition);
+                }
+            }
+        }
+
+        assertEquals(PARTITIONS, allClaimed.size());
+        assertEquals(3, claimedByNode.size());
+        claimedByNode.values().forEach(claimed -> assertTrue(claimed.size() >= PARTITIONS / 3));
+    }
+
+    @Test
+    void testExpiredLeaseOfDeadNode_IsTakenOver() {
+        JobPartitionLeaseService deadNode = node("node-dead");
+        JobPartitionLeaseService liveNode = node("node-live");
+        deadNode.ensurePartitions(JOB_NAME, RUN_KEY, PARTITIONS);
+
+        Integer orphaned = deadNode.claimNext(JOB_NAME, RUN_KEY);
+
+        Integer partition;
+        int processedByLiveNode = 0;
+        while ((partition = liveNode.claimNext(JOB_NAME, RUN_KEY)) != null) {
+            assertFalse(partition.equals(orphaned), "Live node claimed a partition with a valid lease");
+            liveNode.complete(JOB_NAME, RUN_KEY, partition);
+            processedByLiveNode++;
+        }
+        assertEquals(PARTITIONS - 1, processedByLiveNode);
+        assertEquals(0, jobPartitionLeaseRunsWithClaimableWork(liveNode, START));
+
+        // The dead node never renews; once its lease has expired the live node takes the partition over
+        setClock(liveNode, START.plusSeconds(LEASE_SECONDS + 1));
+        assertEquals(1, jobPartitionLeaseRunsWithClaimableWork(liveNode, START.plusSeconds(LEASE_SECONDS + 1)));
+        assertEquals(orphaned, liveNode.claimNext(JOB_NAME, RUN_KEY));
+        liveNode.complete(JOB_NAME, RUN_KEY, orphaned);
+
+        assertFalse(deadNode.renew(JOB_NAME, RUN_KEY, orphaned));
+        assertEquals(PARTITIONS, countByStatus("DONE"));
+    }
+
+    @Test
+    void testJoiningNode_TakesRemainingPartitionsWithRunPartitionCount() {
+        JobPartitionLeaseService firstNode = node("node-a");
+        firstNode.ensurePartitions(JOB_NAME, RUN_KEY, PARTITIONS);
+        for (int i = 0; i < 4; i++) {
+            Integer partition = firstNode.claimNext(JOB_NAME, RUN_KEY);
+            firstNode.complete(JOB_NAME, RUN_KEY, partition);
+        }
+
+        // A replica configured differently still uses the partition count the run was created with
+        JobPartitionLeaseService joiningNode = node("node-b");
+        assertEquals(PARTITIONS, joiningNode.ensurePartitions(JOB_NAME, RUN_KEY, 8));
+
+        Set<Integer> claimedByJoiningNode = new HashSet<>();
+        Integer partition;
+        while ((partition = joiningNode.claimNext(JOB_NAME, RUN_KEY)) != null) {
+            assertTrue(partition >= 4, "Joining node claimed a completed partition: " + partition);
+            claimedByJoiningNode.add(partition);
+            joiningNode.complete(JOB_NAME, RUN_KEY, partition);
+        }
+
+        assertEquals(PARTITIONS - 4, claimedByJoiningNode.size());
+        assertNull(firstNode.claimNext(JOB_NAME, RUN_KEY));
+    }
+
+    private JobPartitionLeaseService node(String ownerId) {
+        JobPartitionLeaseService node = new JobPartitionLeaseService(jdbcTemplate);
+        ReflectionTestUtils.setField(node, "enabled", true);
+        ReflectionTestUtils.setField(node, "leaseSeconds", LEASE_SECONDS);
+        ReflectionTestUtils.setField(node, "ownerId", ownerId);
+        setClock(node, START);
+        return node;
+    }
+
+    private static void setClock(JobPartitionLeaseService node, Instant instant) {
+        ReflectionTestUtils.setField(node, "clock", Clock.fixed(instant, ZoneOffset.UTC));
+    }
+
+    private static int jobPartitionLeaseRunsWithClaimableWork(JobPartitionLeaseService node, Instant now) {
+        return node.findRunsWithClaimableWork(now.atOffset(ZoneOffset.UTC).toLocalDateTime().minusDays(1)).size();
+    }
+
+    private int countByStatus(String status) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM JOB_PARTITION_LEASE WHERE STATUS = ?", Integer.class, status);
+        return count != null ? count : 0;
+    }
+}
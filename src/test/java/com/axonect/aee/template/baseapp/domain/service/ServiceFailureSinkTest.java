@@ -0,0 +1,138 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import com.axonect.aee.template.baseapp.domain.entities.repo.ServiceProcessingFailure;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link ServiceFailureSink} never drops a failure: a full queue is written by the recording
+ * thread, {@link ServiceFailureSink#flush()} writes everything queued, and stopping writes what is left.
+ * The background writer is not started where a test needs records to stay queued.
+ */
+class ServiceFailureSinkTest {
+
+    private static final int CAPACITY = 4;
+    private static final int BATCH_SIZE = 3;
+
+    private final RecordingJdbcTemplate jdbcTemplate = new RecordingJdbcTemplate();
+    private final ServiceFailureSink sink = new ServiceFailureSink(jdbcTemplate);
+
+    @Test
+    void testFullQueue_RecordingThreadWritesABatchAndNothingIsDropped() {
+        queueWithoutWriter();
+
+        submit(1, CAPACITY + 2);
+
+        assertEquals(List.of(BATCH_SIZE), jdbcTemplate.batchSizes());
+        assertTrue(jdbcTemplate.writers.stream().allMatch(Thread.currentThread()::equals));
+        sink.flush();
+        assertEquals(ids(1, CAPACITY + 2), jdbcTemplate.writtenIds());
+    }
+
+    @Test
+    void testFlush_WritesEverythingQueuedInBatches() {
+        queueWithoutWriter();
+        submit(1, CAPACITY);
+        assertTrue(jdbcTemplate.batches.isEmpty());
+
+        sink.flush();
+
+        assertEquals(List.of(BATCH_SIZE, CAPACITY - BATCH_SIZE), jdbcTemplate.batchSizes());
+        assertEquals(ids(1, CAPACITY), jdbcTemplate.writtenIds());
+    }
+
+    @Test
+    void testStop_WritesWhatIsLeftAndLaterFailuresDirectly() {
+        queueWithoutWriter();
+        submit(1, 2);
+
+        sink.stop();
+
+        assertFalse(sink.isRunning());
+        assertEquals(ids(1, 2), jdbcTemplate.writtenIds());
+        submit(3, 3);
+        assertEquals(ids(1, 3), jdbcTemplate.writtenIds());
+    }
+
+    @Test
+    void testStop_WritesTheFailuresOfAStartedSink() {
+        ReflectionTestUtils.setField(sink, "enabled", true);
+        ReflectionTestUtils.setField(sink, "capacity", CAPACITY * 10);
+        ReflectionTestUtils.setField(sink, "batchSize", BATCH_SIZE);
+        ReflectionTestUtils.setField(sink, "flushIntervalMillis", 50L);
+        sink.start();
+        submit(1, 20);
+
+        sink.stop();
+
+        assertEquals(ids(1, 20), jdbcTemplate.writtenIds());
+    }
+
+    /**
+     * Puts the sink in its running state with a queue but no background writer, so records stay queued.
+     */
+    private void queueWithoutWriter() {
+        ReflectionTestUtils.setField(sink, "batchSize", BATCH_SIZE);
+        ReflectionTestUtils.setField(sink, "queue", new ArrayBlockingQueue<ServiceProcessingFailure>(CAPACITY));
+        ReflectionTestUtils.setField(sink, "running", true);
+    }
+
+    private void submit(long fromId, long toId) {
+        LongStream.rangeClosed(fromId, toId).forEach(id -> sink.submit(ServiceProcessingFailure.builder()
+                .serviceInstanceId(id)
+                .username("user-" + id)
+                .processingStatus("FAILED")
+                .build()));
+    }
+
+    private static List<Long> ids(long fromId, long toId) {
+        return LongStream.rangeClosed(fromId, toId).boxed().toList();
+    }
+
+    /**
+     * Records the batches instead of inserting them, with the thread that wrote each.
+     */
+    private static final class RecordingJdbcTemplate extends JdbcTemplate {
+
+        private final List<List<ServiceProcessingFailure>> batches = Collections.synchronizedList(new ArrayList<>());
+        private final List<Thread> writers = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                       ParameterizedPreparedStatementSetter<T> pss) {
+            batches.add(new ArrayList<>((Collection<ServiceProcessingFailure>) batchArgs));
+            writers.add(Thread.currentThread());
+            return new int[0][];
+        }
+
+        List<Integer> batchSizes() {
+            synchronized (batches) {
+                return batches.stream().map(List::size).toList();
+            }
+        }
+
+        List<Long> writtenIds() {
+            synchronized (batches) {
+                return batches.stream()
+                        .flatMap(List::stream)
+                        .map(ServiceProcessingFailure::getServiceInstanceId)
+                        .sorted()
+                        .toList();
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the partition accounting of {@link StagedChunkPipeline}: a partition is completed once, only after
+ * all of its outputs passed the cache stage, and never when one of its chunks failed.
+ */
+class StagedChunkPipelineTest {
+
+    private static final int PARTITIONS = 8;
+    private static final int CHUNKS_PER_PARTITION = 5;
+    private static final int CHUNK_SIZE = 10;
+    private static final StagedChunkPipeline.Settings SETTINGS = new StagedChunkPipeline.Settings(3, 2, 2, 3, 2, 0);
+
+    private final RecordingPartitionSource source = new RecordingPartitionSource(PARTITIONS);
+    private final Set<Integer> cached = ConcurrentHashMap.newKeySet();
+    private final Map<Object, Exception> failed = new ConcurrentHashMap<>();
+
+    @Test
+    void testEveryPartition_IsCompletedOnceAfterAllItsOutputsAreCached() {
+        pipeline(item -> false, Set.of()).run();
+
+        assertEquals(PARTITIONS * CHUNKS_PER_PARTITION * CHUNK_SIZE, cached.size());
+        assertEquals(PARTITIONS, source.completions.size());
+        source.completions.forEach((partition, count) -> assertEquals(1, count.get(), "partition " + partition));
+        assertTrue(source.completedEarly.isEmpty(), "Completed before caching: " + source.completedEarly);
+    }
+
+    @Test
+    void testWriterFailure_LeavesOnlyItsPartitionUncompleted() {
+        pipeline(item -> item == item(3, 2, 0), Set.of()).run();
+
+        assertEquals(PARTITIONS - 1, source.completions.size());
+        assertFalse(source.completions.containsKey(3));
+        assertTrue(source.completedEarly.isEmpty(), "Completed before caching: " + source.completedEarly);
+    }
+
+    @Test
+    void testWriterFailure_HandsEveryItemOfTheChunkToTheFailureHandler() {
+        pipeline(item -> item == item(3, 2, 0), Set.of()).run();
+
+        int first = item(3, 2, 0);
+        assertEquals(IntStream.range(first, first + CHUNK_SIZE).boxed().collect(Collectors.toSet()), failed.keySet());
+        failed.keySet().forEach(item -> assertFalse(cached.contains(item), "cached: " + item));
+        assertEquals(PARTITIONS * CHUNKS_PER_PARTITION * CHUNK_SIZE - CHUNK_SIZE, cached.size());
+    }
+
+    @Test
+    void testReaderFailure_LeavesItsPartitionUncompleted() {
+        pipeline(item -> false, Set.of(5)).run();
+
+        assertEquals(PARTITIONS - 1, source.completions.size());
+        assertFalse(source.completions.containsKey(5));
+    }
+
+    @Test
+    void testEmptyPartition_IsCompleted() {
+        new StagedChunkPipeline<Integer, List<Integer>, Integer>("TEST", source, (partition, sink) -> {
+        }, chunk -> chunk, chunk -> chunk, cached::add, item -> item, failed::put, SETTINGS).run();
+
+        assertEquals(PARTITIONS, source.completions.size());
+    }
+
+    private StagedChunkPipeline<Integer, List<Integer>, Integer> pipeline(
+            IntPredicate failingItem, Set<Integer> failingReads) {
+        return new StagedChunkPipeline<>("TEST", source, (partition, sink) -> {
+            for (int chunk = 0; chunk < CHUNKS_PER_PARTITION; chunk++) {
+                if (chunk == 2 && failingReads.contains(partition)) {
+                    throw new IllegalStateException("Read failed");
+                }
+                int first = item(partition, chunk, 0);
+                sink.accept(IntStream.range(first, first + CHUNK_SIZE).boxed().toList());
+            }
+        }, chunk -> chunk, chunk -> {
+            if (chunk.stream().anyMatch(failingItem::test)) {
+                throw new IllegalStateException("Chunk rolled back");
+            }
+            return chunk;
+        }, cached::add, item -> item % 7, (chunk, ex) -> chunk.forEach(item -> failed.put(item, ex)), SETTINGS);
+    }
+
+    private static int item(int partition, int chunk, int index) {
+        return (partition * CHUNKS_PER_PARTITION + chunk) * CHUNK_SIZE + index;
+    }
+
+    /**
+     * Hands out every partition once and records completions, flagging those completed while
+     * an item of the partition has not been cached yet.
+     */
+    private final class RecordingPartitionSource implements PartitionSource {
+
+        private final int partitionCount;
+        private final AtomicInteger next = new AtomicInteger();
+        private final Map<Integer, AtomicInteger> completions = new ConcurrentHashMap<>();
+        private final List<Integer> completedEarly = Collections.synchronizedList(new ArrayList<>());
+
+        RecordingPartitionSource(int partitionCount) {
+            this.partitionCount = partitionCount;
+        }
+
+        @Override
+        public int partitionCount() {
+            return partitionCount;
+        }
+
+        @Override
+        public Integer next() {
+            int partition = next.getAndIncrement();
+            return partition < partitionCount ? partition : null;
+        }
+
+        @Override
+        public boolean renew(int partition) {
+            return true;
+        }
+
+        @Override
+        public void complete(int partition) {
+            completions.computeIfAbsent(partition, p -> new AtomicInteger()).incrementAndGet();
+            int first = item(partition, 0, 0);
+            boolean allCached = IntStream.range(first, first + CHUNKS_PER_PARTITION * CHUNK_SIZE)
+                    .allMatch(cached::contains);
+            if (!allCached) {
+                completedEarly.add(partition);
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the retry budget per key and the doubling delays of {@link TransientRetryQueue}.
+ */
+class TransientRetryQueueTest {
+
+    private static final long BASE_DELAY_MILLIS = 50;
+
+    private final TransientRetryQueue<String> queue = new TransientRetryQueue<>(2, BASE_DELAY_MILLIS);
+
+    @Test
+    void testKeyOutOfAttempts_IsRefused() {
+        assertTrue(queue.offer(1L, "service-1"));
+        assertTrue(queue.offer(1L, "service-1"));
+        assertFalse(queue.offer(1L, "service-1"));
+
+        assertTrue(queue.offer(2L, "service-2"));
+    }
+
+    @Test
+    void testRetry_IsNotDueBeforeItsDelay() {
+        queue.offer(1L, "service-1");
+
+        assertEquals(List.of(), queue.pollDue());
+    }
+
+    @Test
+    void testDelay_DoublesWithEveryRetryOfTheKey() throws InterruptedException {
+        long start = System.nanoTime();
+        queue.offer(1L, "service-1");
+        assertEquals(List.of("service-1"), queue.awaitDue());
+        assertTrue(elapsedMillis(start) >= BASE_DELAY_MILLIS);
+
+        start = System.nanoTime();
+        queue.offer(1L, "service-1");
+        assertEquals(List.of("service-1"), queue.awaitDue());
+        assertTrue(elapsedMillis(start) >= 2 * BASE_DELAY_MILLIS);
+    }
+
+    @Test
+    void testAwaitDue_ReturnsEverythingDueByThen() throws InterruptedException {
+        queue.offer(1L, "service-1");
+        queue.offer(2L, "service-2");
+        Thread.sleep(2 * BASE_DELAY_MILLIS);
+
+        assertEquals(List.of("service-1", "service-2"), queue.awaitDue());
+        assertEquals(List.of(), queue.awaitDue());
+    }
+
+    @Test
+    void testClear_ReturnsRetriesNotDueYet() {
+        queue.offer(1L, "service-1");
+        queue.offer(2L, "service-2");
+
+        assertEquals(2, queue.clear().size());
+        assertEquals(List.of(), queue.pollDue());
+    }
+
+    @Test
+    void testRetryThatSucceeds_RecordsNothing() {
+        List<String> recorded = new ArrayList<>();
+        List<String> retried = new ArrayList<>();
+        queue.offer(1L, "service-1");
+
+        queue.drain(retried::addAll, () -> false, recorded::add);
+
+        assertEquals(List.of("service-1"), retried);
+        assertEquals(List.of(), recorded);
+    }
+
+    @Test
+    void testRetryThatKeepsFailing_IsRecordedOnceWhenOutOfAttempts() {
+        List<String> recorded = new ArrayList<>();
+        queue.offer(1L, "service-1");
+
+        // Each failed retry is offered again; the refused offer is recorded, as the run does
+        queue.drain(due -> due.forEach(item -> {
+            if (!queue.offer(1L, item)) {
+                recorded.add(item);
+            }
+        }), () -> false, recorded::add);
+
+        assertEquals(List.of("service-1"), recorded);
+    }
+
+    @Test
+    void testDrainStopped_RecordsRetriesNotAttempted() {
+        List<String> recorded = new ArrayList<>();
+        queue.offer(1L, "service-1");
+        queue.offer(2L, "service-2");
+
+        queue.drain(due -> {
+            throw new AssertionError("Nothing is retried after a stop");
+        }, () -> true, recorded::add);
+
+        assertEquals(2, recorded.size());
+        assertEquals(List.of(), queue.pollDue());
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
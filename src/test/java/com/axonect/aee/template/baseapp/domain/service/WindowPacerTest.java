@@ -0,0 +1,87 @@
+package com.axonect.aee.template.baseapp.domain.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link WindowPacer} holds back a run ahead of its schedule and never holds back one that is
+ * behind it or past its window, and that a wait can be ended by the caller.
+ */
+class WindowPacerTest {
+
+    private final AtomicLong processed = new AtomicLong();
+
+    @Test
+    void testRunAheadOfSchedule_Waits() {
+        // Half of the items done at once, with 400 ms left for the other half: the chunk was worth 400 ms
+        WindowPacer pacer = new WindowPacer(100, () -> Duration.ofMillis(400), processed::get);
+        processed.set(50);
+
+        long elapsed = timeMillis(pacer::pace);
+
+        assertTrue(elapsed >= 300, "waited " + elapsed + " ms");
+        assertTrue(elapsed < 2_000, "waited " + elapsed + " ms");
+    }
+
+    @Test
+    void testRunWithoutProgress_DoesNotWait() {
+        WindowPacer pacer = new WindowPacer(100, () -> Duration.ofMinutes(10), processed::get);
+
+        assertTrue(timeMillis(pacer::pace) < 100);
+    }
+
+    @Test
+    void testRunPastItsWindow_DoesNotWait() {
+        WindowPacer pacer = new WindowPacer(100, () -> Duration.ZERO, processed::get);
+        processed.set(50);
+
+        assertTrue(timeMillis(pacer::pace) < 100);
+    }
+
+    @Test
+    void testSharedRun_SplitsTheRateBetweenReplicas() {
+        // 100 items left for the run over 400 ms, shared by two replicas: 50 items here are worth 400 ms
+        WindowPacer pacer = new WindowPacer(() -> Duration.ofMillis(400), () -> 100, processed::get, () -> 2);
+        processed.set(50);
+
+        long elapsed = timeMillis(pacer::pace);
+
+        assertTrue(elapsed >= 300, "waited " + elapsed + " ms");
+        assertTrue(elapsed < 2_000, "waited " + elapsed + " ms");
+    }
+
+    @Test
+    void testWaitEndedByCaller_ReportsStop() {
+        WindowPacer pacer = new WindowPacer(100, () -> Duration.ofMillis(400), processed::get);
+        processed.set(50);
+        AtomicInteger checks = new AtomicInteger();
+
+        assertFalse(pacer.pace(() -> checks.incrementAndGet() < 0));
+        assertEquals(1, checks.get());
+    }
+
+    @Test
+    void testSampledValue_IsReadOncePerInterval() {
+        AtomicInteger reads = new AtomicInteger();
+        LongSupplier sampled = WindowPacer.sampledEvery(Duration.ofMinutes(1), reads::incrementAndGet);
+
+        assertEquals(1, sampled.getAsLong());
+        assertEquals(1, sampled.getAsLong());
+        assertEquals(1, reads.get());
+    }
+
+    private static long timeMillis(Runnable action) {
+        long start = System.nanoTime();
+        action.run();
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}